@@ -0,0 +1,66 @@
+package com.example.superplanningapp;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Сборка JSON запроса (AIService.buildRequestBody, с историей сессии) и разбор ответа (AIService.parseResponse).
+// AIService читает GOOGLE_API_KEY из .env при загрузке класса - ключ может быть любым, сеть не нужна
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AIServiceJsonBenchmark {
+
+    @Param({"0", "10"})
+    public int historyExchanges;
+
+    private ChatSession session;
+    private String message;
+    private HttpResponse<String> response;
+
+    @Setup
+    public void setup() {
+        session = new ChatSession();
+        for (int i = 0; i < historyExchanges; i++) {
+            session.addExchange("Составь план на день " + i, "Вот план на день " + i + ": 9:00 - зарядка, 10:00 - работа, 13:00 - обед.");
+        }
+        message = "Помоги распланировать завтрашний день: три встречи, спортзал и подготовка к экзамену.";
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < 40; i++) answer.append("Пункт ").append(i).append(": сделать что-то полезное.\n");
+        String body = "{\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":[{\"text\":" + org.json.JSONObject.quote(answer.toString()) + "}]},"
+                + "\"finishReason\":\"STOP\"}],\"usageMetadata\":{\"promptTokenCount\":120,\"candidatesTokenCount\":400}}";
+        response = new StubResponse(body);
+    }
+
+    @Benchmark
+    public String buildRequest() {
+        return AIService.buildRequestBody(session, message);
+    }
+
+    @Benchmark
+    public String parseResponse() {
+        return AIService.parseResponse(response);
+    }
+
+    // Готовый ответ 200 с телом body
+    private static class StubResponse implements HttpResponse<String> {
+        private final String body;
+        StubResponse(String body) { this.body = body; }
+        @Override public int statusCode() { return 200; }
+        @Override public HttpRequest request() { return null; }
+        @Override public Optional<HttpResponse<String>> previousResponse() { return Optional.empty(); }
+        @Override public HttpHeaders headers() { return HttpHeaders.of(Map.of(), (a, b) -> true); }
+        @Override public String body() { return body; }
+        @Override public Optional<SSLSession> sslSession() { return Optional.empty(); }
+        @Override public URI uri() { return URI.create("http://localhost/"); }
+        @Override public HttpClient.Version version() { return HttpClient.Version.HTTP_1_1; }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.superplanningapp;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// База для бенчмарков с настоящим SQL: H2 в памяти в режиме совместимости с PostgreSQL.
+// Таблицы и индексы - как в README (нужные запросам колонки), без сети: меряется запрос + драйвер + маппинг.
+// Каждый бенчмарк получает свою базу (имя), она живет, пока открыто соединение.
+public class H2BenchmarkDatabase {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE boards (id SERIAL PRIMARY KEY, title VARCHAR(255), description TEXT, user_id INT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+            "CREATE TABLE lists (id SERIAL PRIMARY KEY, title VARCHAR(255), board_id INT REFERENCES boards(id) ON DELETE CASCADE, color VARCHAR(50))",
+            "CREATE TABLE cards (id SERIAL PRIMARY KEY, title VARCHAR(255), description TEXT, list_id INT REFERENCES lists(id) ON DELETE CASCADE, card_order INT DEFAULT 0)",
+            "CREATE TABLE habits (id SERIAL PRIMARY KEY, user_id INT, title VARCHAR(255), color VARCHAR(50))",
+            "CREATE TABLE habit_completions (habit_id INT REFERENCES habits(id) ON DELETE CASCADE, completion_date DATE, PRIMARY KEY (habit_id, completion_date))",
+            "CREATE INDEX idx_lists_board_id ON lists(board_id)",
+            "CREATE INDEX idx_cards_list_id_order ON cards(list_id, card_order, id)",
+            "CREATE INDEX idx_habits_user_id ON habits(user_id)"
+    };
+
+    public static Connection open(String name) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        try (Statement st = conn.createStatement()) {
+            for (String ddl : SCHEMA) st.execute(ddl);
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.superplanningapp;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Подставной ResultSet для бенчмарков маппинга: строки лежат в памяти (массивы),
+// поэтому меряется только наш код (чтение колонок по имени и создание объектов), без сети и драйвера.
+// Поддерживает то, что вызывают DAO: next, getInt/getLong/getDouble/getString/getBoolean/getTimestamp/getObject
+// по имени и номеру, findColumn, wasNull, close. Остальное - SQLFeatureNotSupportedException (UnsupportedResultSet).
+// Имя колонки -> номер через HashMap, как в драйвере PostgreSQL (PgResultSet.findColumn).
+// Таблица (Rows) готовится один раз в @Setup, в самом бенчмарке open() создает только курсор.
+public final class StubResultSet extends UnsupportedResultSet {
+
+    // Строки и индекс колонок - общие для всех курсоров
+    public static final class Rows {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final Object[][] rows;
+
+        private Rows(String[] columns, List<Object[]> rows) {
+            for (int i = 0; i < columns.length; i++) index.put(columns[i], i + 1);
+            this.rows = rows.toArray(new Object[0][]);
+        }
+
+        public ResultSet open() {
+            return new StubResultSet(index, rows);
+        }
+    }
+
+    private final Map<String, Integer> index;
+    private final Object[][] rows;
+    private int cursor = -1;
+    private boolean lastNull;
+    private boolean closed;
+
+    private StubResultSet(Map<String, Integer> index, Object[][] rows) {
+        this.index = index;
+        this.rows = rows;
+    }
+
+    public static Rows rows(String[] columns, List<Object[]> rows) {
+        return new Rows(columns, rows);
+    }
+
+    // === КУРСОР ===
+
+    @Override
+    public boolean next() {
+        return ++cursor < rows.length;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastNull;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        Integer column = index.get(columnLabel);
+        if (column == null) throw new SQLException("Нет колонки " + columnLabel);
+        return column;
+    }
+
+    private Object value(int columnIndex) throws SQLException {
+        if (cursor < 0 || cursor >= rows.length) throw new SQLException("Курсор не на строке");
+        Object value = rows[cursor][columnIndex - 1];
+        lastNull = value == null;
+        return value;
+    }
+
+    // === ЗНАЧЕНИЯ ПО НОМЕРУ КОЛОНКИ ===
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return value(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value instanceof Boolean b) return b;
+        return value != null && ((Number) value).intValue() != 0;
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return (Timestamp) value(columnIndex);
+    }
+
+    // === ЗНАЧЕНИЯ ПО ИМЕНИ КОЛОНКИ ===
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+}
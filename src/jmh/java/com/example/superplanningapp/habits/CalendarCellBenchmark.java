@@ -0,0 +1,48 @@
+package com.example.superplanningapp.habits;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+// Расчет состояния 42 клеток календаря (HabitCalendarView.cellFlags) - то, что делается
+// при каждой смене месяца/дня и клике по галочке. Счетчики берутся из массива года,
+// как в HabitTrackerScene (cachedYearStats)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalendarCellBenchmark {
+
+    @Param({"5"})
+    public int totalHabits;
+
+    private YearMonth month;
+    private LocalDate today;
+    private LocalDate selected;
+    private ToIntFunction<LocalDate> counts;
+
+    @Setup
+    public void setup() {
+        today = LocalDate.of(2025, 3, 20);
+        month = YearMonth.from(today);
+        selected = today.minusDays(3);
+        int[] yearStats = new int[366];
+        for (int i = 0; i < yearStats.length; i++) yearStats[i] = (i * 7) % (totalHabits + 1);
+        int year = today.getYear();
+        counts = date -> date.getYear() == year ? yearStats[date.getDayOfYear() - 1] : 0;
+    }
+
+    @Benchmark
+    public void month(Blackhole bh) {
+        int offset = month.atDay(1).getDayOfWeek().getValue() - 1;
+        int length = month.lengthOfMonth();
+        for (int i = 0; i < 42; i++) {
+            int day = i - offset + 1;
+            LocalDate date = day >= 1 && day <= length ? month.atDay(day) : null;
+            bh.consume(HabitCalendarView.cellFlags(date, selected, today, totalHabits, counts));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.superplanningapp.habits;
+
+import com.example.superplanningapp.H2BenchmarkDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// HabitDAO.HABITS_FOR_USER (привычки + отметка за день) на H2 в памяти (MODE=PostgreSQL) + HabitDAO.mapHabit.
+// Чистый маппинг - HabitMappingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HabitH2Benchmark {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    @Param({"10", "500"})
+    public int habits;
+
+    private Connection conn;
+    private PreparedStatement query;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = H2BenchmarkDatabase.open("habits_" + habits);
+        // История за 90 дней: через день у каждой привычки; у второго пользователя - столько же чужих привычек
+        try (PreparedStatement insertHabit = conn.prepareStatement("INSERT INTO habits (user_id, title, color) VALUES (?, ?, 'blue')", new String[]{"id"});
+             PreparedStatement insertDay = conn.prepareStatement("INSERT INTO habit_completions (habit_id, completion_date) VALUES (?, ?)")) {
+            for (int user = 1; user <= 2; user++) {
+                for (int i = 1; i <= habits; i++) {
+                    insertHabit.setInt(1, user);
+                    insertHabit.setString(2, "Привычка " + i);
+                    insertHabit.executeUpdate();
+                    ResultSet keys = insertHabit.getGeneratedKeys();
+                    keys.next();
+                    int habitId = keys.getInt(1);
+                    for (int d = i % 2; d < 90; d += 2) {
+                        insertDay.setInt(1, habitId);
+                        insertDay.setDate(2, Date.valueOf(TODAY.minusDays(d)));
+                        insertDay.addBatch();
+                    }
+                }
+                insertDay.executeBatch();
+            }
+        }
+        query = conn.prepareStatement(HabitDAO.HABITS_FOR_USER);
+    }
+
+    @Benchmark
+    public List<Habit> habitsForDay() throws SQLException {
+        List<Habit> result = new ArrayList<>();
+        query.setDate(1, Date.valueOf(TODAY));
+        query.setInt(2, 1);
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) result.add(HabitDAO.mapHabit(rs));
+        }
+        return result;
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+}
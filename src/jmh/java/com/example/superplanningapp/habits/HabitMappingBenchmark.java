@@ -0,0 +1,41 @@
+package com.example.superplanningapp.habits;
+
+import com.example.superplanningapp.StubResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Маппинг ResultSet -> Habit (HabitDAO.mapHabit), строки из StubResultSet
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HabitMappingBenchmark {
+
+    private static final String[] COLUMNS = {"id", "user_id", "title", "color", "is_completed"};
+
+    @Param({"10", "500"})
+    public int habits;
+
+    private StubResultSet.Rows table;
+
+    @Setup
+    public void setup() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= habits; i++) {
+            rows.add(new Object[]{i, 1, "Привычка " + i, "blue", i % 2});
+        }
+        table = StubResultSet.rows(COLUMNS, rows);
+    }
+
+    @Benchmark
+    public List<Habit> habits() throws SQLException {
+        ResultSet rs = table.open();
+        List<Habit> result = new ArrayList<>();
+        while (rs.next()) result.add(HabitDAO.mapHabit(rs));
+        return result;
+    }
+}
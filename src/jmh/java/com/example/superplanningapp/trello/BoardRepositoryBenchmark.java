@@ -0,0 +1,67 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.InMemoryUserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка сетки досок (getAllBoards + getBoardPeople) и списка карточек через репозитории без базы:
+// memory - InMemoryTrelloRepository, cached - он же за CachingTrelloRepository.
+// Разница показывает цену самого декоратора (попадание в кэш + копия списка)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoardRepositoryBenchmark {
+
+    @Param({"memory", "cached"})
+    public String impl;
+
+    @Param({"30"})
+    public int boardsCount;
+
+    private BoardRepository boards;
+    private CardRepository cards;
+    private int userId;
+    private int listId;
+
+    @Setup
+    public void setup() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        for (int i = 0; i < 5; i++) users.registerUser("user" + i, "user" + i + "@example.com", "+7 (700) 000-00-0" + i, "password" + i);
+        userId = users.findUserIdByUsername("user0");
+
+        InMemoryTrelloRepository store = new InMemoryTrelloRepository(users);
+        for (int b = 0; b < boardsCount; b++) {
+            Board board = store.createBoard("Доска " + b, "", userId);
+            for (int m = 1; m < 5; m++) store.acceptInvitation(store.invite(board.getId(), users.findUserIdByUsername("user" + m)));
+            TrelloList list = store.createList("Список", board.getId());
+            for (int c = 0; c < 50; c++) store.createCard("Задача " + c, null, list.getId());
+            listId = list.getId();
+        }
+
+        if (impl.equals("cached")) {
+            CachingTrelloRepository cached = new CachingTrelloRepository(store, store);
+            boards = cached;
+            cards = cached;
+        } else {
+            boards = store;
+            cards = store;
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, TrelloDAO.BoardPeople> homeGrid() {
+        List<Board> all = boards.getAllBoards(userId);
+        List<Integer> ids = new ArrayList<>();
+        for (Board b : all) ids.add(b.getId());
+        return boards.getBoardPeople(ids);
+    }
+
+    @Benchmark
+    public List<Card> cardsByList() {
+        return cards.getCardsByList(listId);
+    }
+}
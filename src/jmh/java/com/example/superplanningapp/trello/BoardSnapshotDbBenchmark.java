@@ -0,0 +1,42 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.DatabaseConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Снимок доски с живой базой (Postgres из .env, например локальный): запрос + маппинг целиком.
+// TrelloDAO.getBoardSnapshot читает из локальной реплики, если доска уже синхронизирована (LocalReplica),
+// поэтому бенчмарк идет мимо нее: тот же запрос (TrelloDAO.BOARD_SNAPSHOT) прямо через пул основной базы.
+// Тот же запрос без сети - TrelloH2Benchmark.
+// По умолчанию не запускается (см. jmh.args в pom.xml), явно: -Djmh.args="-f 1 BoardSnapshotDb -p boardId=1"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BoardSnapshotDbBenchmark {
+
+    @Param({"1"})
+    public int boardId;
+
+    @Benchmark
+    public BoardSnapshot boardSnapshot() throws SQLException {
+        BoardSnapshot snapshot = new BoardSnapshot(boardId);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TrelloDAO.BOARD_SNAPSHOT)) {
+            pstmt.setInt(1, boardId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                TrelloDAO.readSnapshot(rs, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    @TearDown
+    public void tearDown() {
+        DatabaseConnection.closePool();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.H2BenchmarkDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Те же запросы, что у TrelloDAO (BOARD_SNAPSHOT, CARDS_BY_LIST, LISTS_BY_BOARD), на H2 в памяти (MODE=PostgreSQL):
+// план запроса, драйвер и маппинг вместе, но без сети. Чистый маппинг - TrelloMappingBenchmark,
+// с настоящим Postgres - BoardSnapshotDbBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrelloH2Benchmark {
+
+    @Param({"10"})
+    public int lists;
+
+    @Param({"20", "200"})
+    public int cardsPerList;
+
+    private Connection conn;
+    private PreparedStatement snapshotQuery;
+    private PreparedStatement cardsQuery;
+    private PreparedStatement listsQuery;
+    private int boardId;
+    private int listId;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = H2BenchmarkDatabase.open("trello_" + lists + "_" + cardsPerList);
+        // Вторая доска того же размера: запрос должен отсечь чужие строки по индексу
+        for (int b = 0; b < 2; b++) boardId = fillBoard();
+        snapshotQuery = conn.prepareStatement(TrelloDAO.BOARD_SNAPSHOT);
+        cardsQuery = conn.prepareStatement(TrelloDAO.CARDS_BY_LIST);
+        listsQuery = conn.prepareStatement(TrelloDAO.LISTS_BY_BOARD);
+    }
+
+    private int fillBoard() throws SQLException {
+        int board;
+        try (PreparedStatement p = conn.prepareStatement("INSERT INTO boards (title, user_id) VALUES ('Доска', 1)", new String[]{"id"})) {
+            p.executeUpdate();
+            ResultSet keys = p.getGeneratedKeys();
+            keys.next();
+            board = keys.getInt(1);
+        }
+        try (PreparedStatement insertList = conn.prepareStatement("INSERT INTO lists (title, board_id, color) VALUES (?, ?, ?)", new String[]{"id"});
+             PreparedStatement insertCard = conn.prepareStatement("INSERT INTO cards (title, description, list_id, card_order) VALUES (?, ?, ?, ?)")) {
+            for (int l = 1; l <= lists; l++) {
+                insertList.setString(1, "Список " + l);
+                insertList.setInt(2, board);
+                insertList.setString(3, l % 2 == 0 ? "green" : null);
+                insertList.executeUpdate();
+                ResultSet keys = insertList.getGeneratedKeys();
+                keys.next();
+                listId = keys.getInt(1);
+                for (int c = 0; c < cardsPerList; c++) {
+                    insertCard.setString(1, "Задача " + c);
+                    insertCard.setString(2, c % 3 == 0 ? null : "Описание задачи номер " + c);
+                    insertCard.setInt(3, listId);
+                    insertCard.setInt(4, (c + 1) * CardRank.GAP);
+                    insertCard.addBatch();
+                }
+                insertCard.executeBatch();
+            }
+        }
+        return board;
+    }
+
+    @Benchmark
+    public BoardSnapshot boardSnapshot() throws SQLException {
+        BoardSnapshot snapshot = new BoardSnapshot(boardId);
+        snapshotQuery.setInt(1, boardId);
+        try (ResultSet rs = snapshotQuery.executeQuery()) {
+            TrelloDAO.readSnapshot(rs, snapshot);
+        }
+        return snapshot;
+    }
+
+    @Benchmark
+    public List<Card> cards() throws SQLException {
+        List<Card> cards = new ArrayList<>();
+        cardsQuery.setInt(1, listId);
+        try (ResultSet rs = cardsQuery.executeQuery()) {
+            while (rs.next()) cards.add(TrelloDAO.mapCard(rs));
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public List<TrelloList> lists() throws SQLException {
+        List<TrelloList> result = new ArrayList<>();
+        listsQuery.setInt(1, boardId);
+        try (ResultSet rs = listsQuery.executeQuery()) {
+            while (rs.next()) result.add(TrelloDAO.mapList(rs));
+        }
+        return result;
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+}
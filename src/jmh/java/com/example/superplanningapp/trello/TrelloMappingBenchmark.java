@@ -0,0 +1,76 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.StubResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Маппинг ResultSet -> TrelloList/Card (TrelloDAO.mapList/mapCard) и снимок доски (TrelloDAO.readSnapshot).
+// Строки приходят из StubResultSet (массивы в памяти): меряется только наш код, без сети и драйвера.
+// Те же запросы на настоящей базе (H2) - TrelloH2Benchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrelloMappingBenchmark {
+
+    private static final String[] SNAPSHOT_COLUMNS = {"list_id", "list_title", "board_id", "color", "card_id", "card_title", "card_description", "card_order"};
+    private static final String[] CARD_COLUMNS = {"id", "title", "description", "list_id", "card_order"};
+    private static final String[] LIST_COLUMNS = {"id", "title", "board_id", "color"};
+
+    @Param({"10"})
+    public int lists;
+
+    @Param({"20", "200"})
+    public int cardsPerList;
+
+    private StubResultSet.Rows snapshotTable;
+    private StubResultSet.Rows cardTable;
+    private StubResultSet.Rows listTable;
+
+    @Setup
+    public void setup() {
+        List<Object[]> snapshotRows = new ArrayList<>();
+        List<Object[]> cardRows = new ArrayList<>();
+        List<Object[]> listRows = new ArrayList<>();
+        int cardId = 1;
+        for (int l = 1; l <= lists; l++) {
+            listRows.add(new Object[]{l, "Список " + l, 1, l % 2 == 0 ? "green" : null});
+            for (int c = 0; c < cardsPerList; c++, cardId++) {
+                String title = "Задача " + cardId;
+                String desc = c % 3 == 0 ? null : "Описание задачи номер " + cardId;
+                snapshotRows.add(new Object[]{l, "Список " + l, 1, null, cardId, title, desc, (c + 1) * CardRank.GAP});
+                cardRows.add(new Object[]{cardId, title, desc, l, (c + 1) * CardRank.GAP});
+            }
+        }
+        snapshotTable = StubResultSet.rows(SNAPSHOT_COLUMNS, snapshotRows);
+        cardTable = StubResultSet.rows(CARD_COLUMNS, cardRows);
+        listTable = StubResultSet.rows(LIST_COLUMNS, listRows);
+    }
+
+    @Benchmark
+    public BoardSnapshot boardSnapshot() throws SQLException {
+        BoardSnapshot snapshot = new BoardSnapshot(1);
+        TrelloDAO.readSnapshot(snapshotTable.open(), snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public List<Card> cards() throws SQLException {
+        ResultSet rs = cardTable.open();
+        List<Card> cards = new ArrayList<>();
+        while (rs.next()) cards.add(TrelloDAO.mapCard(rs));
+        return cards;
+    }
+
+    @Benchmark
+    public List<TrelloList> lists() throws SQLException {
+        ResultSet rs = listTable.open();
+        List<TrelloList> result = new ArrayList<>();
+        while (rs.next()) result.add(TrelloDAO.mapList(rs));
+        return result;
+    }
+}
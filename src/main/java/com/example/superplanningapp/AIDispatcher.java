@@ -0,0 +1,280 @@
+package com.example.superplanningapp;
+
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Диспетчер запросов к AI. Защищает задержку и квоту API при нагрузке:
+// 1. Token bucket - не больше N запросов в секунду (лишние ждут своей очереди, но не дольше MAX_WAIT)
+// 2. Дедупликация - одинаковый вопрос, который уже летит, не отправляется второй раз
+// 3. Повторы на 429/503 с экспоненциальной задержкой и jitter (учитываем Retry-After, но не дольше MAX_BACKOFF_MS)
+// 4. Circuit breaker - после серии ошибок сразу отказываем, не дожидаясь таймаутов
+public class AIDispatcher {
+
+    // Отказ без обращения к серверу
+    public static class RejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        public RejectedException(String message) { super(message); }
+    }
+
+    private static final int MAX_RETRIES = 3;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 8_000;
+    private static final long MAX_WAIT_MS = 10_000;
+
+    private final TokenBucket bucket;
+    private final CircuitBreaker breaker;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    // === СЧЕТЧИКИ ===
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ai-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AIDispatcher(double requestsPerSecond, int burst, int failureThreshold, long openMillis) {
+        this.bucket = new TokenBucket(requestsPerSecond, burst);
+        this.breaker = new CircuitBreaker(failureThreshold, openMillis);
+    }
+
+    // Настройки из системных свойств: -Dai.rate.perSecond, -Dai.rate.burst
+    public static AIDispatcher fromSystemProperties() {
+        double rate = Double.parseDouble(System.getProperty("ai.rate.perSecond", "1"));
+        int burst = Integer.getInteger("ai.rate.burst", 5);
+        return new AIDispatcher(rate, burst, 5, 30_000);
+    }
+
+    // dedupKey == null - без дедупликации (например, потоковый ответ нельзя раздать двум читателям)
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<HttpResponse<T>> dispatch(String dedupKey, Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        if (dedupKey == null) return start(send);
+
+        CompletableFuture<HttpResponse<T>> fresh = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(dedupKey, fresh);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            return (CompletableFuture<HttpResponse<T>>) existing;
+        }
+
+        start(send).whenComplete((resp, ex) -> {
+            inFlight.remove(dedupKey, fresh);
+            if (ex != null) fresh.completeExceptionally(ex); else fresh.complete(resp);
+        });
+        return fresh;
+    }
+
+    // === МЕТРИКИ ===
+    public boolean isCircuitOpen() { return breaker.isOpen(); }
+    public long getSentCount() { return sent.get(); }
+    public long getDeduplicatedCount() { return deduplicated.get(); }
+    public long getRetriedCount() { return retried.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+
+    public String statsSummary() {
+        return String.format("AIDispatcher: отправлено=%d, дедуплицировано=%d, повторов=%d, отказов=%d, breaker=%s",
+                getSentCount(), getDeduplicatedCount(), getRetriedCount(), getRejectedCount(), isCircuitOpen() ? "OPEN" : "CLOSED");
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> start(Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        attempt(send, 0, result);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<HttpResponse<T>>> send, int attempt, CompletableFuture<HttpResponse<T>> result) {
+        if (!breaker.allowRequest()) {
+            rejected.incrementAndGet();
+            result.completeExceptionally(new RejectedException("AI временно недоступен, попробуйте позже"));
+            return;
+        }
+        long waitMs = bucket.reserve(MAX_WAIT_MS);
+        if (waitMs < 0) {
+            breaker.release();
+            rejected.incrementAndGet();
+            result.completeExceptionally(new RejectedException("Слишком много запросов к AI, попробуйте позже"));
+            return;
+        }
+
+        scheduler.schedule(() -> {
+            sent.incrementAndGet();
+            CompletableFuture<HttpResponse<T>> call;
+            try {
+                call = send.get();
+            } catch (RuntimeException e) {
+                breaker.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            call.whenComplete((response, ex) -> handle(send, attempt, result, response, ex));
+        }, waitMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Любое исключение здесь (в whenComplete) иначе потерялось бы, и result не завершился бы никогда -
+    // вызывающий (например, чат) ждал бы вечно
+    private <T> void handle(Supplier<CompletableFuture<HttpResponse<T>>> send, int attempt, CompletableFuture<HttpResponse<T>> result,
+                            HttpResponse<T> response, Throwable ex) {
+        try {
+            // Сетевая ошибка или таймаут: повторять не будем (таймаут и так долгий), но breaker ее учитывает
+            if (ex != null) {
+                breaker.recordFailure();
+                result.completeExceptionally(ex);
+                return;
+            }
+            int status = response.statusCode();
+            if (status == 429 || status == 503) {
+                breaker.recordFailure();
+                if (attempt < MAX_RETRIES) {
+                    closeBody(response);
+                    long retryAfterMs = parseRetryAfterMs(response.headers().firstValue("Retry-After").orElse(null));
+                    retryLater(send, attempt, retryAfterMs, result);
+                    return;
+                }
+            } else if (status >= 500) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+            result.complete(response);
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    // Retry-After бывает числом секунд ("120") или HTTP-датой ("Wed, 21 Oct 2026 07:28:00 GMT").
+    // Непонятное значение = заголовка нет (-1). Ждем не дольше MAX_BACKOFF_MS, что бы ни просил сервер
+    static long parseRetryAfterMs(String value) {
+        if (value == null || value.isBlank()) return -1;
+        String v = value.trim();
+        long ms;
+        if (v.chars().allMatch(Character::isDigit)) {
+            try {
+                ms = Math.multiplyExact(Long.parseLong(v), 1000L);
+            } catch (ArithmeticException | NumberFormatException e) {
+                ms = MAX_BACKOFF_MS; // число не влезло в long - явно "очень долго"
+            }
+        } else {
+            try {
+                ms = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis();
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+        return Math.max(0, Math.min(ms, MAX_BACKOFF_MS));
+    }
+
+    // Full jitter: случайная задержка от 0 до base * 2^attempt (но не меньше, чем просит Retry-After)
+    private <T> void retryLater(Supplier<CompletableFuture<HttpResponse<T>>> send, int attempt, long retryAfterMs, CompletableFuture<HttpResponse<T>> result) {
+        retried.incrementAndGet();
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+        long delay = Math.max(ThreadLocalRandom.current().nextLong(cap + 1), retryAfterMs);
+        scheduler.schedule(() -> attempt(send, attempt + 1, result), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Тело ответа-ошибки не нужно, но потоковое тело надо закрыть, чтобы освободить соединение
+    private static void closeBody(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable closeable) {
+            try { closeable.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    // ==========================================
+    // TOKEN BUCKET
+    // ==========================================
+    private static class TokenBucket {
+        private final double ratePerMs;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(double perSecond, int burst) {
+            this.ratePerMs = perSecond / 1000.0;
+            this.capacity = burst;
+            this.tokens = burst;
+        }
+
+        // Резервирует токен. Возвращает, сколько мс ждать до него, или -1, если ждать дольше maxWaitMs.
+        // Токены могут уйти в минус: это уже обещанные будущим запросам места
+        synchronized long reserve(long maxWaitMs) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / 1_000_000.0 * ratePerMs);
+            lastRefill = now;
+            long waitMs = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerMs);
+            if (waitMs > maxWaitMs) return -1;
+            tokens -= 1;
+            return waitMs;
+        }
+    }
+
+    // ==========================================
+    // CIRCUIT BREAKER
+    // ==========================================
+    // CLOSED - всё работает; OPEN - отказываем сразу; HALF_OPEN - пропускаем один пробный запрос
+    private static class CircuitBreaker {
+        private enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final int failureThreshold;
+        private final long openMillis;
+        private State state = State.CLOSED;
+        private int consecutiveFailures = 0;
+        private long openedAt = 0;
+        private boolean trialInFlight = false;
+
+        CircuitBreaker(int failureThreshold, long openMillis) {
+            this.failureThreshold = failureThreshold;
+            this.openMillis = openMillis;
+        }
+
+        synchronized boolean allowRequest() {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == State.OPEN) return false;
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) return false;
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        // Запрос так и не ушел (отказ лимитера) - пробный слот освобождается
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized void recordSuccess() {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        synchronized void recordFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            }
+            trialInFlight = false;
+        }
+
+        synchronized boolean isOpen() {
+            return state == State.OPEN;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.superplanningapp;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Кэш ответов AI: одинаковые (после нормализации) вопросы не отправляются в Gemini повторно.
+// - LRU: держим не больше maxEntries ответов, вытесняется самый давно использованный
+// - TTL: ответ старше ttlMillis считается протухшим
+// - Опционально: кэш сохраняется в файл, отображенный в память (memory-mapped), и переживает перезапуск
+// Метрики: hit ratio и суммарное сэкономленное время (сколько шли оригинальные запросы).
+public class AIResponseCache {
+
+    // Размер файла кэша на диске
+    private static final int MAP_SIZE = 4 * 1024 * 1024;
+    // В начале файла храним позицию записи (int)
+    private static final int HEADER_SIZE = 4;
+
+    private static class Entry {
+        final String answer;
+        final long createdAt;
+        final long latencyNanos; // сколько шел оригинальный запрос
+        Entry(String answer, long createdAt, long latencyNanos) {
+            this.answer = answer; this.createdAt = createdAt; this.latencyNanos = latencyNanos;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private MappedByteBuffer file; // null = только в памяти
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    public AIResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true превращает LinkedHashMap в LRU
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AIResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    // Настройки из системных свойств: -Dai.cache.size, -Dai.cache.ttlMinutes, -Dai.cache.file
+    public static AIResponseCache fromSystemProperties() {
+        int size = Integer.getInteger("ai.cache.size", 200);
+        long ttlMinutes = Long.getLong("ai.cache.ttlMinutes", 24 * 60);
+        AIResponseCache cache = new AIResponseCache(size, ttlMinutes * 60_000);
+        String path = System.getProperty("ai.cache.file");
+        if (path != null && !path.isEmpty()) cache.enablePersistence(Paths.get(path));
+        return cache;
+    }
+
+    // "  Как спланировать УТРО?? " и "как спланировать утро" - один и тот же ключ
+    public static String normalize(String prompt) {
+        String s = prompt.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+        int end = s.length();
+        while (end > 0 && ".,!?;: ".indexOf(s.charAt(end - 1)) >= 0) end--;
+        return s.substring(0, end);
+    }
+
+    public synchronized String get(String prompt) {
+        String key = normalize(prompt);
+        Entry e = entries.get(key);
+        if (e != null && System.currentTimeMillis() - e.createdAt > ttlMillis) {
+            entries.remove(key);
+            e = null;
+        }
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        savedNanos.addAndGet(e.latencyNanos);
+        return e.answer;
+    }
+
+    public synchronized void put(String prompt, String answer, long latencyNanos) {
+        String key = normalize(prompt);
+        Entry e = new Entry(answer, System.currentTimeMillis(), latencyNanos);
+        entries.put(key, e);
+        if (file != null) persist(key, e);
+    }
+
+    // === МЕТРИКИ ===
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public synchronized int size() { return entries.size(); }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public double getSavedLatencyMillis() {
+        return savedNanos.get() / 1_000_000.0;
+    }
+
+    public String statsSummary() {
+        return String.format("AIResponseCache: записей=%d, hit ratio=%.1f%% (%d/%d), сэкономлено=%.0f мс",
+                size(), getHitRatio() * 100, getHits(), getHits() + getMisses(), getSavedLatencyMillis());
+    }
+
+    // ==========================================
+    // ХРАНЕНИЕ НА ДИСКЕ (memory-mapped файл)
+    // ==========================================
+    // Формат записи: long createdAt | long latencyNanos | int keyLen | key | int answerLen | answer
+    // Записи только дописываются; более поздняя запись с тем же ключом перекрывает старую.
+    // Когда место кончается, файл переписывается из текущего содержимого памяти (compaction).
+
+    public synchronized void enablePersistence(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Отображение остается валидным и после закрытия канала
+            file = channel.map(FileChannel.MapMode.READ_WRITE, 0, MAP_SIZE);
+            load();
+        } catch (IOException e) {
+            System.err.println("Кэш AI будет только в памяти, файл недоступен: " + e.getMessage());
+            file = null;
+        }
+    }
+
+    private void load() {
+        int end = file.getInt(0);
+        if (end < HEADER_SIZE || end > MAP_SIZE) {
+            // Новый или поврежденный файл - начинаем с чистого листа
+            file.putInt(0, HEADER_SIZE);
+            return;
+        }
+        file.position(HEADER_SIZE);
+        long now = System.currentTimeMillis();
+        try {
+            while (file.position() < end) {
+                // Каждое поле проверяется по границе записанных данных: на первой битой записи
+                // останавливаемся и оставляем то, что успели прочитать (дальше всё равно мусор)
+                if (end - file.position() < 8 + 8) break;
+                long createdAt = file.getLong();
+                long latency = file.getLong();
+                String key = readString(end);
+                String answer = key == null ? null : readString(end);
+                if (answer == null) break;
+                if (now - createdAt <= ttlMillis) entries.put(key, new Entry(answer, createdAt, latency));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // Не должно случаться после проверок выше, но загрузку кэша это не ломает
+        }
+        if (file.position() < end) {
+            System.err.println("Файл кэша AI поврежден, загружено " + entries.size() + " записей");
+        }
+        compact();
+    }
+
+    // null - длина не помещается в записанную часть файла (обрезанная или поврежденная запись)
+    private String readString(int end) {
+        if (end - file.position() < 4) return null;
+        int len = file.getInt();
+        if (len < 0 || len > end - file.position()) return null;
+        byte[] bytes = new byte[len];
+        file.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void persist(String key, Entry e) {
+        if (!append(key, e)) {
+            compact();
+        }
+    }
+
+    // false = не хватило места
+    private boolean append(String key, Entry e) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] a = e.answer.getBytes(StandardCharsets.UTF_8);
+        int pos = file.getInt(0);
+        int recordSize = 8 + 8 + 4 + k.length + 4 + a.length;
+        if (pos + recordSize > MAP_SIZE) return false;
+
+        file.position(pos);
+        file.putLong(e.createdAt).putLong(e.latencyNanos);
+        file.putInt(k.length).put(k);
+        file.putInt(a.length).put(a);
+        // Позицию обновляем последней: оборванная запись не будет прочитана
+        file.putInt(0, pos + recordSize);
+        return true;
+    }
+
+    private void compact() {
+        file.putInt(0, HEADER_SIZE);
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (!append(e.getKey(), e.getValue())) break; // остальное живет только в памяти
+        }
+    }
+}
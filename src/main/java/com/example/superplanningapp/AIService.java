@@ -9,84 +9,278 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class AIService {
 
+    // Адрес модели по умолчанию. Можно переопределить (GEMINI_API_BASE в .env или -Dai.api.base=...),
+    // например, чтобы гонять клиента против локального stub-сервера
+    private static final String DEFAULT_API_BASE = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-lite";
+
     // API-Key загружается из .env файла
     private static final String API_KEY;
     private static final String API_URL;
+    private static final String STREAM_API_URL;
 
     static {
         try {
-            Dotenv dotenv = Dotenv.load();
+            Dotenv dotenv = EnvConfig.get();
             API_KEY = dotenv.get("GOOGLE_API_KEY");
             if (API_KEY == null || API_KEY.isEmpty()) {
                 throw new RuntimeException("GOOGLE_API_KEY не найден в .env файле! Пожалуйста, добавьте GOOGLE_API_KEY=your_key в .env");
             }
-            API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-lite:generateContent?key=" + API_KEY;
+            String apiBase = System.getProperty("ai.api.base", dotenv.get("GEMINI_API_BASE", DEFAULT_API_BASE));
+            API_URL = apiBase + ":generateContent?key=" + API_KEY;
+            // alt=sse: ответ приходит Server-Sent Events, по кусочку на событие
+            STREAM_API_URL = apiBase + ":streamGenerateContent?alt=sse&key=" + API_KEY;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка загрузки GOOGLE_API_KEY из .env: " + e.getMessage(), e);
         }
     }
 
+    // Задаю промпт для иишки чтобы только по теме отвечал
+    private static final String SYSTEM_PROMPT =
+            "Ты — строгий помощник по планированию распорядка дня. " +
+                    "Твоя единственная цель — помогать составлять расписание и управлять временем. " +
+                    "ВАЖНОЕ ПРАВИЛО: Если вопрос пользователя не касается планирования, расписания, задач или продуктивности, " +
+                    "ты ДОЛЖЕН ответить только одной фразой: 'Я могу отвечать лишь на вопросы о распорядке дня.'. " +
+                    "Не давай ответов на отвлеченные темы (погода, политика, развлечения и т.д.). " +
+                    "Отвечай на русском языке. ";
+
+    // Максимальный размер одного SSE-события. Защита от "бесконечной" строки без перевода
+    private static final int MAX_EVENT_CHARS = 256 * 1024;
+
+    // Таймауты: на установку соединения и на весь запрос целиком
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    // Свои потоки для HTTP к AI: долгий ответ Gemini не должен занимать слоты DbExecutor и общий ForkJoinPool
+    private static final ExecutorService AI_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "ai-http");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ОДИН клиент на всё приложение: TCP+TLS соединение (HTTP/2) переиспользуется между сообщениями,
+    // а не открывается заново на каждый вопрос
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .executor(AI_EXECUTOR)
+            .build();
+
+    // Кэш ответов на повторяющиеся вопросы (LRU + TTL, см. AIResponseCache)
+    private static final AIResponseCache CACHE = AIResponseCache.fromSystemProperties();
+
+    // Лимит частоты, дедупликация одинаковых вопросов, повторы на 429/503 и circuit breaker (см. AIDispatcher)
+    private static final AIDispatcher DISPATCHER = AIDispatcher.fromSystemProperties();
+
+    public static AIResponseCache getCache() {
+        return CACHE;
+    }
+
+    public static AIDispatcher getDispatcher() {
+        return DISPATCHER;
+    }
+
     public static CompletableFuture<String> askAI(String userMessage) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // 1. Создаем JSON-структуру для запроса
-                JSONObject textPart = new JSONObject();
-
-                // --- НАЧАЛО ИЗМЕНЕНИЙ ---
-                // Задаю промпт для иишки чтобы только по теме отвечал
-                String systemPrompt =
-                        "Ты — строгий помощник по планированию распорядка дня. " +
-                                "Твоя единственная цель — помогать составлять расписание и управлять временем. " +
-                                "ВАЖНОЕ ПРАВИЛО: Если вопрос пользователя не касается планирования, расписания, задач или продуктивности, " +
-                                "ты ДОЛЖЕН ответить только одной фразой: 'Я могу отвечать лишь на вопросы о распорядке дня.'. " +
-                                "Не давай ответов на отвлеченные темы (погода, политика, развлечения и т.д.). " +
-                                "Отвечай на русском языке. " +
-                                "\n\nСообщение пользователя: " + userMessage;
-
-                textPart.put("text", systemPrompt);
-                // --- КОНЕЦ ИЗМЕНЕНИЙ ---
-
-                JSONObject parts = new JSONObject();
-                parts.put("parts", new JSONArray().put(textPart));
-
-                JSONObject jsonBody = new JSONObject();
-                jsonBody.put("contents", new JSONArray().put(parts));
-
-                // 2. Настраиваем HTTP-клиент
-                HttpClient client = HttpClient.newHttpClient();
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(API_URL))
-                        .header("Content-Type", "application/json")
-                        .POST(HttpRequest.BodyPublishers.ofString(jsonBody.toString(), StandardCharsets.UTF_8))
-                        .build();
-
-                // 3. Отправляем запрос
-                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-                // 4. Обрабатываем ответ
-                if (response.statusCode() == 200) {
-                    JSONObject responseJson = new JSONObject(response.body());
-
-                    return responseJson.getJSONArray("candidates")
-                            .getJSONObject(0)
-                            .getJSONObject("content")
-                            .getJSONArray("parts")
-                            .getJSONObject(0)
-                            .getString("text");
-                } else {
-                    System.err.println("Ошибка API (" + response.statusCode() + "): " + response.body());
-                    return "Ошибка сервера: " + response.statusCode();
+        return askAI(null, userMessage);
+    }
+
+    // session == null - одиночный вопрос без истории
+    public static CompletableFuture<String> askAI(ChatSession session, String userMessage) {
+        // Кэш имеет смысл только для вопросов без контекста: с историей тот же текст означает другое
+        boolean cacheable = session == null || session.isEmpty();
+        String cached = cacheable ? CACHE.get(userMessage) : null;
+        if (cached != null) {
+            if (session != null) session.addExchange(userMessage, cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        long startedAt = System.nanoTime();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(API_URL))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(session, userMessage), StandardCharsets.UTF_8))
+                .build();
+
+        // sendAsync: поток не блокируется на время ожидания ответа.
+        // Одинаковый вопрос без контекста, который уже в пути, повторно не отправляется
+        String dedupKey = cacheable ? AIResponseCache.normalize(userMessage) : null;
+        return DISPATCHER.dispatch(dedupKey, () -> HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)))
+                .thenApply(response -> {
+                    String answer = parseResponse(response);
+                    // Кэшируем и запоминаем в истории только успешные ответы
+                    if (response.statusCode() == 200) remember(session, cacheable, userMessage, answer, startedAt);
+                    return answer;
+                })
+                .exceptionally(AIService::connectionError);
+    }
+
+    // === ПОТОКОВЫЙ РЕЖИМ ===
+    // Текст приходит кусками по мере генерации: onChunk вызывается на каждый кусок (в фоновом потоке),
+    // а future завершается итогом. Пользователь видит первые слова сразу, а не после всей генерации
+
+    // Итог потокового запроса. streamed = true - весь текст уже отдан через onChunk;
+    // false - ответа нет (ошибка сервера или соединения, в том числе посреди потока), text нужно показать самому
+    public static class StreamResult {
+        private final String text;
+        private final boolean streamed;
+        StreamResult(String text, boolean streamed) { this.text = text; this.streamed = streamed; }
+        public String getText() { return text; }
+        public boolean isStreamed() { return streamed; }
+    }
+
+    public static CompletableFuture<StreamResult> streamAI(String userMessage, Consumer<String> onChunk) {
+        return streamAI(null, userMessage, onChunk);
+    }
+
+    public static CompletableFuture<StreamResult> streamAI(ChatSession session, String userMessage, Consumer<String> onChunk) {
+        boolean cacheable = session == null || session.isEmpty();
+        String cached = cacheable ? CACHE.get(userMessage) : null;
+        if (cached != null) {
+            // Из кэша отдаем весь ответ одним куском
+            if (session != null) session.addExchange(userMessage, cached);
+            onChunk.accept(cached);
+            return CompletableFuture.completedFuture(new StreamResult(cached, true));
+        }
+        long startedAt = System.nanoTime();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(STREAM_API_URL))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(session, userMessage), StandardCharsets.UTF_8))
+                .build();
+
+        // Поток строк читается один раз, поэтому потоковые запросы не дедуплицируются
+        return DISPATCHER.dispatch(null, () -> HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofLines()))
+                .thenApplyAsync(response -> {
+                    StreamResult result = readEventStream(response, onChunk);
+                    if (result.isStreamed() && !result.getText().isEmpty()) remember(session, cacheable, userMessage, result.getText(), startedAt);
+                    return result;
+                }, AI_EXECUTOR)
+                .exceptionally(ex -> new StreamResult(connectionError(ex), false));
+    }
+
+    private static void remember(ChatSession session, boolean cacheable, String userMessage, String answer, long startedAt) {
+        if (cacheable) CACHE.put(userMessage, answer, System.nanoTime() - startedAt);
+        if (session != null) session.addExchange(userMessage, answer);
+    }
+
+    private static String connectionError(Throwable ex) {
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        // Отказ диспетчера - не ошибка соединения, показываем его текст как есть
+        if (cause instanceof AIDispatcher.RejectedException) return cause.getMessage();
+        cause.printStackTrace();
+        return "Ошибка соединения: " + cause.getMessage();
+    }
+
+    // Разбор SSE: строки "data: {...}" копятся до пустой строки (конец события), затем событие парсится.
+    // Буфер одного события ограничен MAX_EVENT_CHARS
+    private static StreamResult readEventStream(HttpResponse<Stream<String>> response, Consumer<String> onChunk) {
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() != 200) {
+                String body = String.join("\n", (Iterable<String>) lines::iterator);
+                System.err.println("Ошибка API (" + response.statusCode() + "): " + body);
+                return new StreamResult("Ошибка сервера: " + response.statusCode(), false);
+            }
+
+            StringBuilder fullText = new StringBuilder();
+            StringBuilder event = new StringBuilder();
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isEmpty()) {
+                    dispatchEvent(event, fullText, onChunk);
+                    continue;
+                }
+                if (!line.startsWith("data:")) continue; // комментарии и служебные поля SSE пропускаем
+                String data = line.substring(5).trim();
+                if (event.length() + data.length() > MAX_EVENT_CHARS) {
+                    throw new IllegalStateException("Слишком большое SSE-событие (> " + MAX_EVENT_CHARS + " символов)");
                 }
+                event.append(data);
+            }
+            // Последнее событие может прийти без завершающей пустой строки
+            dispatchEvent(event, fullText, onChunk);
+            return new StreamResult(fullText.toString(), true);
+        }
+    }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                return "Ошибка соединения: " + e.getMessage();
+    private static void dispatchEvent(StringBuilder event, StringBuilder fullText, Consumer<String> onChunk) {
+        if (event.length() == 0) return;
+        String chunk = extractText(new JSONObject(event.toString()));
+        event.setLength(0);
+        if (!chunk.isEmpty()) {
+            fullText.append(chunk);
+            onChunk.accept(chunk);
+        }
+    }
+
+    // Текст из кусочка ответа (у служебных событий, например с finishReason, частей может не быть)
+    private static String extractText(JSONObject json) {
+        JSONArray candidates = json.optJSONArray("candidates");
+        if (candidates == null || candidates.isEmpty()) return "";
+        JSONObject content = candidates.getJSONObject(0).optJSONObject("content");
+        if (content == null) return "";
+        JSONArray parts = content.optJSONArray("parts");
+        if (parts == null) return "";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parts.length(); i++) {
+            text.append(parts.getJSONObject(i).optString("text", ""));
+        }
+        return text.toString();
+    }
+
+    // 1. Создаем JSON-структуру для запроса
+    // Системный промпт уходит отдельным полем systemInstruction (а не приклеивается к каждому сообщению),
+    // затем история сессии (в пределах бюджета токенов) и новое сообщение
+    static String buildRequestBody(ChatSession session, String userMessage) {
+        JSONObject systemInstruction = new JSONObject();
+        systemInstruction.put("parts", new JSONArray().put(new JSONObject().put("text", SYSTEM_PROMPT)));
+
+        JSONArray contents = new JSONArray();
+        if (session != null) {
+            for (ChatSession.Turn turn : session.historyFor(userMessage)) {
+                contents.put(buildContent(turn.getRole(), turn.getText()));
             }
-        });
+        }
+        contents.put(buildContent("user", userMessage));
+
+        JSONObject jsonBody = new JSONObject();
+        jsonBody.put("systemInstruction", systemInstruction);
+        jsonBody.put("contents", contents);
+        return jsonBody.toString();
+    }
+
+    private static JSONObject buildContent(String role, String text) {
+        JSONObject content = new JSONObject();
+        content.put("role", role);
+        content.put("parts", new JSONArray().put(new JSONObject().put("text", text)));
+        return content;
+    }
+
+    // 2. Обрабатываем ответ
+    static String parseResponse(HttpResponse<String> response) {
+        if (response.statusCode() == 200) {
+            JSONObject responseJson = new JSONObject(response.body());
+
+            return responseJson.getJSONArray("candidates")
+                    .getJSONObject(0)
+                    .getJSONObject("content")
+                    .getJSONArray("parts")
+                    .getJSONObject(0)
+                    .getString("text");
+        } else {
+            System.err.println("Ошибка API (" + response.statusCode() + "): " + response.body());
+            return "Ошибка сервера: " + response.statusCode();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.example.superplanningapp;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Фоновая подготовка при запуске: пока рисуется экран входа и пользователь вводит пароль,
+// параллельно читается .env, создается пул соединений (первое соединение с AWS - самое долгое),
+// открывается локальная реплика H2 и инициализируется AIService.
+//
+//  .env ──┬── пул Hikari   ──┐
+//         └── AIService    ──┼── ready()
+//  реплика H2 ───────────────┘
+//
+// Вход ждет только databaseReady(). Ошибки здесь не выбрасываются наружу: если что-то не поднялось,
+// DAO сообщат об этом как раньше (при первом обращении).
+// Время этапов пишется в консоль только с -Dstartup.timing=true (замеры AppCDS), обычный запуск молчит.
+public class AppStartup {
+
+    public static final boolean TIMING = Boolean.getBoolean("startup.timing");
+
+    // Момент запуска JVM (для замера "время до экрана входа")
+    private static final long JVM_START_MS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static final ExecutorService warmup = Executors.newFixedThreadPool(3, r -> {
+        Thread t = new Thread(r, "startup-" + threadCounter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Пока start() не вызван (бенчмарки, отдельные утилиты) - "готово": пул создастся лениво при первом запросе
+    private static volatile CompletableFuture<Void> database = CompletableFuture.completedFuture(null);
+    private static volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+    private static boolean started;
+
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        CompletableFuture<Dotenv> env = CompletableFuture.supplyAsync(() -> timed(".env", EnvConfig::get), warmup);
+
+        database = env.handle((d, e) -> null)
+                .thenRunAsync(() -> timed("пул соединений", () -> { DatabaseConnection.init(); return null; }), warmup)
+                .handle((v, e) -> null);
+
+        // Без ключа AIService не инициализируется - тогда пусть, как и раньше, сообщит об этом при первом вызове ИИ
+        CompletableFuture<Void> ai = env.thenAcceptAsync(d -> {
+            if (d.get("GOOGLE_API_KEY") != null) timed("AIService", AIService::getCache);
+        }, warmup).handle((v, e) -> null);
+
+        CompletableFuture<Void> replica = CompletableFuture
+                .runAsync(() -> timed("локальная реплика", LocalReplica::isEnabled), warmup)
+                .handle((v, e) -> null);
+
+        ready = CompletableFuture.allOf(database, ai, replica)
+                .whenComplete((v, e) -> {
+                    if (TIMING) System.out.println("Старт: фоновая подготовка завершена через " + millisSinceJvmStart() + " мс после запуска JVM");
+                });
+    }
+
+    // Пул соединений создан (или создать не удалось - тогда getConnection() выдаст понятную ошибку)
+    public static CompletableFuture<Void> databaseReady() {
+        return database;
+    }
+
+    // Вся фоновая подготовка завершена
+    public static CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    public static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - JVM_START_MS;
+    }
+
+    private static <T> T timed(String stage, Supplier<T> task) {
+        if (!TIMING) return task.get();
+        long t0 = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            System.out.println("Старт: " + stage + " - " + (System.nanoTime() - t0) / 1_000_000 + " мс");
+        }
+    }
+}
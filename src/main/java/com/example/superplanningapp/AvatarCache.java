@@ -0,0 +1,243 @@
+package com.example.superplanningapp;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.stage.Screen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Аватарки: декодирование в фоне, сразу в нужном размере, с кэшем в памяти и на диске.
+// Раньше каждая аватарка делала new Image(path) на UI-потоке в полном разрешении (фото 4000x3000 ради кружка 24px),
+// и один и тот же аватар декодировался заново на каждой карточке доски.
+//
+// - Память: последние MAX_IMAGES картинок (LRU) по ключу "путь + размер в пикселях".
+// - Диск: ~/.superplanning/avatars - уже уменьшенные квадратные миниатюры (ARGB + Deflate),
+//   повторный запуск не трогает оригинал. Имя файла учитывает дату изменения оригинала.
+//   Миниатюры, которые не открывались THUMB_TTL_DAYS дней (старые версии, другой масштаб экрана), удаляются при запуске.
+// - Пока картинки нет, сцена показывает заглушку (букву); onReady вызывается на UI-потоке.
+//   Если картинка уже в памяти - сразу, без мигания заглушки.
+public class AvatarCache {
+
+    private static final int MAX_IMAGES = 256;
+    private static final long THUMB_TTL_DAYS = 30;
+    private static final File THUMB_DIR = new File(System.getProperty("user.home") + File.separator + ".superplanning" + File.separator + "avatars");
+
+    // Доступ только с UI-потока
+    private static final Map<String, Image> images = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+    // Ключ уже декодируется: кто еще ждет ту же картинку (одна загрузка на все карточки с этим владельцем)
+    private static final Map<String, List<Consumer<Image>>> pending = new HashMap<>();
+    // Битые/недоступные файлы не пытаемся открыть на каждой перерисовке
+    private static final Set<String> failed = new HashSet<>();
+
+    private static final ThreadPoolExecutor decoder;
+
+    static {
+        AtomicInteger counter = new AtomicInteger();
+        decoder = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "avatar-decoder-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        decoder.allowCoreThreadTimeOut(true);
+        decoder.execute(AvatarCache::pruneThumbs);
+    }
+
+    // Вызывать с UI-потока. size - размер кружка в точках сцены (учитываем масштаб экрана, чтобы на HiDPI не было мыла)
+    public static void load(String path, double size, Consumer<Image> onReady) {
+        if (path == null || path.isEmpty()) return;
+        int px = (int) Math.ceil(size * Screen.getPrimary().getOutputScaleX());
+        String key = px + "|" + path;
+
+        Image cached = images.get(key);
+        if (cached != null) {
+            onReady.accept(cached);
+            return;
+        }
+        if (failed.contains(key)) return;
+
+        List<Consumer<Image>> waiters = pending.get(key);
+        if (waiters != null) {
+            waiters.add(onReady);
+            return;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(onReady);
+        pending.put(key, waiters);
+
+        decoder.execute(() -> {
+            Image image;
+            try {
+                image = decode(path, px);
+            } catch (Throwable t) {
+                // В том числе OutOfMemoryError: ключ все равно должен уйти из pending, иначе ждущие карточки зависнут
+                System.err.println("Не удалось загрузить аватар " + path + ": " + t);
+                image = null;
+            }
+            Image result = image;
+            Platform.runLater(() -> {
+                List<Consumer<Image>> ready = pending.remove(key);
+                if (result == null) {
+                    failed.add(key);
+                    return;
+                }
+                images.put(key, result);
+                for (Consumer<Image> callback : ready) callback.accept(result);
+            });
+        });
+    }
+
+    // Сброс с UI-потока (например, пользователь заново выбрал тот же файл, изменив его)
+    public static void invalidate(String path) {
+        if (path == null) return;
+        images.keySet().removeIf(k -> k.endsWith("|" + path));
+        failed.removeIf(k -> k.endsWith("|" + path));
+    }
+
+    // ==========================================
+    // ДЕКОДИРОВАНИЕ (фоновый поток)
+    // ==========================================
+
+    private static Image decode(String path, int px) {
+        File thumb = new File(THUMB_DIR, thumbName(path, px));
+        Image fromDisk = readThumb(thumb, px);
+        if (fromDisk != null) return fromDisk;
+
+        try {
+            // Сразу в уменьшенном размере: JavaFX масштабирует при декодировании, полный кадр в памяти не держим.
+            // Кружок заполняется целиком, поэтому по узкой стороне не меньше px (альбомное фото - второй проход по высоте)
+            Image image = new Image(path, px, 0, true, true, false);
+            if (!image.isError() && image.getHeight() < px) image = new Image(path, 0, px, true, true, false);
+            if (image.isError()) {
+                System.err.println("Не удалось загрузить аватар " + path + ": " + image.getException());
+                return null;
+            }
+            WritableImage square = cropSquare(image, px);
+            writeThumb(thumb, square);
+            return square;
+        } catch (Exception e) {
+            System.err.println("Не удалось загрузить аватар " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Центральный квадрат px x px - то, что и так видно в кружке
+    private static WritableImage cropSquare(Image image, int px) {
+        int w = (int) image.getWidth(), h = (int) image.getHeight();
+        int side = Math.min(px, Math.min(w, h));
+        int[] argb = new int[side * side];
+        image.getPixelReader().getPixels((w - side) / 2, (h - side) / 2, side, side, PixelFormat.getIntArgbInstance(), argb, 0, side);
+        WritableImage square = new WritableImage(side, side);
+        square.getPixelWriter().setPixels(0, 0, side, side, PixelFormat.getIntArgbInstance(), argb, 0, side);
+        return square;
+    }
+
+    // ==========================================
+    // МИНИАТЮРЫ НА ДИСКЕ
+    // ==========================================
+
+    // Дата изменения оригинала в имени: новый файл по тому же пути - новая миниатюра
+    private static String thumbName(String path, int px) {
+        long modified = 0;
+        try {
+            if (path.startsWith("file:")) modified = new File(URI.create(path)).lastModified();
+        } catch (IllegalArgumentException ignored) {}
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest((path + "|" + modified).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 12; i++) sb.append(String.format("%02x", hash[i]));
+            return sb + "_" + px + ".thumb";
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(path.hashCode()) + "_" + modified + "_" + px + ".thumb";
+        }
+    }
+
+    // Размер из файла не доверяем: миниатюра не больше px x px (так ее пишет cropSquare),
+    // а сжатый файл не может быть больше несжатых данных с запасом на заголовки Deflate
+    private static Image readThumb(File file, int px) {
+        if (!file.isFile()) return null;
+        long maxBytes = 8 + 4L * px * px;
+        if (file.length() > maxBytes + maxBytes / 100 + 1024) {
+            file.delete();
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(file))))) {
+            int w = in.readInt(), h = in.readInt();
+            if (w <= 0 || h <= 0 || w > px || h > px) throw new IOException("неверный размер миниатюры " + w + "x" + h);
+            int[] argb = new int[w * h];
+            for (int i = 0; i < argb.length; i++) argb[i] = in.readInt();
+            WritableImage image = new WritableImage(w, h);
+            image.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+            file.setLastModified(System.currentTimeMillis()); // используется - pruneThumbs ее не тронет
+            return image;
+        } catch (IOException | RuntimeException e) {
+            // Поврежденная миниатюра - просто декодируем оригинал заново
+            file.delete();
+            return null;
+        }
+    }
+
+    // Ошибка записи не мешает показать картинку: просто в следующий раз декодируем оригинал
+    private static void writeThumb(File file, Image image) {
+        int w = (int) image.getWidth(), h = (int) image.getHeight();
+        PixelReader reader = image.getPixelReader();
+        int[] argb = new int[w * h];
+        reader.getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+        THUMB_DIR.mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(w);
+            out.writeInt(h);
+            for (int pixel : argb) out.writeInt(pixel);
+        } catch (IOException e) {
+            System.err.println("Не удалось сохранить миниатюру аватара: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) tmp.delete();
+    }
+
+    // Фоновый поток, один раз за запуск. Заодно убираем .tmp, оставшиеся от прерванной записи
+    private static void pruneThumbs() {
+        File[] files = THUMB_DIR.listFiles((dir, name) -> name.endsWith(".thumb") || name.endsWith(".thumb.tmp"));
+        if (files == null) return;
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(THUMB_TTL_DAYS);
+        long tmpCutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        for (File f : files) {
+            long limit = f.getName().endsWith(".tmp") ? tmpCutoff : cutoff;
+            if (f.lastModified() < limit) f.delete();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.superplanningapp;
+
+// Кэширующий декоратор: профили по id берутся из общего UserCache (тот же кэш наполняют доски с владельцами/участниками).
+// - Свежая запись - без обращения к базе.
+// - Устаревшая (истек TTL) - сверка по версии: база отдает строку, только если профиль действительно изменился.
+// - Свой вход и изменение профиля сразу обновляют кэш; остальное идет в delegate без изменений.
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+
+    public CachingUserRepository(UserRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean registerUser(String username, String email, String phone, String password) {
+        return delegate.registerUser(username, email, phone, password);
+    }
+
+    @Override
+    public User loginUser(String loginInput, String password) {
+        User user = delegate.loginUser(loginInput, password);
+        if (user != null) UserCache.put(user);
+        return user;
+    }
+
+    @Override
+    public boolean updateUserProfile(User user) {
+        boolean updated = delegate.updateUserProfile(user);
+        if (updated) UserCache.put(user); else UserCache.invalidate(user.getId());
+        return updated;
+    }
+
+    @Override
+    public User getUserById(int id) {
+        User fresh = UserCache.getFresh(id);
+        if (fresh != null) return fresh;
+
+        User stale = UserCache.getStale(id);
+        if (stale != null) {
+            // null - версия та же (или база недоступна: тогда тоже лучше показать известный профиль)
+            User changed = delegate.getUserIfChanged(id, stale.getVersion());
+            if (changed == null) {
+                UserCache.touch(id);
+                return stale;
+            }
+            UserCache.put(changed);
+            return changed;
+        }
+
+        User loaded = delegate.getUserById(id);
+        UserCache.put(loaded);
+        return loaded;
+    }
+
+    @Override
+    public User getUserIfChanged(int id, int knownVersion) {
+        User changed = delegate.getUserIfChanged(id, knownVersion);
+        UserCache.put(changed);
+        return changed;
+    }
+
+    @Override
+    public int findUserIdByUsername(String username) {
+        return delegate.findUserIdByUsername(username);
+    }
+
+    @Override
+    public int findUserIdByEmail(String email) {
+        return delegate.findUserIdByEmail(email);
+    }
+
+    @Override
+    public int findUserIdByPhone(String phone) {
+        return delegate.findUserIdByPhone(phone);
+    }
+}
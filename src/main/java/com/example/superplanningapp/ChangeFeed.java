@@ -0,0 +1,168 @@
+package com.example.superplanningapp;
+
+import org.json.JSONObject;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Лента изменений из базы (PostgreSQL LISTEN/NOTIFY).
+// Триггеры на cards, lists, invitations и notifications (см. README, notify_app_change)
+// шлют в канал app_changes короткое JSON-событие: таблица, операция, id и кого это касается.
+// Лента слушает канал на ОДНОМ отдельном соединении (не из пула Hikari) в фоновом потоке
+// и раздает события подписчикам: бейдж уведомлений и открытая доска обновляются без опроса и перезагрузки.
+//
+// Слушатели вызываются в потоке ленты - в UI переходим через Platform.runLater.
+// После переподключения приходит событие RESYNC: пропущенные за это время изменения потеряны,
+// подписчик должен перечитать свои данные целиком.
+//
+// Проверка на локальной базе: в .env указать локальный Postgres, выполнить SQL из README,
+// открыть доску и в psql поменять карточку (UPDATE cards SET title = 'x' WHERE id = 1).
+public class ChangeFeed {
+
+    public static final String CHANNEL = "app_changes";
+
+    // Сколько ждем уведомлений за один опрос и паузы между попытками переподключения
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_MIN_MS = 1_000;
+    private static final long RECONNECT_MAX_MS = 30_000;
+
+    // Одно событие из триггера. Отсутствующие в JSON поля = 0
+    public static class Event {
+        public static final Event RESYNC = new Event("*", "RESYNC", 0, 0, 0, 0, 0, 0, null);
+
+        private final String table;
+        private final String op;
+        private final int id;
+        private final int boardId;
+        private final int listId;
+        private final int oldListId;
+        private final int userId;
+        private final int badgeDelta;
+        private final String source;
+
+        Event(String table, String op, int id, int boardId, int listId, int oldListId, int userId, int badgeDelta, String source) {
+            this.table = table;
+            this.op = op;
+            this.id = id;
+            this.boardId = boardId;
+            this.listId = listId;
+            this.oldListId = oldListId;
+            this.userId = userId;
+            this.badgeDelta = badgeDelta;
+            this.source = source;
+        }
+
+        static Event parse(String payload) {
+            JSONObject json = new JSONObject(payload);
+            return new Event(json.optString("table"), json.optString("op"), json.optInt("id"),
+                    json.optInt("board_id"), json.optInt("list_id"), json.optInt("old_list_id"),
+                    json.optInt("user_id"), json.optInt("badge_delta"), json.optString("source", null));
+        }
+
+        public String getTable() { return table; }
+        public String getOp() { return op; }
+        public int getId() { return id; }
+        public int getBoardId() { return boardId; }
+        public int getListId() { return listId; }
+        public int getOldListId() { return oldListId; }
+        public int getUserId() { return userId; }
+        // Насколько изменилось число непрочитанного у userId (+1 новое, -1 прочитано/отвечено)
+        public int getBadgeDelta() { return badgeDelta; }
+
+        public boolean isResync() { return this == RESYNC; }
+
+        // Изменение сделал этот же экземпляр приложения: модель уже обновлена локально
+        public boolean isOwn() { return DatabaseConnection.APPLICATION_NAME.equals(source); }
+
+        @Override
+        public String toString() {
+            return table + " " + op + " #" + id;
+        }
+    }
+
+    private static final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean running;
+    private static Thread worker;
+
+    // Подписка; поток ленты запускается при первой подписке. Возвращает отписку
+    public static Runnable subscribe(Consumer<Event> listener) {
+        listeners.add(listener);
+        start();
+        return () -> listeners.remove(listener);
+    }
+
+    private static synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(ChangeFeed::listenLoop, "change-feed");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Вызывается из DatabaseConnection.closePool()
+    public static synchronized void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    // ==========================================
+    // ПОТОК ЛЕНТЫ
+    // ==========================================
+
+    private static void listenLoop() {
+        long backoff = RECONNECT_MIN_MS;
+        boolean reconnect = false;
+        while (running) {
+            try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                backoff = RECONNECT_MIN_MS;
+                if (reconnect) dispatch(Event.RESYNC);
+                reconnect = true;
+
+                while (running) {
+                    // Блокируется до прихода уведомлений или таймаута; при обрыве соединения бросает SQLException
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        try {
+                            dispatch(Event.parse(n.getParameter()));
+                        } catch (Exception e) {
+                            System.err.println("ChangeFeed: не удалось разобрать событие: " + n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) break;
+                System.err.println("ChangeFeed: соединение потеряно (" + e.getMessage() + "), повтор через " + backoff + " мс");
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, RECONNECT_MAX_MS);
+            }
+        }
+    }
+
+    private static void dispatch(Event event) {
+        for (Consumer<Event> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.superplanningapp;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -30,6 +31,9 @@ public class ChatScene {
         BorderPane.setMargin(headerLabel, new Insets(20, 0, 0, 0));
         mainLayout.setTop(headerLabel);
 
+        // История этого чата: AI помнит предыдущие вопросы, пока открыт экран
+        ChatSession session = new ChatSession();
+
         TextArea chatArea = new TextArea();
         chatArea.setEditable(false);
         chatArea.setWrapText(true);
@@ -83,11 +87,47 @@ public class ChatScene {
             inputField.clear();
             inputField.setDisable(true);
             sendButton.setDisable(true);
-            chatArea.appendText("⏳ AI думает...\n");
-
-            AIService.askAI(question).thenAccept(answer -> {
+            chatArea.appendText("🤖 Gemini: ");
+
+            // Куски ответа приходят часто (фоновый поток). Копим их и выводим не чаще одного раза за кадр:
+            // AnimationTimer вызывается JavaFX на каждом кадре (pulse) и забирает всё накопленное
+            StringBuilder pendingText = new StringBuilder();
+            Runnable flushToUi = () -> {
+                String text;
+                synchronized (pendingText) {
+                    text = pendingText.toString();
+                    pendingText.setLength(0);
+                }
+                if (!text.isEmpty()) {
+                    chatArea.appendText(text);
+                    chatArea.setScrollTop(Double.MAX_VALUE);
+                }
+            };
+            AnimationTimer frameFlusher = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flushToUi.run();
+                }
+            };
+            frameFlusher.start();
+
+            AIService.streamAI(session, question, chunk -> {
+                synchronized (pendingText) {
+                    pendingText.append(chunk);
+                }
+            }).whenComplete((result, ex) -> {
+                // whenComplete, а не thenAccept: даже при неожиданной ошибке таймер остановится, а ввод разблокируется
                 Platform.runLater(() -> {
-                    chatArea.appendText("🤖 Gemini: " + answer + "\n\n");
+                    frameFlusher.stop();
+                    flushToUi.run();
+                    // Ответ не пришел потоком (ошибка сервера или соединения) - показываем текст ошибки
+                    if (ex != null) {
+                        ex.printStackTrace();
+                        chatArea.appendText("Ошибка: " + ex.getMessage());
+                    } else if (!result.isStreamed()) {
+                        chatArea.appendText(result.getText());
+                    }
+                    chatArea.appendText("\n\n");
                     chatArea.setScrollTop(Double.MAX_VALUE);
                     inputField.setDisable(false);
                     sendButton.setDisable(false);
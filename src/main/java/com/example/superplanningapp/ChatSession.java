@@ -0,0 +1,87 @@
+package com.example.superplanningapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// История одного чата (одна ChatScene = одна сессия).
+// Хранит последние реплики пользователя и модели, чтобы AI помнил контекст разговора.
+// Размер истории ограничен бюджетом токенов: старые реплики выкидываются,
+// поэтому запрос не растет бесконечно, сколько бы ни длился чат.
+public class ChatSession {
+
+    // Одна реплика: role = "user" или "model" (как в Gemini API)
+    public static class Turn {
+        private final String role;
+        private final String text;
+        private final int tokens;
+        Turn(String role, String text) { this.role = role; this.text = text; this.tokens = estimateTokens(text); }
+        public String getRole() { return role; }
+        public String getText() { return text; }
+    }
+
+    private final int tokenBudget;
+    private final Deque<Turn> history = new ArrayDeque<>();
+    private int historyTokens = 0;
+
+    public ChatSession() {
+        this(Integer.getInteger("ai.history.tokens", 2000));
+    }
+
+    public ChatSession(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    // Грубая локальная оценка без токенизатора: ~4 символа на токен
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    // Сохраняем пару "вопрос-ответ" (вызывается только для успешных ответов)
+    public synchronized void addExchange(String userMessage, String answer) {
+        Turn question = new Turn("user", userMessage);
+        Turn reply = new Turn("model", answer);
+        history.addLast(question);
+        history.addLast(reply);
+        historyTokens += question.tokens + reply.tokens;
+        trimTo(tokenBudget);
+    }
+
+    // Реплики, которые влезут в запрос вместе с новым сообщением
+    public synchronized List<Turn> historyFor(String newMessage) {
+        int available = tokenBudget - estimateTokens(newMessage);
+        List<Turn> result = new ArrayList<>();
+        int used = 0;
+        // Идем с конца: самые свежие реплики важнее
+        var it = history.descendingIterator();
+        while (it.hasNext()) {
+            Turn t = it.next();
+            if (used + t.tokens > available) break;
+            used += t.tokens;
+            result.add(0, t);
+        }
+        // Gemini ожидает, что разговор начинается с реплики пользователя
+        while (!result.isEmpty() && !result.get(0).role.equals("user")) result.remove(0);
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return history.isEmpty();
+    }
+
+    public synchronized void clear() {
+        history.clear();
+        historyTokens = 0;
+    }
+
+    // Выкидываем самые старые пары, пока история не влезет в бюджет
+    private void trimTo(int budget) {
+        while (historyTokens > budget && !history.isEmpty()) {
+            historyTokens -= history.removeFirst().tokens;
+        }
+        while (!history.isEmpty() && !history.peekFirst().role.equals("user")) {
+            historyTokens -= history.removeFirst().tokens;
+        }
+    }
+}
@@ -5,17 +5,47 @@ import com.zaxxer.hikari.HikariDataSource;
 import io.github.cdimascio.dotenv.Dotenv;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.UUID;
 
 public class DatabaseConnection {
 
+    // Максимальное число соединений в пуле (выбрал 10). От него же считается DbExecutor
+    public static final int MAX_POOL_SIZE = 10;
+
+    // Имя клиента в pg_stat_activity и в событиях ChangeFeed (поле source):
+    // по нему приложение отличает свои изменения от чужих
+    public static final String APPLICATION_NAME = "superplanning-" + UUID.randomUUID().toString().substring(0, 8);
+
     // Единственный экземпляр пула соединений
-    private static HikariDataSource dataSource;
+    private static volatile HikariDataSource dataSource;
+    private static volatile boolean initialized;
+
+    // Параметры подключения (нужны и для отдельного соединения вне пула)
+    private static String jdbcUrl;
+    private static String dbUser;
+    private static String dbPassword;
+
+    // Создание пула (один раз). Раньше это был static-блок, и первое обращение к классу
+    // (обычно кнопка "Войти" на UI-потоке) ждало чтения .env и первого соединения с AWS.
+    // Теперь пул заранее создает AppStartup в фоне; getConnection() просто дождется, если он еще не готов
+    public static void init() {
+        if (initialized) return;
+        synchronized (DatabaseConnection.class) {
+            if (initialized) return;
+            try {
+                createPool();
+            } finally {
+                initialized = true;
+            }
+        }
+    }
 
-    // Статический блок инициализации (запускается один раз при старте)
-    static {
+    private static void createPool() {
         try {
-            Dotenv dotenv = Dotenv.load();
+            Dotenv dotenv = EnvConfig.get();
 
             // Настройка конфигурации HikariCP
             HikariConfig config = new HikariConfig();
@@ -26,15 +56,20 @@ public class DatabaseConnection {
                     dotenv.get("DB_PORT") + "/" +
                     dotenv.get("DB_NAME");
 
+            jdbcUrl = url;
+            dbUser = dotenv.get("DB_USER");
+            dbPassword = dotenv.get("DB_PASSWORD");
+
             config.setJdbcUrl(url);
-            config.setUsername(dotenv.get("DB_USER"));
-            config.setPassword(dotenv.get("DB_PASSWORD"));
+            config.setUsername(dbUser);
+            config.setPassword(dbPassword);
             config.setDriverClassName("org.postgresql.Driver");
+            config.addDataSourceProperty("ApplicationName", APPLICATION_NAME);
 
             // ОПТИМИЗАЦИЯ ПОД AWS (ОБЛАКО)(Arlan делал(я))
 
-            // Максимальное число соединений в пуле (выбрал 10)
-            config.setMaximumPoolSize(10);
+            // Максимальное число соединений в пуле
+            config.setMaximumPoolSize(MAX_POOL_SIZE);
 
             // Минимальное кол-во "горячих" соединений, готовых к работе
             config.setMinimumIdle(2);
@@ -61,16 +96,36 @@ public class DatabaseConnection {
     // Метод теперь берет готовое соединение из пула, а не создает новое
     // Это происходит за миллисекунды, а не за секунды
     public static Connection getConnection() throws SQLException {
+        init();
         if (dataSource == null) {
             throw new SQLException("DataSource не инициализирован (проверьте .env и логи)");
         }
         return dataSource.getConnection();
     }
 
-    // Метод для закрытия пула при выходе из приложения (опционально)
+    // Отдельное долгоживущее соединение ВНЕ пула (для LISTEN в ChangeFeed):
+    // соединения пула переиспользуются и пересоздаются, подписка на них бы терялась
+    public static Connection openDedicatedConnection() throws SQLException {
+        init();
+        if (jdbcUrl == null) {
+            throw new SQLException("Параметры подключения не загружены (проверьте .env и логи)");
+        }
+        Properties props = new Properties();
+        props.setProperty("user", dbUser);
+        props.setProperty("password", dbPassword);
+        props.setProperty("ApplicationName", APPLICATION_NAME + "-feed");
+        return DriverManager.getConnection(jdbcUrl, props);
+    }
+
+    // Метод для закрытия пула при выходе из приложения (если пул так и не создавался - не создаем)
     public static void closePool() {
+        SyncEngine.shutdown();
+        ChangeFeed.shutdown();
         if (dataSource != null && !dataSource.isClosed()) {
+            // Сначала дописываем отложенные изменения, пока пул еще жив
+            WriteBehindQueue.shutdown();
             dataSource.close();
         }
+        LocalReplica.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.example.superplanningapp;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Единый исполнитель для ВСЕХ обращений к базе (TrelloDAO, HabitDAO, UserDAO).
+// Раньше сцены вызывали CompletableFuture.supplyAsync без executor-а, и блокирующий JDBC
+// занимал общий ForkJoinPool вместе с HTTP-запросами к AI.
+//
+// Параллелизм ограничен размером пула Hikari: больше потоков, чем соединений, всё равно будут просто ждать.
+// Режим виртуальных потоков (JDK 21+): запустить с -Ddb.executor.virtual=true.
+// Тогда на каждую задачу свой виртуальный поток, а ограничение держит семафор.
+public class DbExecutor {
+
+    private static final int MAX_CONCURRENCY = DatabaseConnection.MAX_POOL_SIZE;
+
+    private static final ExecutorService executor;
+    private static final Semaphore permits = new Semaphore(MAX_CONCURRENCY);
+    private static final boolean virtualThreads;
+
+    // === СЧЕТЧИКИ ===
+    private static final AtomicInteger queued = new AtomicInteger();     // ждут свободного слота
+    private static final AtomicInteger active = new AtomicInteger();     // выполняются сейчас
+    private static final AtomicLong completed = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+
+    static {
+        ExecutorService virtual = Boolean.getBoolean("db.executor.virtual") ? tryCreateVirtualExecutor() : null;
+        virtualThreads = virtual != null;
+
+        if (virtual != null) {
+            executor = virtual;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CONCURRENCY, MAX_CONCURRENCY,
+                    30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "db-worker-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            // Простаивающие потоки не держим вечно
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+    }
+
+    // Проект собирается под Java 17, поэтому виртуальные потоки достаем через reflection
+    private static ExecutorService tryCreateVirtualExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Виртуальные потоки недоступны (нужен JDK 21+), используется обычный пул");
+            return null;
+        }
+    }
+
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, DbExecutor::submit);
+    }
+
+    public static CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, DbExecutor::submit);
+    }
+
+    public static Executor executor() {
+        return DbExecutor::submit;
+    }
+
+    // Обертка над задачей: считаем время ожидания в очереди и держим ограничение параллелизма
+    private static void submit(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        queued.incrementAndGet();
+        executor.execute(() -> {
+            boolean acquired = false;
+            try {
+                if (virtualThreads) {
+                    permits.acquire();
+                    acquired = true;
+                }
+                long waited = System.nanoTime() - enqueuedAt;
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                totalWaitNanos.addAndGet(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                Thread.currentThread().interrupt();
+            } finally {
+                if (acquired) permits.release();
+            }
+        });
+    }
+
+    // === МЕТРИКИ ===
+    public static int getQueueDepth() { return queued.get(); }
+    public static int getActiveCount() { return active.get(); }
+    public static long getCompletedCount() { return completed.get(); }
+    public static boolean isVirtualThreads() { return virtualThreads; }
+
+    public static double getAverageWaitMillis() {
+        long done = completed.get() + active.get();
+        return done == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / done;
+    }
+
+    public static double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public static String statsSummary() {
+        return String.format("DbExecutor[%s] очередь=%d, активно=%d, выполнено=%d, ожидание ср=%.2f мс, макс=%.2f мс",
+                virtualThreads ? "virtual" : "platform", getQueueDepth(), getActiveCount(), getCompletedCount(),
+                getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.superplanningapp;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+// Содержимое .env, прочитанное один раз на всё приложение.
+// Раньше DatabaseConnection и AIService каждый сами делали Dotenv.load() в static-блоке -
+// то есть читали файл на том потоке, который первым тронул класс (часто UI-поток при входе).
+// Теперь файл читает AppStartup в фоне при запуске, остальные получают готовый результат.
+public class EnvConfig {
+
+    private static volatile Dotenv dotenv;
+
+    // Если .env нет - DotenvException (как и раньше у Dotenv.load()); следующий вызов попробует снова
+    public static Dotenv get() {
+        Dotenv d = dotenv;
+        if (d != null) return d;
+        synchronized (EnvConfig.class) {
+            if (dotenv == null) dotenv = Dotenv.load();
+            return dotenv;
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.example.superplanningapp;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
+import java.util.concurrent.TimeUnit;
+
 public class HelloApplication extends Application {
+    // Вызывается до start() на отдельном потоке JavaFX-лаунчера: запускаем фоновую подготовку как можно раньше
+    @Override
+    public void init() {
+        AppStartup.start();
+    }
+
     @Override
     public void start(Stage stage) {
         stage.setTitle("SuperPlanningApp");
@@ -16,12 +25,29 @@ public class HelloApplication extends Application {
         stage.setMinWidth(1000);
         stage.setMinHeight(700);
 
-        stage.setScene(LoginScene.createLoginScene(stage));
+        // Репозитории собираются один раз и передаются сценам (см. Repositories)
+        Repositories repositories = Repositories.fromSystemProperties();
+        stage.setScene(LoginScene.createLoginScene(stage, repositories));
 
         // Максимизируем ПОСЛЕ установки сцены и ПЕРЕД show()
         stage.setMaximized(true);
 
         stage.show();
+
+        // Замер: первый кадр экрана входа (runLater выполнится после первого layout/рендера)
+        if (AppStartup.TIMING) Platform.runLater(() -> System.out.println("Старт: экран входа через " + AppStartup.millisSinceJvmStart() + " мс после запуска JVM"));
+
+        // Тренировочный прогон для архива AppCDS (профиль appcds): дождаться фоновой подготовки и выйти
+        if (Boolean.getBoolean("startup.exitAfterShow")) {
+            AppStartup.ready().orTimeout(30, TimeUnit.SECONDS)
+                    .whenComplete((v, e) -> Platform.runLater(Platform::exit));
+        }
+    }
+
+    @Override
+    public void stop() {
+        // При закрытии окна сбрасываем отложенные записи и закрываем пул
+        DatabaseConnection.closePool();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,78 @@
+package com.example.superplanningapp;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Пользователи в памяти (нагрузочные тесты и бенчмарки без базы).
+// Те же правила, что у UserDAO: уникальные username/email/phone, пароль хранится хешем BCrypt
+public class InMemoryUserRepository implements UserRepository {
+
+    private final Map<Integer, User> users = new HashMap<>();
+    private final Map<Integer, String> passwordHashes = new HashMap<>();
+    private int nextId = 1;
+
+    @Override
+    public synchronized boolean registerUser(String username, String email, String phone, String password) {
+        if (findUserIdByUsername(username) != -1 || findUserIdByEmail(email) != -1
+                || (phone != null && findUserIdByPhone(phone) != -1)) return false;
+        User user = new User(nextId++, username, email, phone);
+        user.setVersion(1);
+        users.put(user.getId(), user);
+        passwordHashes.put(user.getId(), BCrypt.hashpw(password, BCrypt.gensalt()));
+        return true;
+    }
+
+    @Override
+    public synchronized User loginUser(String loginInput, String password) {
+        for (User u : users.values()) {
+            if (loginInput.equals(u.getEmail()) || loginInput.equals(u.getPhone()) || loginInput.equals(u.getUsername())) {
+                return BCrypt.checkpw(password, passwordHashes.get(u.getId())) ? u : null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized boolean updateUserProfile(User user) {
+        User stored = users.get(user.getId());
+        if (stored == null) return false;
+        stored.setFirstName(user.getFirstName());
+        stored.setLastName(user.getLastName());
+        stored.setBirthday(user.getBirthday());
+        stored.setAvatarPath(user.getAvatarPath());
+        stored.setVersion(stored.getVersion() + 1);
+        user.setVersion(stored.getVersion());
+        return true;
+    }
+
+    @Override
+    public synchronized User getUserById(int id) {
+        return users.get(id);
+    }
+
+    @Override
+    public synchronized User getUserIfChanged(int id, int knownVersion) {
+        User stored = users.get(id);
+        return stored != null && stored.getVersion() > knownVersion ? stored : null;
+    }
+
+    @Override
+    public synchronized int findUserIdByUsername(String username) {
+        for (User u : users.values()) if (u.getUsername().equals(username)) return u.getId();
+        return -1;
+    }
+
+    @Override
+    public synchronized int findUserIdByEmail(String email) {
+        for (User u : users.values()) if (u.getEmail().equals(email)) return u.getId();
+        return -1;
+    }
+
+    @Override
+    public synchronized int findUserIdByPhone(String phone) {
+        for (User u : users.values()) if (phone.equals(u.getPhone())) return u.getId();
+        return -1;
+    }
+}
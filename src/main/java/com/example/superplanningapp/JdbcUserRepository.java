@@ -0,0 +1,45 @@
+package com.example.superplanningapp;
+
+// Репозиторий поверх UserDAO (PostgreSQL)
+public class JdbcUserRepository implements UserRepository {
+
+    @Override
+    public boolean registerUser(String username, String email, String phone, String password) {
+        return UserDAO.registerUser(username, email, phone, password);
+    }
+
+    @Override
+    public User loginUser(String loginInput, String password) {
+        return UserDAO.loginUser(loginInput, password);
+    }
+
+    @Override
+    public boolean updateUserProfile(User user) {
+        return UserDAO.updateUserProfile(user);
+    }
+
+    @Override
+    public User getUserById(int id) {
+        return UserDAO.getUserById(id);
+    }
+
+    @Override
+    public User getUserIfChanged(int id, int knownVersion) {
+        return UserDAO.getUserIfChanged(id, knownVersion);
+    }
+
+    @Override
+    public int findUserIdByUsername(String username) {
+        return UserDAO.findUserIdByUsername(username);
+    }
+
+    @Override
+    public int findUserIdByEmail(String email) {
+        return UserDAO.findUserIdByEmail(email);
+    }
+
+    @Override
+    public int findUserIdByPhone(String phone) {
+        return UserDAO.findUserIdByPhone(phone);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.superplanningapp;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Локальная реплика данных пользователя во встроенной базе H2 (файл ~/.superplanning/replica).
+// Хранит доски, участников, списки, карточки, привычки и отметки - в тех же таблицах и колонках,
+// что и основная база, поэтому DAO читают отсюда ТЕМИ ЖЕ SQL-запросами, только через другое соединение.
+//
+// - Чтение: readConnection(userId) отдает реплику, как только SyncEngine хотя бы раз синхронизировал
+//   этого пользователя; до этого (и если реплика выключена) - основную базу.
+// - Запись: DAO пишут в основную базу как раньше и зеркалят изменение сюда (mirror),
+//   чтобы следующее чтение сразу видело свое же изменение. Все зеркальные записи выполняет один поток
+//   replica-writer (в порядке вызова): отложенные правки из UI-потока (mirrorAsync) не трогают H2 на нем,
+//   а чтение из реплики сначала дожидается уже поставленных записей.
+// - Чужие изменения приносит SyncEngine (дельты по updated_at). Свои зеркальные записи, сделанные
+//   во время его прохода, повторяются в транзакции прохода (commitPull) - более старая серверная строка их не затирает.
+//
+// Если файл занят другим экземпляром приложения или H2 не стартовала - реплика выключается,
+// и всё работает напрямую с основной базой. Отключить вручную: -Dreplica.enabled=false
+public class LocalReplica {
+
+    private static final String DEFAULT_PATH = System.getProperty("user.home") + File.separator + ".superplanning" + File.separator + "replica";
+
+    private static volatile JdbcConnectionPool pool;
+    private static volatile boolean disabled = !Boolean.parseBoolean(System.getProperty("replica.enabled", "true"));
+    // Пользователи, для которых реплика уже синхронизирована (читать можно локально)
+    private static final Set<Integer> readyUsers = ConcurrentHashMap.newKeySet();
+
+    // Единственный поток записи в реплику (он же при первом обращении открывает файл H2)
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "replica-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Схема повторяет нужные колонки основной базы (без внешних ключей: строки приходят в любом порядке)
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS boards (id INT PRIMARY KEY, title VARCHAR(255), description CLOB, user_id INT, created_at TIMESTAMP, updated_at TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS board_members (board_id INT, user_id INT, PRIMARY KEY (board_id, user_id))",
+            "CREATE TABLE IF NOT EXISTS lists (id INT PRIMARY KEY, title VARCHAR(255), board_id INT, color VARCHAR(50), updated_at TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS cards (id INT PRIMARY KEY, title VARCHAR(255), description CLOB, list_id INT, card_order INT, updated_at TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS habits (id INT PRIMARY KEY, user_id INT, title VARCHAR(255), color VARCHAR(50), updated_at TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS habit_completions (habit_id INT, completion_date DATE, updated_at TIMESTAMP, PRIMARY KEY (habit_id, completion_date))",
+            // Служебное: до какого момента сервера пользователь синхронизирован и какие доски уже скачаны целиком
+            "CREATE TABLE IF NOT EXISTS sync_state (user_id INT PRIMARY KEY, watermark TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS sync_boards (user_id INT, board_id INT, PRIMARY KEY (user_id, board_id))",
+            "CREATE INDEX IF NOT EXISTS idx_boards_user_id ON boards(user_id)",
+            "CREATE INDEX IF NOT EXISTS idx_board_members_user_id ON board_members(user_id)",
+            "CREATE INDEX IF NOT EXISTS idx_lists_board_id ON lists(board_id)",
+            "CREATE INDEX IF NOT EXISTS idx_cards_list_id_order ON cards(list_id, card_order, id)",
+            "CREATE INDEX IF NOT EXISTS idx_habits_user_id ON habits(user_id)"
+    };
+
+    public static boolean isEnabled() {
+        return getPool() != null;
+    }
+
+    // Соединение с репликой (null-пул = реплика выключена)
+    public static Connection getConnection() throws SQLException {
+        JdbcConnectionPool p = getPool();
+        if (p == null) throw new SQLException("Локальная реплика выключена");
+        return p.getConnection();
+    }
+
+    // ==========================================
+    // ЧТЕНИЕ: РЕПЛИКА ИЛИ ОСНОВНАЯ БАЗА
+    // ==========================================
+
+    public static boolean isReady(int userId) {
+        return !disabled && readyUsers.contains(userId);
+    }
+
+    // Данные пользователя: из реплики, если она готова; иначе из основной базы
+    // (перед этим дописываем отложенные записи - read-your-writes)
+    public static Connection readConnection(int userId) throws SQLException {
+        if (isReady(userId)) {
+            awaitMirrors();
+            return getConnection();
+        }
+        flushPendingWrites();
+        return DatabaseConnection.getConnection();
+    }
+
+    // Доска: из реплики, если ее скачал кто-то из синхронизированных пользователей
+    public static Connection readConnectionForBoard(int boardId) throws SQLException {
+        if (!readyUsers.isEmpty() && !disabled) {
+            try (Connection conn = getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT user_id FROM sync_boards WHERE board_id = ?")) {
+                pstmt.setInt(1, boardId);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    if (readyUsers.contains(rs.getInt(1))) {
+                        awaitMirrors();
+                        return getConnection();
+                    }
+                }
+            }
+        }
+        flushPendingWrites();
+        return DatabaseConnection.getConnection();
+    }
+
+    static void markReady(int userId) {
+        readyUsers.add(userId);
+    }
+
+    // ==========================================
+    // ЗАПИСЬ: ЗЕРКАЛО ИЗМЕНЕНИЙ ОСНОВНОЙ БАЗЫ
+    // ==========================================
+
+    // Локальная копия уже выполненного (или поставленного в очередь) изменения - с ожиданием записи.
+    // Ошибка здесь не ломает действие пользователя: следующая синхронизация все равно приведет реплику в порядок
+    public static void mirror(String sql, WriteBehindQueue.Binder binder) {
+        if (disabled) return;
+        rememberDuringPull(sql, binder);
+        await(writer.submit(() -> apply(sql, binder)));
+    }
+
+    // То же без ожидания - для вызовов из UI-потока (отложенные правки WriteBehindQueue)
+    public static void mirrorAsync(String sql, WriteBehindQueue.Binder binder) {
+        if (disabled) return;
+        rememberDuringPull(sql, binder);
+        writer.execute(() -> apply(sql, binder));
+    }
+
+    private static void apply(String sql, WriteBehindQueue.Binder binder) {
+        if (getPool() == null) return;
+        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Реплика: не удалось применить изменение: " + e.getMessage());
+        }
+    }
+
+    // Поток записи выполняет задачи по порядку: пустая задача завершится после всех поставленных раньше
+    private static void awaitMirrors() {
+        await(writer.submit(() -> {}));
+    }
+
+    private static void await(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    // ==========================================
+    // ЗАПИСИ ВО ВРЕМЯ ПРОХОДА SYNCENGINE
+    // ==========================================
+    // Проход сначала сбрасывает WriteBehindQueue, а потом секунды читает сервер. Правка, сделанная в это время
+    // (перенос карточки, переименование списка), в реплике уже есть, а на сервере еще нет: MERGE серверной
+    // строки вернул бы старое состояние, и карточка "прыгнула" бы назад до следующего прохода.
+    // Поэтому зеркальные записи за время прохода запоминаются и повторяются в его транзакции перед commit.
+
+    private static class Mirror {
+        final String sql;
+        final WriteBehindQueue.Binder binder;
+        Mirror(String sql, WriteBehindQueue.Binder binder) { this.sql = sql; this.binder = binder; }
+    }
+
+    // Доступ под synchronized (duringPull)
+    private static final List<Mirror> duringPull = new ArrayList<>();
+    private static boolean pullInProgress;
+
+    // Вызывает SyncEngine до сброса WriteBehindQueue (проходы не пересекаются)
+    static void beginPull() {
+        synchronized (duringPull) {
+            pullInProgress = true;
+            duringPull.clear();
+        }
+    }
+
+    static void endPull() {
+        synchronized (duringPull) {
+            pullInProgress = false;
+            duringPull.clear();
+        }
+    }
+
+    // Повтор своих записей поверх данных сервера и commit транзакции прохода.
+    // Запись, пришедшая после снятия копии списка, выполнится потоком replica-writer уже после commit
+    static void commitPull(Connection local) throws SQLException {
+        List<Mirror> changes;
+        synchronized (duringPull) {
+            changes = new ArrayList<>(duringPull);
+        }
+        for (Mirror m : changes) {
+            try (PreparedStatement pstmt = local.prepareStatement(m.sql)) {
+                m.binder.bind(pstmt);
+                pstmt.executeUpdate();
+            }
+        }
+        local.commit();
+    }
+
+    private static void rememberDuringPull(String sql, WriteBehindQueue.Binder binder) {
+        synchronized (duringPull) {
+            if (pullInProgress) duringPull.add(new Mirror(sql, binder));
+        }
+    }
+
+    // Доска целиком (при удалении доски или потере доступа)
+    public static void removeBoard(int boardId) {
+        mirror("DELETE FROM cards WHERE list_id IN (SELECT id FROM lists WHERE board_id = ?)", p -> p.setInt(1, boardId));
+        mirror("DELETE FROM lists WHERE board_id = ?", p -> p.setInt(1, boardId));
+        mirror("DELETE FROM board_members WHERE board_id = ?", p -> p.setInt(1, boardId));
+        mirror("DELETE FROM sync_boards WHERE board_id = ?", p -> p.setInt(1, boardId));
+        mirror("DELETE FROM boards WHERE id = ?", p -> p.setInt(1, boardId));
+    }
+
+    // ==========================================
+    // ЗАПУСК / ОСТАНОВКА
+    // ==========================================
+
+    private static JdbcConnectionPool getPool() {
+        if (disabled) return null;
+        JdbcConnectionPool p = pool;
+        if (p != null) return p;
+        synchronized (LocalReplica.class) {
+            if (pool == null && !disabled) {
+                try {
+                    String path = System.getProperty("replica.path", DEFAULT_PATH);
+                    JdbcConnectionPool created = JdbcConnectionPool.create("jdbc:h2:" + path, "sa", "");
+                    try (Connection conn = created.getConnection(); Statement st = conn.createStatement()) {
+                        for (String ddl : SCHEMA) st.execute(ddl);
+                    }
+                    pool = created;
+                    System.out.println("Локальная реплика: " + path);
+                } catch (Exception e) {
+                    System.err.println("Локальная реплика недоступна, работаем напрямую с базой: " + e.getMessage());
+                    disabled = true;
+                }
+            }
+            return pool;
+        }
+    }
+
+    // Вызывается из DatabaseConnection.closePool(): сначала дописываем поставленные зеркальные записи
+    static void close() {
+        if (!disabled) awaitMirrors();
+        closePool();
+    }
+
+    private static synchronized void closePool() {
+        readyUsers.clear();
+        if (pool != null) {
+            pool.dispose();
+            pool = null;
+        }
+    }
+
+    private static void flushPendingWrites() {
+        try { WriteBehindQueue.flush(); } catch (SQLException e) { System.err.println("Не удалось сбросить отложенные записи: " + e.getMessage()); }
+    }
+}
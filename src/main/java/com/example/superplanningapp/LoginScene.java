@@ -1,5 +1,6 @@
 package com.example.superplanningapp;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -9,7 +10,7 @@ import javafx.stage.Stage;
 
 public class LoginScene {
 
-    public static Scene createLoginScene(Stage stage) {
+    public static Scene createLoginScene(Stage stage, Repositories repositories) {
         BorderPane mainLayout = new BorderPane();
 
         // === НАСТРОЙКА ЦВЕТОВ ПО ТЕМЕ ===
@@ -93,17 +94,28 @@ public class LoginScene {
                 return;
             }
 
-            User user = UserDAO.loginUser(loginInput, password);
-
-            if (user != null) {
-                stage.setScene(MenuScene.createMenuScene(stage, user));
-            } else {
-                messageLabel.setText("⚠ Неверный логин или пароль!");
-            }
+            // Пул соединений поднимается в фоне с момента запуска (AppStartup) - если еще не готов, ждем его,
+            // а сам вход (запрос + проверка BCrypt) идет не на UI-потоке
+            if (!AppStartup.databaseReady().isDone()) messageLabel.setText("Подключение к базе...");
+            loginButton.setDisable(true);
+
+            AppStartup.databaseReady()
+                    .thenCompose(v -> DbExecutor.supply(() -> repositories.users().loginUser(loginInput, password)))
+                    .whenComplete((user, ex) -> Platform.runLater(() -> {
+                        loginButton.setDisable(false);
+                        if (ex != null) {
+                            ex.printStackTrace();
+                            messageLabel.setText("⚠ Нет связи с сервером, попробуйте еще раз");
+                        } else if (user != null) {
+                            stage.setScene(MenuScene.createMenuScene(stage, user, repositories));
+                        } else {
+                            messageLabel.setText("⚠ Неверный логин или пароль!");
+                        }
+                    }));
         });
 
         registerButton.setOnAction(e -> {
-            stage.setScene(RegisterScene.createRegisterScene(stage));
+            stage.setScene(RegisterScene.createRegisterScene(stage, repositories));
         });
 
         loginBox.getChildren().addAll(
@@ -9,7 +9,6 @@ import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.shape.Circle;
@@ -64,12 +63,17 @@ public class MenuScene {
     private static List<MenuButtonData> menuButtons = new ArrayList<>();
     private static Stage currentStage;
     private static User currentUser;
+    private static Repositories repositories;
 
-    public static Scene createMenuScene(Stage stage, User user) {
+    public static Scene createMenuScene(Stage stage, User user, Repositories repos) {
         currentStage = stage;
         currentUser = user;
+        repositories = repos;
         menuButtons.clear();
 
+        // Локальная реплика: чтение досок и привычек без похода в сеть, синхронизация в фоне
+        SyncEngine.start(user.getId());
+
         rootStack = new StackPane();
         mainContentLayout = new BorderPane();
 
@@ -243,17 +247,15 @@ public class MenuScene {
         Label avatar = new Label(getUserInitial());
         avatar.setStyle("-fx-background-color: " + Theme.ACCENT + "; -fx-text-fill: white; -fx-font-size: 22px; -fx-font-weight: bold; -fx-alignment: center; -fx-background-radius: 50; -fx-min-width: 45; -fx-min-height: 45;");
 
-        if (currentUser.getAvatarPath() != null) {
-            try {
-                Image img = new Image(currentUser.getAvatarPath());
-                ImageView imgView = new ImageView(img);
-                imgView.setFitWidth(45); imgView.setFitHeight(45);
-                Circle clip = new Circle(22.5, 22.5, 22.5);
-                imgView.setClip(clip);
-                avatar.setGraphic(imgView);
-                avatar.setText("");
-            } catch (Exception e) {}
-        }
+        // Пока фото декодируется в фоне - буква
+        AvatarCache.load(currentUser.getAvatarPath(), 45, img -> {
+            ImageView imgView = new ImageView(img);
+            imgView.setFitWidth(45); imgView.setFitHeight(45);
+            Circle clip = new Circle(22.5, 22.5, 22.5);
+            imgView.setClip(clip);
+            avatar.setGraphic(imgView);
+            avatar.setText("");
+        });
 
         Label nameLabel = new Label(currentUser.getDisplayName());
         nameLabel.setVisible(false);
@@ -278,7 +280,7 @@ public class MenuScene {
         themeSwitchBtn.setMaxWidth(Double.MAX_VALUE);
         themeSwitchBtn.setOnAction(e -> toggleTheme());
 
-        Button btnLogout = createNavButton("🚪", "Выход", () -> currentStage.setScene(LoginScene.createLoginScene(currentStage)));
+        Button btnLogout = createNavButton("🚪", "Выход", () -> currentStage.setScene(LoginScene.createLoginScene(currentStage, repositories)));
 
         sidebar.getChildren().addAll(burgerBtn, profileBox, sep, btnTrello, btnHabits, btnAI, spacer, themeSwitchBtn, btnLogout);
     }
@@ -309,14 +311,14 @@ public class MenuScene {
     private static void loadTrello() {
         currentViewReloader = MenuScene::loadTrello; // Запоминаем: "Если что, грузи список досок"
         try {
-            mainContentLayout.setCenter(TrelloHomeScene.createTrelloHomeView(currentUser));
+            mainContentLayout.setCenter(TrelloHomeScene.createTrelloHomeView(currentUser, repositories));
         } catch (Exception e) { e.printStackTrace(); }
     }
 
     private static void loadHabits() {
         currentViewReloader = MenuScene::loadHabits; // Запоминаем: "Грузи привычки"
         try {
-            mainContentLayout.setCenter(HabitTrackerScene.createHabitsView(currentUser));
+            mainContentLayout.setCenter(HabitTrackerScene.createHabitsView(currentUser, repositories.habits()));
         } catch (Exception e) { e.printStackTrace(); }
     }
 
@@ -371,17 +373,14 @@ public class MenuScene {
         Label bigAvatar = new Label(getUserInitial());
         bigAvatar.setStyle("-fx-background-color: " + Theme.BORDER_DARK + "; -fx-text-fill: #e4e6eb; -fx-font-size: 60px; -fx-font-weight: bold; -fx-alignment: center; -fx-background-radius: 100; -fx-min-width: 150; -fx-min-height: 150;");
 
-        if (currentUser.getAvatarPath() != null) {
-            try {
-                Image img = new Image(currentUser.getAvatarPath());
-                ImageView imgView = new ImageView(img);
-                imgView.setFitWidth(150); imgView.setFitHeight(150);
-                Circle clip = new Circle(75, 75, 75);
-                imgView.setClip(clip);
-                bigAvatar.setGraphic(imgView);
-                bigAvatar.setText("");
-            } catch (Exception e) {}
-        }
+        AvatarCache.load(currentUser.getAvatarPath(), 150, img -> {
+            ImageView imgView = new ImageView(img);
+            imgView.setFitWidth(150); imgView.setFitHeight(150);
+            Circle clip = new Circle(75, 75, 75);
+            imgView.setClip(clip);
+            bigAvatar.setGraphic(imgView);
+            bigAvatar.setText("");
+        });
 
         Button editPhotoBtn = new Button("📷");
         editPhotoBtn.setStyle("-fx-background-color: " + Theme.ACCENT + "; -fx-text-fill: white; -fx-background-radius: 50; -fx-cursor: hand; -fx-padding: 8;");
@@ -453,7 +452,7 @@ public class MenuScene {
         if (dialog.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             currentUser.setFirstName(firstNameField.getText());
             currentUser.setLastName(lastNameField.getText());
-            UserDAO.updateUserProfile(currentUser);
+            repositories.users().updateUserProfile(currentUser);
         }
     }
 
@@ -470,7 +469,7 @@ public class MenuScene {
 
         dialog.showAndWait().ifPresent(date -> {
             currentUser.setBirthday(date);
-            UserDAO.updateUserProfile(currentUser);
+            repositories.users().updateUserProfile(currentUser);
         });
     }
 
@@ -480,7 +479,9 @@ public class MenuScene {
         File selectedFile = fileChooser.showOpenDialog(currentStage);
         if (selectedFile != null) {
             currentUser.setAvatarPath(selectedFile.toURI().toString());
-            UserDAO.updateUserProfile(currentUser);
+            // Тот же файл мог быть изменен - старую миниатюру из памяти не показываем
+            AvatarCache.invalidate(currentUser.getAvatarPath());
+            repositories.users().updateUserProfile(currentUser);
         }
     }
 
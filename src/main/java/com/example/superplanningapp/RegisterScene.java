@@ -9,7 +9,7 @@ import javafx.stage.Stage;
 
 public class RegisterScene {
 
-    public static Scene createRegisterScene(Stage stage) {
+    public static Scene createRegisterScene(Stage stage, Repositories repositories) {
         BorderPane mainLayout = new BorderPane();
 
         // === НАСТРОЙКА ЦВЕТОВ ПО ТЕМЕ ===
@@ -81,7 +81,7 @@ public class RegisterScene {
 
         Label loginLink = new Label("Уже есть аккаунт? Войти");
         loginLink.setStyle("-fx-text-fill: " + accentColor + "; -fx-cursor: hand; -fx-font-size: 13px; -fx-underline: true;");
-        loginLink.setOnMouseClicked(e -> stage.setScene(LoginScene.createLoginScene(stage)));
+        loginLink.setOnMouseClicked(e -> stage.setScene(LoginScene.createLoginScene(stage, repositories)));
 
         Label messageLabel = new Label();
         messageLabel.setWrapText(true);
@@ -120,13 +120,13 @@ public class RegisterScene {
             }
 
             // 4. Регистрация
-            if (UserDAO.registerUser(username, email, phone, password)) {
+            if (repositories.users().registerUser(username, email, phone, password)) {
                 messageLabel.setStyle("-fx-text-fill: " + accentColor + "; -fx-font-size: 12px;"); // Зеленый
                 messageLabel.setText("Успешно! Входим...");
 
-                User newUser = UserDAO.loginUser(email, password);
+                User newUser = repositories.users().loginUser(email, password);
                 if (newUser != null) {
-                    stage.setScene(MenuScene.createMenuScene(stage, newUser));
+                    stage.setScene(MenuScene.createMenuScene(stage, newUser, repositories));
                 }
             } else {
                 messageLabel.setText("Пользователь с таким Email или телефоном уже существует.");
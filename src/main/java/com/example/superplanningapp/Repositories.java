@@ -0,0 +1,70 @@
+package com.example.superplanningapp;
+
+import com.example.superplanningapp.habits.CachingHabitRepository;
+import com.example.superplanningapp.habits.HabitRepository;
+import com.example.superplanningapp.habits.InMemoryHabitRepository;
+import com.example.superplanningapp.habits.JdbcHabitRepository;
+import com.example.superplanningapp.trello.BoardRepository;
+import com.example.superplanningapp.trello.CachingTrelloRepository;
+import com.example.superplanningapp.trello.CardRepository;
+import com.example.superplanningapp.trello.InMemoryTrelloRepository;
+import com.example.superplanningapp.trello.InboxRepository;
+import com.example.superplanningapp.trello.JdbcTrelloRepository;
+
+// Набор репозиториев, с которым работают сцены.
+// Собирается один раз при запуске (HelloApplication) и передается дальше:
+// LoginScene -> MenuScene -> TrelloHomeScene / TrelloBoardScene / HabitTrackerScene.
+// Варианты (-Drepositories=...):
+//   cached (по умолчанию) - JDBC + кэширующие декораторы
+//   jdbc                  - напрямую в базу, без кэшей (для сравнения)
+//   memory                - всё в памяти, без базы (нагрузочные тесты)
+public class Repositories {
+
+    private final UserRepository users;
+    private final BoardRepository boards;
+    private final CardRepository cards;
+    private final InboxRepository inbox;
+    private final HabitRepository habits;
+
+    public Repositories(UserRepository users, BoardRepository boards, CardRepository cards, InboxRepository inbox, HabitRepository habits) {
+        this.users = users;
+        this.boards = boards;
+        this.cards = cards;
+        this.inbox = inbox;
+        this.habits = habits;
+    }
+
+    public static Repositories jdbc() {
+        JdbcTrelloRepository trello = new JdbcTrelloRepository();
+        return new Repositories(new JdbcUserRepository(), trello, trello, trello, new JdbcHabitRepository());
+    }
+
+    public static Repositories cached() {
+        JdbcTrelloRepository jdbcTrello = new JdbcTrelloRepository();
+        CachingTrelloRepository trello = new CachingTrelloRepository(jdbcTrello, jdbcTrello).followChangeFeed();
+        // Входящие без декоратора: счетчик бейджа кэширует сам TrelloDAO, а ленты читаются страницами
+        return new Repositories(new CachingUserRepository(new JdbcUserRepository()), trello, trello, jdbcTrello,
+                new CachingHabitRepository(new JdbcHabitRepository()));
+    }
+
+    public static Repositories inMemory() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        InMemoryTrelloRepository trello = new InMemoryTrelloRepository(users);
+        return new Repositories(users, trello, trello, trello, new InMemoryHabitRepository());
+    }
+
+    public static Repositories fromSystemProperties() {
+        String mode = System.getProperty("repositories", "cached");
+        return switch (mode) {
+            case "jdbc" -> jdbc();
+            case "memory" -> inMemory();
+            default -> cached();
+        };
+    }
+
+    public UserRepository users() { return users; }
+    public BoardRepository boards() { return boards; }
+    public CardRepository cards() { return cards; }
+    public InboxRepository inbox() { return inbox; }
+    public HabitRepository habits() { return habits; }
+}
@@ -0,0 +1,302 @@
+package com.example.superplanningapp;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Фоновая синхронизация локальной реплики (LocalReplica) с основной базой.
+// Один проход (pullNow):
+// 1. Push: сбрасываем WriteBehindQueue. Не получилось (нет сети) - проход отменяется,
+//    реплика остается как есть, а отложенные изменения ждут в очереди.
+// 2. Pull: забираем строки с updated_at > watermark (минус запас OVERLAP на транзакции,
+//    которые закоммитились позже начала прошлого прохода) и удаления из sync_tombstones.
+//    Доски, ставшие доступными впервые, скачиваются целиком; доски, к которым доступа больше нет, удаляются.
+// 3. Новый watermark = время сервера на начало прохода, пишется в той же локальной транзакции, что и данные.
+//    Свои правки, зеркаленные в реплику за время прохода, повторяются в этой же транзакции (LocalReplica.commitPull).
+//
+// Проходы: сразу при входе, раз в PULL_INTERVAL и по событиям ChangeFeed (с задержкой, чтобы пачка событий дала один проход).
+// Колонки updated_at, таблица sync_tombstones и триггеры к ним - в README.
+public class SyncEngine {
+
+    private static final long PULL_INTERVAL_MS = 30_000;
+    private static final long PULL_DEBOUNCE_MS = 1_000;
+    private static final long OVERLAP_MS = 5_000;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replica-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile int currentUserId = -1;
+    private static ScheduledFuture<?> periodic;
+    private static ScheduledFuture<?> pendingPull;
+    private static Runnable feedSubscription;
+    // Проходы не пересекаются; отдельный замок, чтобы start/requestPull из UI не ждали долгий проход
+    private static final Object pullLock = new Object();
+
+    // === UPSERT В РЕПЛИКУ (те же колонки, что и в SELECT с сервера) ===
+    private static final String MERGE_BOARD = "MERGE INTO boards (id, title, description, user_id, created_at, updated_at) KEY(id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_LIST = "MERGE INTO lists (id, title, board_id, color, updated_at) KEY(id) VALUES (?, ?, ?, ?, ?)";
+    private static final String MERGE_CARD = "MERGE INTO cards (id, title, description, list_id, card_order, updated_at) KEY(id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_MEMBER = "MERGE INTO board_members (board_id, user_id) KEY(board_id, user_id) VALUES (?, ?)";
+    private static final String MERGE_HABIT = "MERGE INTO habits (id, user_id, title, color, updated_at) KEY(id) VALUES (?, ?, ?, ?, ?)";
+    private static final String MERGE_COMPLETION = "MERGE INTO habit_completions (habit_id, completion_date, updated_at) KEY(habit_id, completion_date) VALUES (?, ?, ?)";
+
+    // Запуск для вошедшего пользователя (MenuScene). Если реплика уже синхронизировалась раньше -
+    // чтение сразу идет из нее, даже если сервер сейчас недоступен.
+    // Вызывается из UI-потока, поэтому открытие реплики (файл H2, схема) и чтение watermark - в потоке replica-sync
+    public static synchronized void start(int userId) {
+        stop();
+        if (scheduler.isShutdown()) return;
+        currentUserId = userId;
+        scheduler.execute(() -> startInBackground(userId));
+    }
+
+    private static void startInBackground(int userId) {
+        boolean enabled = LocalReplica.isEnabled();
+        boolean synced = enabled && readWatermark(userId) != null;
+        synchronized (SyncEngine.class) {
+            // Пока открывали реплику, пользователь мог выйти или войти другой
+            if (currentUserId != userId || periodic != null) return;
+            if (!enabled) {
+                currentUserId = -1;
+                return;
+            }
+            if (synced) LocalReplica.markReady(userId);
+
+            periodic = scheduler.scheduleWithFixedDelay(SyncEngine::pullQuietly, 0, PULL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            // Чужие изменения досок и участников - повод подтянуть дельту раньше таймера
+            feedSubscription = ChangeFeed.subscribe(event -> {
+                if (event.isResync() || (!event.isOwn() && !"notifications".equals(event.getTable()))) requestPull();
+            });
+        }
+    }
+
+    public static synchronized void stop() {
+        currentUserId = -1;
+        if (periodic != null) { periodic.cancel(false); periodic = null; }
+        if (pendingPull != null) { pendingPull.cancel(false); pendingPull = null; }
+        if (feedSubscription != null) { feedSubscription.run(); feedSubscription = null; }
+    }
+
+    // Вызывается из DatabaseConnection.closePool()
+    static void shutdown() {
+        stop();
+        scheduler.shutdownNow();
+    }
+
+    // Отложенный проход: несколько запросов подряд схлопываются в один
+    public static synchronized void requestPull() {
+        if (currentUserId < 0 || scheduler.isShutdown()) return;
+        if (pendingPull != null && !pendingPull.isDone()) return;
+        pendingPull = scheduler.schedule(SyncEngine::pullQuietly, PULL_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void pullQuietly() {
+        pullNow();
+    }
+
+    // Синхронный проход (например, после принятия приглашения - новая доска нужна сразу).
+    // false - сервер недоступен, реплика не менялась
+    public static boolean pullNow() {
+        synchronized (pullLock) {
+            int userId = currentUserId;
+            // Реплику проверяем здесь же: start() мог еще не успеть выяснить, что она выключена
+            if (userId < 0 || !LocalReplica.isEnabled()) return false;
+            LocalReplica.beginPull();
+            try {
+                WriteBehindQueue.flush();
+                pull(userId);
+                LocalReplica.markReady(userId);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("Синхронизация реплики не удалась (повтор позже): " + e.getMessage());
+                return false;
+            } finally {
+                LocalReplica.endPull();
+            }
+        }
+    }
+
+    // ==========================================
+    // ОДИН ПРОХОД PULL
+    // ==========================================
+
+    private static void pull(int userId) throws SQLException {
+        Timestamp watermark = readWatermark(userId);
+        Timestamp since = watermark == null ? new Timestamp(0) : new Timestamp(watermark.getTime() - OVERLAP_MS);
+
+        try (Connection remote = DatabaseConnection.getConnection();
+             Connection local = LocalReplica.getConnection()) {
+            remote.setReadOnly(true);
+
+            Timestamp newWatermark;
+            try (PreparedStatement p = remote.prepareStatement("SELECT clock_timestamp()::timestamp");
+                 ResultSet rs = p.executeQuery()) {
+                rs.next();
+                newWatermark = rs.getTimestamp(1);
+            }
+
+            // Доступные доски: свои + где участник. Новые для реплики качаем целиком
+            Set<Integer> accessible = new HashSet<>();
+            try (PreparedStatement p = remote.prepareStatement(
+                    "SELECT id FROM boards WHERE user_id = ? UNION SELECT board_id FROM board_members WHERE user_id = ?")) {
+                p.setInt(1, userId);
+                p.setInt(2, userId);
+                ResultSet rs = p.executeQuery();
+                while (rs.next()) accessible.add(rs.getInt(1));
+            }
+            Set<Integer> known = new HashSet<>();
+            try (PreparedStatement p = local.prepareStatement("SELECT board_id FROM sync_boards WHERE user_id = ?")) {
+                p.setInt(1, userId);
+                ResultSet rs = p.executeQuery();
+                while (rs.next()) known.add(rs.getInt(1));
+            }
+            List<Integer> full = new ArrayList<>();
+            for (int id : accessible) if (!known.contains(id)) full.add(id);
+            List<Integer> lost = new ArrayList<>();
+            for (int id : known) if (!accessible.contains(id)) lost.add(id);
+
+            Array all = remote.createArrayOf("integer", accessible.toArray());
+            Array fresh = remote.createArrayOf("integer", full.toArray());
+
+            local.setAutoCommit(false);
+            try {
+                // 1. Удаления (раньше вставок: строку могли удалить и создать заново)
+                if (watermark != null) applyTombstones(remote, local, since);
+
+                // 2. Доски, списки, карточки, участники
+                copyRows(remote, "SELECT id, title, description, user_id, created_at, updated_at FROM boards WHERE id = ANY(?)",
+                        p -> p.setArray(1, all), local, MERGE_BOARD);
+                copyRows(remote, "SELECT id, title, board_id, color, updated_at FROM lists " +
+                                "WHERE board_id = ANY(?) AND (updated_at > ? OR board_id = ANY(?))",
+                        p -> { p.setArray(1, all); p.setTimestamp(2, since); p.setArray(3, fresh); }, local, MERGE_LIST);
+                copyRows(remote, "SELECT c.id, c.title, c.description, c.list_id, c.card_order, c.updated_at FROM cards c " +
+                                "JOIN lists l ON l.id = c.list_id " +
+                                "WHERE l.board_id = ANY(?) AND (c.updated_at > ? OR l.board_id = ANY(?))",
+                        p -> { p.setArray(1, all); p.setTimestamp(2, since); p.setArray(3, fresh); }, local, MERGE_CARD);
+
+                // Участников мало: состав доступных досок перечитываем целиком
+                try (PreparedStatement p = local.prepareStatement("DELETE FROM board_members WHERE board_id = ?")) {
+                    for (int id : accessible) { p.setInt(1, id); p.addBatch(); }
+                    p.executeBatch();
+                }
+                copyRows(remote, "SELECT board_id, user_id FROM board_members WHERE board_id = ANY(?)",
+                        p -> p.setArray(1, all), local, MERGE_MEMBER);
+
+                try (PreparedStatement p = local.prepareStatement("INSERT INTO sync_boards (user_id, board_id) VALUES (?, ?)")) {
+                    for (int id : full) { p.setInt(1, userId); p.setInt(2, id); p.addBatch(); }
+                    p.executeBatch();
+                }
+                for (int id : lost) deleteBoardLocally(local, id);
+
+                // 3. Привычки и отметки пользователя
+                copyRows(remote, "SELECT id, user_id, title, color, updated_at FROM habits WHERE user_id = ? AND updated_at > ?",
+                        p -> { p.setInt(1, userId); p.setTimestamp(2, since); }, local, MERGE_HABIT);
+                copyRows(remote, "SELECT hc.habit_id, hc.completion_date, hc.updated_at FROM habit_completions hc " +
+                                "JOIN habits h ON h.id = hc.habit_id WHERE h.user_id = ? AND hc.updated_at > ?",
+                        p -> { p.setInt(1, userId); p.setTimestamp(2, since); }, local, MERGE_COMPLETION);
+
+                try (PreparedStatement p = local.prepareStatement("MERGE INTO sync_state (user_id, watermark) KEY(user_id) VALUES (?, ?)")) {
+                    p.setInt(1, userId);
+                    p.setTimestamp(2, newWatermark);
+                    p.executeUpdate();
+                }
+                LocalReplica.commitPull(local);
+            } catch (SQLException e) {
+                local.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Удаления с сервера с момента since (таблица sync_tombstones заполняется триггером record_tombstone)
+    private static void applyTombstones(Connection remote, Connection local, Timestamp since) throws SQLException {
+        try (PreparedStatement p = remote.prepareStatement(
+                "SELECT table_name, row_id, row_date FROM sync_tombstones WHERE deleted_at > ? ORDER BY deleted_at")) {
+            p.setTimestamp(1, since);
+            ResultSet rs = p.executeQuery();
+            while (rs.next()) {
+                int id = rs.getInt("row_id");
+                switch (rs.getString("table_name")) {
+                    case "boards" -> deleteBoardLocally(local, id);
+                    case "lists" -> {
+                        execute(local, "DELETE FROM cards WHERE list_id = ?", id);
+                        execute(local, "DELETE FROM lists WHERE id = ?", id);
+                    }
+                    case "cards" -> execute(local, "DELETE FROM cards WHERE id = ?", id);
+                    case "habits" -> {
+                        execute(local, "DELETE FROM habit_completions WHERE habit_id = ?", id);
+                        execute(local, "DELETE FROM habits WHERE id = ?", id);
+                    }
+                    case "habit_completions" -> {
+                        try (PreparedStatement d = local.prepareStatement("DELETE FROM habit_completions WHERE habit_id = ? AND completion_date = ?")) {
+                            d.setInt(1, id);
+                            d.setDate(2, rs.getDate("row_date"));
+                            d.executeUpdate();
+                        }
+                    }
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    private static void deleteBoardLocally(Connection local, int boardId) throws SQLException {
+        execute(local, "DELETE FROM cards WHERE list_id IN (SELECT id FROM lists WHERE board_id = ?)", boardId);
+        execute(local, "DELETE FROM lists WHERE board_id = ?", boardId);
+        execute(local, "DELETE FROM board_members WHERE board_id = ?", boardId);
+        execute(local, "DELETE FROM sync_boards WHERE board_id = ?", boardId);
+        execute(local, "DELETE FROM boards WHERE id = ?", boardId);
+    }
+
+    // SELECT на сервере -> MERGE в реплику пачками; колонки переносятся по порядку
+    private static void copyRows(Connection remote, String selectSql, WriteBehindQueue.Binder params,
+                                 Connection local, String mergeSql) throws SQLException {
+        try (PreparedStatement select = remote.prepareStatement(selectSql);
+             PreparedStatement merge = local.prepareStatement(mergeSql)) {
+            params.bind(select);
+            ResultSet rs = select.executeQuery();
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            int batched = 0;
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) merge.setObject(i, rs.getObject(i));
+                merge.addBatch();
+                if (++batched % 500 == 0) merge.executeBatch();
+            }
+            merge.executeBatch();
+        }
+    }
+
+    private static void execute(Connection local, String sql, int id) throws SQLException {
+        try (PreparedStatement p = local.prepareStatement(sql)) {
+            p.setInt(1, id);
+            p.executeUpdate();
+        }
+    }
+
+    private static Timestamp readWatermark(int userId) {
+        try (Connection local = LocalReplica.getConnection();
+             PreparedStatement p = local.prepareStatement("SELECT watermark FROM sync_state WHERE user_id = ?")) {
+            p.setInt(1, userId);
+            ResultSet rs = p.executeQuery();
+            return rs.next() ? rs.getTimestamp(1) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
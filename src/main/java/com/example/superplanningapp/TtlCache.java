@@ -0,0 +1,55 @@
+package com.example.superplanningapp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Простой кэш "ключ -> значение" со временем жизни записи (для кэширующих репозиториев).
+// Значение, которого нет или которое устарело, читается через loader и кладется обратно.
+// Размер не ограничен: ключи - id пользователей/досок/списков текущей сессии, их немного.
+public class TtlCache<K, V> {
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+        Entry(V value, long loadedAt) { this.value = value; this.loadedAt = loadedAt; }
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+
+    public TtlCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    // null от loader не кэшируется (например, "не найдено" из-за ошибки сети)
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) return cached;
+        V value = loader.apply(key);
+        if (value != null) put(key, value);
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) return null;
+        if (System.currentTimeMillis() - e.loadedAt > ttlMs) {
+            entries.remove(key, e);
+            return null;
+        }
+        return e.value;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
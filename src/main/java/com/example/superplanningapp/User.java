@@ -10,6 +10,8 @@ public class User {
     private String lastName;
     private String birthday;
     private String avatarPath;
+    // Растет при каждом изменении профиля (users.version) - по ней сверяется кэш профилей
+    private int version;
 
     public User(int id, String username, String email, String phone) {
         this.id = id;
@@ -36,6 +38,9 @@ public class User {
     public String getAvatarPath() { return avatarPath; }
     public void setAvatarPath(String avatarPath) { this.avatarPath = avatarPath; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
     // Метод для получения полного имени (или Ника, если имя пустое)
     public String getDisplayName() {
         if (firstName != null && !firstName.isEmpty()) {
@@ -0,0 +1,152 @@
+package com.example.superplanningapp;
+
+import java.util.Arrays;
+
+// Общий кэш профилей пользователей по id (один на приложение: MenuScene, TrelloHomeScene, карточки досок).
+// - Ограничен по размеру (CAPACITY): при переполнении сначала выбрасываются устаревшие записи, потом самая старая.
+// - TTL: свежая запись отдается без обращения к базе. Устаревшая не удаляется сразу -
+//   по ее version CachingUserRepository спрашивает базу "изменился ли профиль" и либо продлевает ее, либо заменяет.
+// - Версия: users.version растет при каждом изменении профиля, поэтому более старая копия никогда не затирает новую.
+// Внутри - открытая адресация по int (без упаковки id в Integer и без объектов-узлов на каждую запись).
+public class UserCache {
+
+    private static final int CAPACITY = 1024;
+    private static final int TABLE_SIZE = CAPACITY * 2; // степень двойки, заполнение не больше половины
+    private static final long TTL_MS = 5 * 60_000;
+
+    // keys[i] == 0 - пустая ячейка (id в базе начинаются с 1)
+    private static final int[] keys = new int[TABLE_SIZE];
+    private static final User[] users = new User[TABLE_SIZE];
+    private static final long[] loadedAt = new long[TABLE_SIZE];
+    private static int size;
+
+    // ==========================================
+    // ЧТЕНИЕ
+    // ==========================================
+
+    // Профиль, если он есть и TTL не истек (иначе null)
+    public static synchronized User getFresh(int id) {
+        int slot = find(id);
+        if (slot < 0 || isExpired(slot, System.currentTimeMillis())) return null;
+        return users[slot];
+    }
+
+    // Профиль независимо от TTL - для проверки версии в базе
+    public static synchronized User getStale(int id) {
+        int slot = find(id);
+        return slot < 0 ? null : users[slot];
+    }
+
+    // Одна копия пользователя на всё приложение: если в кэше та же или более новая версия - отдаем ее,
+    // иначе запоминаем пришедшую. Так владельцы/участники из разных досок - один и тот же объект
+    public static synchronized User canonical(User user) {
+        if (user == null) return null;
+        int slot = find(user.getId());
+        if (slot >= 0 && users[slot].getVersion() >= user.getVersion()) return users[slot];
+        put(user);
+        return user;
+    }
+
+    // ==========================================
+    // ЗАПИСЬ И СБРОС
+    // ==========================================
+
+    // Более старая версия не затирает более новую (например, ответ медленного запроса после изменения профиля)
+    public static synchronized void put(User user) {
+        if (user == null || user.getId() <= 0) return;
+        long now = System.currentTimeMillis();
+        int slot = find(user.getId());
+        if (slot >= 0) {
+            if (users[slot].getVersion() > user.getVersion()) return;
+            users[slot] = user;
+            loadedAt[slot] = now;
+            return;
+        }
+        if (size >= CAPACITY) evict(now);
+        slot = insertionSlot(user.getId());
+        keys[slot] = user.getId();
+        users[slot] = user;
+        loadedAt[slot] = now;
+        size++;
+    }
+
+    // База подтвердила, что профиль не менялся - продлеваем TTL
+    public static synchronized void touch(int id) {
+        int slot = find(id);
+        if (slot >= 0) loadedAt[slot] = System.currentTimeMillis();
+    }
+
+    public static synchronized void invalidate(int id) {
+        int slot = find(id);
+        if (slot >= 0) remove(slot);
+    }
+
+    public static synchronized void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(users, null);
+        size = 0;
+    }
+
+    // ==========================================
+    // ХЕШ-ТАБЛИЦА (линейное пробирование)
+    // ==========================================
+
+    private static int indexFor(int id) {
+        int h = id * 0x9E3779B9; // перемешиваем соседние id по всей таблице
+        return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    private static int find(int id) {
+        if (id <= 0) return -1;
+        for (int i = indexFor(id); keys[i] != 0; i = (i + 1) & (TABLE_SIZE - 1)) {
+            if (keys[i] == id) return i;
+        }
+        return -1;
+    }
+
+    private static int insertionSlot(int id) {
+        int i = indexFor(id);
+        while (keys[i] != 0) i = (i + 1) & (TABLE_SIZE - 1);
+        return i;
+    }
+
+    // Удаление со сдвигом следующих записей цепочки назад (без "надгробий")
+    private static void remove(int slot) {
+        int hole = slot;
+        int i = (slot + 1) & (TABLE_SIZE - 1);
+        while (keys[i] != 0) {
+            int home = indexFor(keys[i]);
+            // Запись можно перенести в дыру, если ее "родная" ячейка не лежит между дырой и ней
+            if (((i - home) & (TABLE_SIZE - 1)) >= ((i - hole) & (TABLE_SIZE - 1))) {
+                keys[hole] = keys[i];
+                users[hole] = users[i];
+                loadedAt[hole] = loadedAt[i];
+                hole = i;
+            }
+            i = (i + 1) & (TABLE_SIZE - 1);
+        }
+        keys[hole] = 0;
+        users[hole] = null;
+        size--;
+    }
+
+    private static boolean isExpired(int slot, long now) {
+        return now - loadedAt[slot] > TTL_MS;
+    }
+
+    // Переполнение: убираем все устаревшие записи; если таких нет - самую давно загруженную
+    private static void evict(long now) {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            if (keys[i] != 0 && isExpired(i, now)) {
+                remove(i);
+                i--; // на место i могла сдвинуться следующая запись
+            }
+        }
+        if (size < CAPACITY) return;
+        int oldest = -1;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            if (keys[i] != 0 && (oldest < 0 || loadedAt[i] < loadedAt[oldest])) oldest = i;
+        }
+        remove(oldest);
+    }
+}
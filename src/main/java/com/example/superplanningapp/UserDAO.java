@@ -65,8 +65,10 @@ public class UserDAO {
     // ==========================================
 
     // Обновление данных профиля (Имя, Фамилия, ДР, Фото)
+    // Версия профиля растет на 1 - по ней кэши профилей (UserCache) понимают, что их копия устарела
     public static boolean updateUserProfile(User user) {
-        String sql = "UPDATE users SET first_name = ?, last_name = ?, birthday = ?, avatar_path = ? WHERE id = ?";
+        String sql = "UPDATE users SET first_name = ?, last_name = ?, birthday = ?, avatar_path = ?, version = version + 1 " +
+                "WHERE id = ? RETURNING version";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -79,8 +81,12 @@ public class UserDAO {
             // Важно: обновляем именно этого пользователя по ID
             pstmt.setInt(5, user.getId());
 
-            int rowsUpdated = pstmt.executeUpdate();
-            return rowsUpdated > 0;
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                user.setVersion(rs.getInt("version"));
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             System.err.println("Ошибка обновления профиля: " + e.getMessage());
@@ -107,6 +113,26 @@ public class UserDAO {
         return null;
     }
 
+    // Профиль, только если он изменился после версии knownVersion (null - не изменился или не найден).
+    // Так кэш проверяет устаревшую копию: в ответе ни одной строки, пока профиль тот же
+    public static User getUserIfChanged(int id, int knownVersion) {
+        String sql = "SELECT * FROM users WHERE id = ? AND version > ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, id);
+            pstmt.setInt(2, knownVersion);
+            ResultSet rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return mapUser(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     // ==========================================
     // 3. ПОИСК ПОЛЬЗОВАТЕЛЕЙ (ДЛЯ ПРИГЛАШЕНИЙ)
     // ==========================================
@@ -146,7 +172,8 @@ public class UserDAO {
     // ==========================================
 
     // Превращает строку из ResultSet в объект User (маппинг)
-    private static User mapUser(ResultSet rs) throws SQLException {
+    // Открыт для других DAO, которые джойнят users (например, TrelloDAO)
+    public static User mapUser(ResultSet rs) throws SQLException {
         User user = new User(
                 rs.getInt("id"),
                 rs.getString("username"),
@@ -159,6 +186,7 @@ public class UserDAO {
         user.setLastName(rs.getString("last_name"));
         user.setBirthday(rs.getString("birthday"));
         user.setAvatarPath(rs.getString("avatar_path"));
+        user.setVersion(rs.getInt("version"));
 
         return user;
     }
@@ -0,0 +1,26 @@
+package com.example.superplanningapp;
+
+// Пользователи: вход, регистрация, профиль и поиск (для приглашений).
+// Реализации: JdbcUserRepository (UserDAO), CachingUserRepository (кэш профилей), InMemoryUserRepository (нагрузочные тесты).
+// Сцены получают репозиторий через Repositories, а не вызывают UserDAO напрямую.
+public interface UserRepository {
+
+    boolean registerUser(String username, String email, String phone, String password);
+
+    // null - неверный логин или пароль
+    User loginUser(String loginInput, String password);
+
+    boolean updateUserProfile(User user);
+
+    User getUserById(int id);
+
+    // Профиль, если его версия в хранилище новее knownVersion; null - не изменился (или не найден)
+    User getUserIfChanged(int id, int knownVersion);
+
+    // -1 - пользователь не найден
+    int findUserIdByUsername(String username);
+
+    int findUserIdByEmail(String email);
+
+    int findUserIdByPhone(String phone);
+}
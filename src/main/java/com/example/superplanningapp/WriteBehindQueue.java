@@ -0,0 +1,257 @@
+package com.example.superplanningapp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Очередь отложенной записи (write-behind).
+// Частые мелкие изменения (перетаскивание карточек, переименование списка, галочки привычек)
+// не пишутся в базу сразу, а копятся здесь и уходят пачкой в ОДНОЙ транзакции.
+//
+// Гарантии:
+// 1. Схлопывание: повторные изменения одной сущности (один и тот же ключ) заменяют друг друга,
+//    в базу уходит только последнее состояние.
+// 2. Порядок: изменения применяются в порядке их ПОСЛЕДНЕГО обновления.
+// 3. Read-your-writes: DAO вызывают flush() перед чтением и прямой записью затронутых таблиц.
+// 4. При выходе DatabaseConnection.closePool() сбрасывает очередь до закрытия пула.
+// 5. Без связи с базой изменения не теряются: пачка возвращается в очередь и уходит при следующем сбросе.
+// 6. Изменение, которое база отвергла (например, карточку уже удалил другой участник), отбрасывается -
+//    об этом узнают слушатели addDropListener, чтобы перечитать данные с сервера.
+// 7. enqueue() возвращает future изменения: завершается, когда оно записано в базу,
+//    и с ошибкой, если база его отвергла. Замененное изменение завершается вместе с заменившим.
+//    Пока нет связи, future ждет (изменение в очереди). Завершается в потоке сброса, не в UI-потоке.
+// 8. Ошибка в самом Binder (RuntimeException, например null при распаковке Integer) - тоже отказ:
+//    транзакция откатывается, такое изменение отбрасывается как отвергнутое базой.
+public class WriteBehindQueue {
+
+    // Привязка параметров к PreparedStatement (лямбда)
+    public interface Binder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    // Одно отложенное изменение: SQL + его параметры + кто ждет его записи
+    private static class Mutation {
+        final String sql;
+        final Binder binder;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        Mutation(String sql, Binder binder) { this.sql = sql; this.binder = binder; }
+
+        // Это изменение заменено более новым по тому же ключу: его ждущие узнают результат нового
+        void supersededBy(Mutation newer) {
+            newer.done.whenComplete((v, ex) -> {
+                if (ex == null) done.complete(null); else done.completeExceptionally(ex);
+            });
+        }
+    }
+
+    // Как часто сбрасываем очередь и при каком размере сбрасываем не дожидаясь таймера
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final int MAX_PENDING = 64;
+
+    // Ключ -> изменение. LinkedHashMap хранит порядок вставки
+    private static final Map<String, Mutation> pending = new LinkedHashMap<>();
+    // Отдельный замок на сам сброс: таймер и читатели не пишут в базу одновременно
+    private static final Object flushLock = new Object();
+
+    // Кому сообщить об отброшенном изменении (ключ + ошибка базы)
+    public interface DropListener {
+        void onDropped(String key, SQLException error);
+    }
+
+    private static final List<DropListener> dropListeners = new CopyOnWriteArrayList<>();
+    // После shutdown() таймера нет: новые изменения пишутся сразу
+    private static volatile boolean closed;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-behind-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        scheduler.scheduleWithFixedDelay(WriteBehindQueue::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Поставить изменение в очередь. Если по ключу уже что-то ждет - оно заменяется
+    public static CompletableFuture<Void> enqueue(String key, String sql, Binder binder) {
+        Mutation mutation = new Mutation(sql, binder);
+        boolean full;
+        synchronized (pending) {
+            // remove + put переносит ключ в конец: порядок = порядок последних изменений
+            Mutation replaced = pending.remove(key);
+            if (replaced != null) replaced.supersededBy(mutation);
+            pending.put(key, mutation);
+            full = pending.size() >= MAX_PENDING;
+        }
+        // Приложение закрывается (таймер остановлен) - пишем сразу, не теряя изменение
+        if (closed) flushQuietly();
+        else if (full) scheduler.execute(WriteBehindQueue::flushQuietly);
+        return mutation.done;
+    }
+
+    public static void addDropListener(DropListener listener) {
+        dropListeners.add(listener);
+    }
+
+    public static void removeDropListener(DropListener listener) {
+        dropListeners.remove(listener);
+    }
+
+    public static int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // Синхронно записать всё накопленное. Вызывается перед чтением и при выходе
+    public static void flush() throws SQLException {
+        synchronized (flushLock) {
+            Map<String, Mutation> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) return;
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+
+            Connection conn;
+            try {
+                conn = DatabaseConnection.getConnection();
+            } catch (SQLException e) {
+                // Нет соединения - ничего не теряем, повторим на следующем сбросе
+                requeue(batch);
+                throw e;
+            }
+
+            try (conn) {
+                List<Mutation> mutations = new ArrayList<>(batch.values());
+                conn.setAutoCommit(false);
+                try {
+                    executeInOrder(conn, mutations);
+                    conn.commit();
+                    for (Mutation m : mutations) m.done.complete(null);
+                } catch (SQLException | RuntimeException e) {
+                    // Связь оборвалась посреди пачки - это не "плохая" запись: возвращаем всё в очередь
+                    if (e instanceof SQLException se && isConnectionError(se)) {
+                        requeue(batch);
+                        throw se;
+                    }
+                    try {
+                        conn.rollback();
+                    } catch (SQLException rollbackError) {
+                        // Соединение уже непригодно - ничего не теряем, повторим на следующем сбросе
+                        requeue(batch);
+                        throw rollbackError;
+                    }
+                    // Одна "плохая" запись (например, карточка уже удалена) не должна блокировать остальные:
+                    // применяем по одной, неудачные отбрасываем
+                    conn.setAutoCommit(true);
+                    executeOneByOne(conn, batch);
+                }
+            }
+        }
+    }
+
+    // Подряд идущие изменения с одинаковым SQL отправляются одним JDBC batch
+    private static void executeInOrder(Connection conn, List<Mutation> mutations) throws SQLException {
+        PreparedStatement current = null;
+        String currentSql = null;
+        try {
+            for (Mutation m : mutations) {
+                if (!m.sql.equals(currentSql)) {
+                    if (current != null) {
+                        current.executeBatch();
+                        current.close();
+                    }
+                    current = conn.prepareStatement(m.sql);
+                    currentSql = m.sql;
+                }
+                m.binder.bind(current);
+                current.addBatch();
+            }
+            if (current != null) current.executeBatch();
+        } finally {
+            if (current != null) current.close();
+        }
+    }
+
+    private static void executeOneByOne(Connection conn, Map<String, Mutation> batch) throws SQLException {
+        Map<String, Mutation> rest = new LinkedHashMap<>(batch);
+        for (Map.Entry<String, Mutation> e : batch.entrySet()) {
+            Mutation m = e.getValue();
+            try (PreparedStatement pstmt = conn.prepareStatement(m.sql)) {
+                m.binder.bind(pstmt);
+                pstmt.executeUpdate();
+                m.done.complete(null);
+            } catch (SQLException ex) {
+                // Нет связи - оставшиеся (включая эту) ждут следующего сброса, а не теряются
+                if (isConnectionError(ex)) {
+                    requeue(rest);
+                    throw ex;
+                }
+                System.err.println("Отложенное изменение отброшено: " + ex.getMessage());
+                m.done.completeExceptionally(ex);
+                notifyDropped(e.getKey(), ex);
+            } catch (RuntimeException ex) {
+                // Ошибка в самой лямбде: слушатели получают ее как отказ базы (SQLException с причиной)
+                SQLException error = new SQLException("Ошибка отложенного изменения: " + ex, ex);
+                System.err.println("Отложенное изменение отброшено: " + error.getMessage());
+                m.done.completeExceptionally(error);
+                notifyDropped(e.getKey(), error);
+            }
+            rest.remove(e.getKey());
+        }
+    }
+
+    private static void notifyDropped(String key, SQLException error) {
+        for (DropListener listener : dropListeners) {
+            try {
+                listener.onDropped(key, error);
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    // SQLState класса 08 - ошибки соединения (сеть, сервер недоступен)
+    private static boolean isConnectionError(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+
+    // Неудачная пачка возвращается в начало очереди, но более свежие изменения по тем же ключам не затираются
+    private static void requeue(Map<String, Mutation> failed) {
+        synchronized (pending) {
+            Map<String, Mutation> merged = new LinkedHashMap<>(failed);
+            for (Map.Entry<String, Mutation> e : pending.entrySet()) {
+                Mutation older = merged.remove(e.getKey());
+                if (older != null) older.supersededBy(e.getValue());
+                merged.put(e.getKey(), e.getValue());
+            }
+            pending.clear();
+            pending.putAll(merged);
+        }
+    }
+
+    private static void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("Ошибка отложенной записи (повтор при следующем сбросе): " + e.getMessage());
+        }
+    }
+
+    // Последний сброс и остановка таймера (из DatabaseConnection.closePool)
+    static void shutdown() {
+        closed = true;
+        scheduler.shutdown();
+        flushQuietly();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.superplanningapp.habits;
+
+import com.example.superplanningapp.TtlCache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Кэширующий декоратор: список привычек на день, их количество и отметки по дням периода.
+// Привычки видит только их владелец, поэтому чужих изменений нет: кэш сбрасывается
+// на любой своей записи (создание, удаление, галочка) и по TTL.
+// История отметок (forEachCompletion) не кэшируется - ее один раз читает HabitCompletionIndex.
+public class CachingHabitRepository implements HabitRepository {
+
+    private static final long TTL_MS = 60_000;
+
+    private final HabitRepository delegate;
+
+    private final TtlCache<String, List<Habit>> habitsByDay = new TtlCache<>(TTL_MS);
+    private final TtlCache<Integer, Integer> totalByUser = new TtlCache<>(TTL_MS);
+    private final TtlCache<String, int[]> countsByRange = new TtlCache<>(TTL_MS);
+
+    public CachingHabitRepository(HabitRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    // Отдаются копии: сцена меняет флаг выполнения у своих объектов
+    @Override
+    public List<Habit> getHabitsForUser(int userId, LocalDate date) {
+        List<Habit> cached = habitsByDay.get(userId + ":" + date, k -> delegate.getHabitsForUser(userId, date));
+        List<Habit> copy = new ArrayList<>(cached.size());
+        for (Habit h : cached) copy.add(new Habit(h.getId(), h.getUserId(), h.getTitle(), h.getColor(), h.isCompletedOnSelectedDate()));
+        return copy;
+    }
+
+    @Override
+    public int getTotalHabitsCount(int userId) {
+        return totalByUser.get(userId, delegate::getTotalHabitsCount);
+    }
+
+    @Override
+    public int[] getDailyCompletionCounts(int userId, LocalDate from, LocalDate toExclusive) {
+        return countsByRange.get(userId + ":" + from + ":" + toExclusive,
+                k -> delegate.getDailyCompletionCounts(userId, from, toExclusive)).clone();
+    }
+
+    @Override
+    public void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action) {
+        delegate.forEachCompletion(userId, action);
+    }
+
+    @Override
+    public void createHabit(int userId, String title) {
+        delegate.createHabit(userId, title);
+        invalidateAll();
+    }
+
+    @Override
+    public void deleteHabit(int habitId) {
+        delegate.deleteHabit(habitId);
+        invalidateAll();
+    }
+
+    @Override
+    public void queueHabitCompletion(int habitId, LocalDate date, boolean completed) {
+        delegate.queueHabitCompletion(habitId, date, completed);
+        habitsByDay.invalidateAll();
+        countsByRange.invalidateAll();
+    }
+
+    private void invalidateAll() {
+        habitsByDay.invalidateAll();
+        totalByUser.invalidateAll();
+        countsByRange.invalidateAll();
+    }
+}
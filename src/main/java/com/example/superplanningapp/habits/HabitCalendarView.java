@@ -0,0 +1,130 @@
+package com.example.superplanningapp.habits;
+
+import javafx.css.PseudoClass;
+import javafx.geometry.HPos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// Календарь месяца для трекера привычек.
+// 42 клетки (6 недель x 7 дней) создаются ОДИН раз; при смене месяца, выборе дня или клике по галочке
+// у клеток меняется только текст и псевдоклассы (:selected, :today, :complete, :missed, :outside).
+// Раньше сетка очищалась и на каждый клик создавалось до 31 новой кнопки со своим inline-стилем.
+public class HabitCalendarView extends GridPane {
+
+    private static final int CELLS = 42;
+    private static final String[] DAYS_OF_WEEK = {"Пн", "Вт", "Ср", "Чт", "Пт", "Сб", "Вс"};
+
+    private static final PseudoClass DARK = PseudoClass.getPseudoClass("dark");
+    private static final PseudoClass OUTSIDE = PseudoClass.getPseudoClass("outside");
+    private static final PseudoClass TODAY = PseudoClass.getPseudoClass("today");
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
+    private static final PseudoClass COMPLETE = PseudoClass.getPseudoClass("complete");
+    private static final PseudoClass MISSED = PseudoClass.getPseudoClass("missed");
+
+    private final Button[] cells = new Button[CELLS];
+
+    // Что сейчас показано
+    private YearMonth month;
+    private int offset; // в какой клетке 1-е число
+    private LocalDate selectedDate;
+    private int totalHabits;
+    private ToIntFunction<LocalDate> completedCounts = date -> 0;
+    private Consumer<LocalDate> onDateClick = date -> {};
+
+    public HabitCalendarView() {
+        getStyleClass().add("habit-calendar");
+        getStylesheets().add(HabitCalendarView.class.getResource("/com/example/superplanningapp/styles/HabitCalendar.css").toExternalForm());
+
+        for (int i = 0; i < 7; i++) {
+            Label dayName = new Label(DAYS_OF_WEEK[i]);
+            dayName.getStyleClass().add("habit-calendar-day-name");
+            GridPane.setHalignment(dayName, HPos.CENTER);
+            add(dayName, i, 0);
+        }
+
+        for (int i = 0; i < CELLS; i++) {
+            Button cell = new Button();
+            cell.getStyleClass().add("habit-calendar-cell");
+            cell.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+            int index = i;
+            // Обработчик тоже один на клетку: дату вычисляем по текущему месяцу в момент клика
+            cell.setOnAction(e -> {
+                LocalDate date = dateAt(index);
+                if (date != null) onDateClick.accept(date);
+            });
+            cells[i] = cell;
+            add(cell, i % 7, 1 + i / 7);
+        }
+    }
+
+    public void setDarkTheme(boolean dark) {
+        pseudoClassStateChanged(DARK, dark);
+    }
+
+    public void setOnDateClick(Consumer<LocalDate> handler) {
+        this.onDateClick = handler;
+    }
+
+    // Полное обновление: новый месяц/выбранный день/статистика. Узлы не создаются
+    public void showMonth(YearMonth month, LocalDate selectedDate, int totalHabits, ToIntFunction<LocalDate> completedCounts) {
+        this.month = month;
+        this.selectedDate = selectedDate;
+        this.totalHabits = totalHabits;
+        this.completedCounts = completedCounts;
+        this.offset = month.atDay(1).getDayOfWeek().getValue() - 1;
+
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < CELLS; i++) paintCell(i, today);
+    }
+
+    // Точечное обновление одного дня (после клика по галочке)
+    public void refreshDay(LocalDate date) {
+        if (month == null || !YearMonth.from(date).equals(month)) return;
+        paintCell(offset + date.getDayOfMonth() - 1, LocalDate.now());
+    }
+
+    private LocalDate dateAt(int index) {
+        int day = index - offset + 1;
+        return (month != null && day >= 1 && day <= month.lengthOfMonth()) ? month.atDay(day) : null;
+    }
+
+    private void paintCell(int index, LocalDate today) {
+        Button cell = cells[index];
+        LocalDate date = dateAt(index);
+        int flags = cellFlags(date, selectedDate, today, totalHabits, completedCounts);
+        cell.setText(date == null ? "" : String.valueOf(date.getDayOfMonth()));
+        cell.pseudoClassStateChanged(OUTSIDE, (flags & F_OUTSIDE) != 0);
+        cell.pseudoClassStateChanged(SELECTED, (flags & F_SELECTED) != 0);
+        cell.pseudoClassStateChanged(TODAY, (flags & F_TODAY) != 0);
+        cell.pseudoClassStateChanged(COMPLETE, (flags & F_COMPLETE) != 0);
+        cell.pseudoClassStateChanged(MISSED, (flags & F_MISSED) != 0);
+    }
+
+    // === СОСТОЯНИЕ КЛЕТКИ (без узлов: считается отдельно, см. бенчмарки в src/jmh/java) ===
+    static final int F_OUTSIDE = 1;
+    static final int F_SELECTED = 1 << 1;
+    static final int F_TODAY = 1 << 2;
+    static final int F_COMPLETE = 1 << 3;
+    static final int F_MISSED = 1 << 4;
+
+    // date = null - клетка вне месяца
+    static int cellFlags(LocalDate date, LocalDate selectedDate, LocalDate today, int totalHabits, ToIntFunction<LocalDate> completedCounts) {
+        if (date == null) return F_OUTSIDE;
+
+        boolean selected = date.equals(selectedDate);
+        int flags = selected ? F_SELECTED : (date.equals(today) ? F_TODAY : 0);
+
+        // Цвета успеха (зеленый/красный) - только для прошедших дней и не для выбранного
+        if (totalHabits > 0 && !date.isAfter(today) && !selected) {
+            int completed = completedCounts.applyAsInt(date);
+            if (completed == totalHabits) flags |= F_COMPLETE;
+            else if (completed == 0) flags |= F_MISSED;
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.superplanningapp.habits;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Индекс отметок привычек в памяти: для каждой привычки - битовая маска по дням (бит = epoch day).
+// История пользователя грузится ОДИН раз одним запросом, дальше индекс обновляется на каждом
+// переключении галочки (HabitDAO.toggleHabitCompletion / queueHabitCompletion).
+// Серии, рекорды и процент за неделю считаются по словам long (64 дня за раз) без SQL и без аллокаций.
+// Изменения индекса (загрузка, галочки, удаление) идут под одним замком lock; чтение - без него
+// (byHabit - ConcurrentHashMap, методы Bits синхронизированы).
+public class HabitCompletionIndex {
+
+    // Биты одной привычки: words[i] покрывает дни [(firstWord + i) * 64, (firstWord + i) * 64 + 63]
+    private static class Bits {
+        private long firstWord;
+        private long[] words = new long[0];
+
+        synchronized void set(long day, boolean completed) {
+            long w = Math.floorDiv(day, 64);
+            if (!completed && (w < firstWord || w >= firstWord + words.length)) return;
+            int i = ensureWord(w);
+            long mask = 1L << Math.floorMod(day, 64);
+            if (completed) words[i] |= mask; else words[i] &= ~mask;
+        }
+
+        synchronized boolean get(long day) {
+            long w = Math.floorDiv(day, 64) - firstWord;
+            return w >= 0 && w < words.length && (words[(int) w] & (1L << Math.floorMod(day, 64))) != 0;
+        }
+
+        // Подряд отмеченные дни, заканчивая днем lastDay (идем назад по словам)
+        synchronized int runEndingAt(long lastDay) {
+            long w = Math.floorDiv(lastDay, 64) - firstWord;
+            int bit = Math.floorMod(lastDay, 64);
+            int run = 0;
+            while (w >= 0 && w < words.length) {
+                // Бит lastDay становится старшим, лишние младшие биты заполняются нулями
+                long x = words[(int) w] << (63 - bit);
+                int ones = Long.numberOfLeadingZeros(~x);
+                run += Math.min(ones, bit + 1);
+                if (ones <= bit) break;
+                w--;
+                bit = 63;
+            }
+            return run;
+        }
+
+        synchronized int longestRun() {
+            int best = 0, run = 0;
+            for (long x : words) {
+                if (x == -1L) { run += 64; continue; }
+                // Серия, пришедшая из прошлых слов, заканчивается на младших единицах этого слова
+                int low = Long.numberOfTrailingZeros(~x);
+                best = Math.max(best, run + low);
+                // Серии внутри слова
+                long y = x >>> low;
+                while (y != 0) {
+                    y >>>= Long.numberOfTrailingZeros(y);
+                    int ones = Long.numberOfTrailingZeros(~y);
+                    best = Math.max(best, ones);
+                    y >>>= ones;
+                }
+                // Старшие единицы продолжаются в следующем слове
+                run = Long.numberOfLeadingZeros(~x);
+            }
+            return Math.max(best, run);
+        }
+
+        // Количество отмеченных дней в [from, toExclusive)
+        synchronized int count(long from, long toExclusive) {
+            long start = Math.max(from, firstWord * 64);
+            long end = Math.min(toExclusive, (firstWord + words.length) * 64);
+            int total = 0;
+            for (long day = start; day < end; ) {
+                long w = Math.floorDiv(day, 64);
+                int lo = (int) (day - w * 64);
+                int hi = (int) Math.min(64, end - w * 64); // исключительно
+                long mask = (hi == 64 ? -1L : (1L << hi) - 1) & (-1L << lo);
+                total += Long.bitCount(words[(int) (w - firstWord)] & mask);
+                day = w * 64 + hi;
+            }
+            return total;
+        }
+
+        // Индекс слова w в массиве; массив расширяется в нужную сторону
+        private int ensureWord(long w) {
+            if (words.length == 0) {
+                firstWord = w;
+                words = new long[1];
+            } else if (w < firstWord) {
+                long[] grown = new long[(int) (firstWord + words.length - w)];
+                System.arraycopy(words, 0, grown, (int) (firstWord - w), words.length);
+                words = grown;
+                firstWord = w;
+            } else if (w >= firstWord + words.length) {
+                long[] grown = new long[(int) (w - firstWord + 1)];
+                System.arraycopy(words, 0, grown, 0, words.length);
+                words = grown;
+            }
+            return (int) (w - firstWord);
+        }
+    }
+
+    // id привычки глобально уникален, поэтому индекс общий для всех загруженных пользователей
+    private static final Map<Integer, Bits> byHabit = new ConcurrentHashMap<>();
+    private static final Set<Integer> loadedUsers = ConcurrentHashMap.newKeySet();
+
+    private static final Object lock = new Object();
+    // Пока идет загрузка истории, галочки/удаления записываются сюда и применяются поверх прочитанного:
+    // запрос мог прочитать базу до переключения, и без этого загрузка вернула бы старое состояние
+    private static final List<Runnable> changedDuringLoad = new ArrayList<>();
+    private static int loadsInProgress;
+
+    // Вызывать в фоновом потоке (DbExecutor): при первом обращении читает всю историю пользователя.
+    // Сам запрос идет без замка - UI-поток в это время свободно переключает галочки
+    public static void ensureLoaded(int userId, HabitRepository habits) {
+        if (loadedUsers.contains(userId)) return;
+        synchronized (lock) {
+            loadsInProgress++;
+        }
+        try {
+            Map<Integer, Bits> fresh = new HashMap<>();
+            habits.forEachCompletion(userId, (habitId, date) ->
+                    fresh.computeIfAbsent(habitId, id -> new Bits()).set(date.toEpochDay(), true));
+            synchronized (lock) {
+                byHabit.putAll(fresh);
+                for (Runnable change : changedDuringLoad) change.run();
+                loadedUsers.add(userId);
+            }
+        } finally {
+            synchronized (lock) {
+                if (--loadsInProgress == 0) changedDuringLoad.clear();
+            }
+        }
+    }
+
+    public static boolean isLoaded(int userId) {
+        return loadedUsers.contains(userId);
+    }
+
+    // Инкрементальное обновление после переключения галочки
+    public static void update(int habitId, LocalDate date, boolean completed) {
+        long day = date.toEpochDay();
+        Runnable change = () -> {
+            if (completed) byHabit.computeIfAbsent(habitId, id -> new Bits()).set(day, true);
+            else {
+                Bits bits = byHabit.get(habitId);
+                if (bits != null) bits.set(day, false);
+            }
+        };
+        apply(change);
+    }
+
+    public static void removeHabit(int habitId) {
+        apply(() -> byHabit.remove(habitId));
+    }
+
+    private static void apply(Runnable change) {
+        synchronized (lock) {
+            change.run();
+            if (loadsInProgress > 0) changedDuringLoad.add(change);
+        }
+    }
+
+    // === ЗАПРОСЫ ===
+
+    public static boolean isCompleted(int habitId, LocalDate date) {
+        Bits bits = byHabit.get(habitId);
+        return bits != null && bits.get(date.toEpochDay());
+    }
+
+    // Текущая серия: если сегодня еще не отмечено, серия до вчера не считается прерванной
+    public static int currentStreak(int habitId, LocalDate today) {
+        Bits bits = byHabit.get(habitId);
+        if (bits == null) return 0;
+        long day = today.toEpochDay();
+        return bits.get(day) ? bits.runEndingAt(day) : bits.runEndingAt(day - 1);
+    }
+
+    public static int longestStreak(int habitId) {
+        Bits bits = byHabit.get(habitId);
+        return bits == null ? 0 : bits.longestRun();
+    }
+
+    // Отмеченные дни в [from, toExclusive)
+    public static int countInRange(int habitId, LocalDate from, LocalDate toExclusive) {
+        Bits bits = byHabit.get(habitId);
+        return bits == null ? 0 : bits.count(from.toEpochDay(), toExclusive.toEpochDay());
+    }
+
+    // Доля выполненных дней за последние 7 дней, включая today (0..1)
+    public static double weeklyRate(int habitId, LocalDate today) {
+        return countInRange(habitId, today.minusDays(6), today.plusDays(1)) / 7.0;
+    }
+}
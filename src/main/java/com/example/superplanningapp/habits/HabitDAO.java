@@ -1,29 +1,26 @@
 package com.example.superplanningapp.habits;
 
 import com.example.superplanningapp.DatabaseConnection;
+import com.example.superplanningapp.LocalReplica;
+import com.example.superplanningapp.WriteBehindQueue;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.BiConsumer;
 
 public class HabitDAO {
 
     // --- ОСНОВНЫЕ МЕТОДЫ (Сбор данных) ---
 
     // Получить ВСЕ привычки (глобально) и проверить статус галочки на дату date
+    // Чтение - из локальной реплики, если она готова (LocalReplica), поэтому SQL общий для H2 и PostgreSQL
     public static List<Habit> getHabitsForUser(int userId, LocalDate date) {
         List<Habit> habits = new ArrayList<>();
-        String sql = "SELECT h.id, h.user_id, h.title, h.color, " +
-                "CASE WHEN hc.id IS NOT NULL THEN 1 ELSE 0 END AS is_completed " +
-                "FROM habits h " +
-                "LEFT JOIN habit_completions hc ON h.id = hc.habit_id AND hc.completion_date = ? " +
-                "WHERE h.user_id = ? " +
-                "ORDER BY h.id ASC";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = LocalReplica.readConnection(userId);
+             PreparedStatement pstmt = conn.prepareStatement(HABITS_FOR_USER)) {
 
             pstmt.setDate(1, Date.valueOf(date));
             pstmt.setInt(2, userId);
@@ -31,13 +28,7 @@ public class HabitDAO {
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                habits.add(new Habit(
-                        rs.getInt("id"),
-                        rs.getInt("user_id"),
-                        rs.getString("title"),
-                        rs.getString("color"),
-                        rs.getInt("is_completed") > 0
-                ));
+                habits.add(mapHabit(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -45,12 +36,30 @@ public class HabitDAO {
         return habits;
     }
 
+    // Отдельной константой - тот же запрос гоняет бенчмарк на H2 (src/jmh/java)
+    static final String HABITS_FOR_USER = "SELECT h.id, h.user_id, h.title, h.color, " +
+            "CASE WHEN hc.habit_id IS NOT NULL THEN 1 ELSE 0 END AS is_completed " +
+            "FROM habits h " +
+            "LEFT JOIN habit_completions hc ON h.id = hc.habit_id AND hc.completion_date = ? " +
+            "WHERE h.user_id = ? " +
+            "ORDER BY h.id ASC";
+
+    static Habit mapHabit(ResultSet rs) throws SQLException {
+        return new Habit(
+                rs.getInt("id"),
+                rs.getInt("user_id"),
+                rs.getString("title"),
+                rs.getString("color"),
+                rs.getInt("is_completed") > 0
+        );
+    }
+
     // --- НОВЫЕ МЕТОДЫ ДЛЯ ПОДСВЕТКИ КАЛЕНДАРЯ ---
 
     // 1. Узнать, сколько всего привычек у пользователя (знаменатель для %)
     public static int getTotalHabitsCount(int userId) {
         String sql = "SELECT COUNT(*) FROM habits WHERE user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = LocalReplica.readConnection(userId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
@@ -61,58 +70,105 @@ public class HabitDAO {
         return 0;
     }
 
-    // 2. Получить статистику выполнений за весь месяц сразу (Map: День -> Кол-во выполненных)
-    public static Map<Integer, Integer> getMonthlyCompletionCounts(int userId, int year, int month) {
-        Map<Integer, Integer> stats = new HashMap<>();
-        // Группируем по дням: берем день из даты и считаем количество записей
-        String sql = "SELECT EXTRACT(DAY FROM completion_date) as day_num, COUNT(*) as completed_count " +
+    // 2. Тепловая карта выполнений: сколько отметок у пользователя в каждый день диапазона [from, to)
+    // Фильтр по диапазону дат (а не EXTRACT(YEAR/MONTH ...)) использует индекс по (habit_id, completion_date)
+    // и читает только нужный период, а не всю историю пользователя.
+    // Возвращает плотный массив: counts[i] - отметки за день from.plusDays(i)
+    public static int[] getDailyCompletionCounts(int userId, LocalDate from, LocalDate toExclusive) {
+        int[] counts = new int[(int) ChronoUnit.DAYS.between(from, toExclusive)];
+        String sql = "SELECT hc.completion_date, COUNT(*) AS completed_count " +
                 "FROM habit_completions hc " +
                 "JOIN habits h ON hc.habit_id = h.id " +
-                "WHERE h.user_id = ? AND EXTRACT(YEAR FROM completion_date) = ? AND EXTRACT(MONTH FROM completion_date) = ? " +
-                "GROUP BY day_num";
+                "WHERE h.user_id = ? AND hc.completion_date >= ? AND hc.completion_date < ? " +
+                "GROUP BY hc.completion_date";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = LocalReplica.readConnection(userId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
-            pstmt.setInt(2, year);
-            pstmt.setInt(3, month);
+            pstmt.setDate(2, Date.valueOf(from));
+            pstmt.setDate(3, Date.valueOf(toExclusive));
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                stats.put(rs.getInt("day_num"), rs.getInt("completed_count"));
+                LocalDate day = rs.getDate("completion_date").toLocalDate();
+                counts[(int) ChronoUnit.DAYS.between(from, day)] = rs.getInt("completed_count");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
+    // Месяц: индекс = день месяца - 1
+    public static int[] getMonthHeatmap(int userId, YearMonth month) {
+        return getDailyCompletionCounts(userId, month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    // Год: индекс = день года - 1 (date.getDayOfYear() - 1)
+    public static int[] getYearHeatmap(int userId, int year) {
+        return getDailyCompletionCounts(userId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+    }
+
+    // 3. Вся история отметок пользователя (для HabitCompletionIndex): одна строка = (habitId, дата)
+    public static void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action) {
+        String sql = "SELECT hc.habit_id, hc.completion_date " +
+                "FROM habit_completions hc " +
+                "JOIN habits h ON hc.habit_id = h.id " +
+                "WHERE h.user_id = ?";
+
+        try (Connection conn = LocalReplica.readConnection(userId);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                action.accept(rs.getInt("habit_id"), rs.getDate("completion_date").toLocalDate());
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return stats;
     }
 
     // --- CRUD ОПЕРАЦИИ ---
 
     public static void createHabit(int userId, String title) {
-        String sql = "INSERT INTO habits (user_id, title, color) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO habits (user_id, title, color) VALUES (?, ?, ?) RETURNING id";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             pstmt.setString(2, title);
             pstmt.setString(3, "blue");
-            pstmt.executeUpdate();
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                int id = rs.getInt(1);
+                LocalReplica.mirror("MERGE INTO habits (id, user_id, title, color) KEY(id) VALUES (?, ?, ?, ?)", p -> {
+                    p.setInt(1, id);
+                    p.setInt(2, userId);
+                    p.setString(3, title);
+                    p.setString(4, "blue");
+                });
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public static void deleteHabit(int habitId) {
+        flushPendingWrites();
         String sql = "DELETE FROM habits WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, habitId);
             pstmt.executeUpdate();
+            HabitCompletionIndex.removeHabit(habitId);
+            LocalReplica.mirror("DELETE FROM habit_completions WHERE habit_id = ?", p -> p.setInt(1, habitId));
+            LocalReplica.mirror(sql, p -> p.setInt(1, habitId));
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public static void toggleHabitCompletion(int habitId, LocalDate date, boolean completed) {
+        flushPendingWrites();
+        HabitCompletionIndex.update(habitId, date, completed);
         if (completed) {
             String sql = "INSERT INTO habit_completions (habit_id, completion_date) VALUES (?, ?) ON CONFLICT DO NOTHING";
             try (Connection conn = DatabaseConnection.getConnection();
@@ -120,6 +176,7 @@ public class HabitDAO {
                 pstmt.setInt(1, habitId);
                 pstmt.setDate(2, Date.valueOf(date));
                 pstmt.executeUpdate();
+                mirrorCompletion(habitId, date, true, false);
             } catch (SQLException e) { e.printStackTrace(); }
         } else {
             String sql = "DELETE FROM habit_completions WHERE habit_id = ? AND completion_date = ?";
@@ -128,7 +185,43 @@ public class HabitDAO {
                 pstmt.setInt(1, habitId);
                 pstmt.setDate(2, Date.valueOf(date));
                 pstmt.executeUpdate();
+                mirrorCompletion(habitId, date, false, false);
             } catch (SQLException e) { e.printStackTrace(); }
         }
     }
-}
\ No newline at end of file
+
+    // Отложенная версия: быстрые клики вкл/выкл по одной галочке схлопываются в одну запись
+    public static void queueHabitCompletion(int habitId, LocalDate date, boolean completed) {
+        String sql = completed
+                ? "INSERT INTO habit_completions (habit_id, completion_date) VALUES (?, ?) ON CONFLICT DO NOTHING"
+                : "DELETE FROM habit_completions WHERE habit_id = ? AND completion_date = ?";
+        // Индекс в памяти обновляем сразу, не дожидаясь записи в базу
+        HabitCompletionIndex.update(habitId, date, completed);
+        // Реплика тоже сразу (в потоке записи реплики - метод вызывается из UI-потока):
+        // галочка переживает перезапуск, даже если очередь еще ждет сети
+        mirrorCompletion(habitId, date, completed, true);
+        WriteBehindQueue.enqueue("habit-completion:" + habitId + ":" + date, sql, p -> {
+            p.setInt(1, habitId);
+            p.setDate(2, Date.valueOf(date));
+        });
+    }
+
+    // Та же отметка в локальной реплике (в H2 нет ON CONFLICT - используется MERGE).
+    // async - не ждать записи (вызов из UI-потока)
+    private static void mirrorCompletion(int habitId, LocalDate date, boolean completed, boolean async) {
+        String sql = completed
+                ? "MERGE INTO habit_completions (habit_id, completion_date) KEY(habit_id, completion_date) VALUES (?, ?)"
+                : "DELETE FROM habit_completions WHERE habit_id = ? AND completion_date = ?";
+        WriteBehindQueue.Binder binder = p -> {
+            p.setInt(1, habitId);
+            p.setDate(2, Date.valueOf(date));
+        };
+        if (async) LocalReplica.mirrorAsync(sql, binder);
+        else LocalReplica.mirror(sql, binder);
+    }
+
+    // Перед прямой записью отметок дописываем очередь (порядок изменений сохраняется)
+    private static void flushPendingWrites() {
+        try { WriteBehindQueue.flush(); } catch (SQLException e) { System.err.println("Не удалось сбросить отложенные записи: " + e.getMessage()); }
+    }
+}
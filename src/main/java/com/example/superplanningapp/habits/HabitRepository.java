@@ -0,0 +1,39 @@
+package com.example.superplanningapp.habits;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Привычки и их отметки.
+// Реализации: JdbcHabitRepository (HabitDAO), CachingHabitRepository, InMemoryHabitRepository (нагрузочные тесты).
+public interface HabitRepository {
+
+    // Все привычки пользователя + выполнена ли каждая в день date
+    List<Habit> getHabitsForUser(int userId, LocalDate date);
+
+    int getTotalHabitsCount(int userId);
+
+    // counts[i] - отметки за день from.plusDays(i)
+    int[] getDailyCompletionCounts(int userId, LocalDate from, LocalDate toExclusive);
+
+    // Вся история отметок пользователя (habitId, дата)
+    void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action);
+
+    void createHabit(int userId, String title);
+
+    void deleteHabit(int habitId);
+
+    // Отложенная запись галочки (схлопывается с повторными кликами по тому же дню)
+    void queueHabitCompletion(int habitId, LocalDate date, boolean completed);
+
+    // Месяц: индекс = день месяца - 1
+    default int[] getMonthHeatmap(int userId, YearMonth month) {
+        return getDailyCompletionCounts(userId, month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    // Год: индекс = день года - 1
+    default int[] getYearHeatmap(int userId, int year) {
+        return getDailyCompletionCounts(userId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+    }
+}
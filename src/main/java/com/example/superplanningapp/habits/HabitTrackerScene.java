@@ -1,5 +1,6 @@
 package com.example.superplanningapp.habits;
 
+import com.example.superplanningapp.DbExecutor;
 import com.example.superplanningapp.MenuScene;
 import com.example.superplanningapp.User;
 import javafx.application.Platform;
@@ -10,42 +11,49 @@ import javafx.scene.layout.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class HabitTrackerScene {
 
     private static User currentUser;
+    private static HabitRepository habitRepository;
     private static YearMonth currentYearMonth;
     private static LocalDate selectedDate;
 
     // === UI ЭЛЕМЕНТЫ ===
     private static Label monthYearLabel;
-    private static GridPane calendarGrid;
+    private static HabitCalendarView calendarGrid;
     private static VBox habitsListContainer;
     private static Label progressPercentLabel;
     private static Label progressCountLabel;
+    private static Label weeklyRateLabel;
     private static StackPane contentStack;
     private static ProgressIndicator loadingSpinner;
+    private static Label heatmapTitle;
+    private static GridPane heatmapGrid;
+    private static Region[] heatmapCells; // по ячейке на день года: индекс = dayOfYear - 1
 
     // === КЭШ ДАННЫХ (ЧТОБЫ НЕ ГРУЗИТЬ БАЗУ ЛИШНИЙ РАЗ) ===
-    private static Map<Integer, Integer> cachedMonthlyStats = null;
+    // Отметки по дням всего года (индекс = dayOfYear - 1). Из него же берется статистика месяца,
+    // поэтому листание месяцев внутри года не ходит в базу за статистикой
+    private static int[] cachedYearStats = null;
+    private static int cachedYear = 0;
     private static int cachedTotalHabits = 0;
     private static YearMonth cachedMonth = null; // Какой месяц сейчас в памяти
     private static List<Habit> currentHabitsList; // Текущий список привычек
 
     private static boolean isLoading = false;
 
-    public static BorderPane createHabitsView(User user) {
+    public static BorderPane createHabitsView(User user, HabitRepository habits) {
         currentUser = user;
+        habitRepository = habits;
         currentYearMonth = YearMonth.now();
         selectedDate = LocalDate.now();
 
         // Сбрасываем кэш при открытии страницы
-        cachedMonthlyStats = null;
+        cachedYearStats = null;
         cachedMonth = null;
 
         BorderPane mainLayout = new BorderPane();
@@ -55,7 +63,9 @@ public class HabitTrackerScene {
         mainLayout.setTop(topSection);
 
         // --- КАЛЕНДАРЬ ---
-        calendarGrid = new GridPane();
+        calendarGrid = new HabitCalendarView();
+        calendarGrid.setDarkTheme(MenuScene.isDarkTheme);
+        calendarGrid.setOnDateClick(HabitTrackerScene::handleDateClick);
         calendarGrid.setAlignment(Pos.CENTER);
         calendarGrid.setHgap(10);
         calendarGrid.setVgap(10);
@@ -68,7 +78,10 @@ public class HabitTrackerScene {
         habitsListContainer = new VBox(15);
         habitsListContainer.setPadding(new Insets(20));
 
-        VBox contentBox = new VBox(20, calendarGrid, habitsListContainer);
+        // --- ГОДОВАЯ ТЕПЛОВАЯ КАРТА ---
+        VBox heatmapBox = createHeatmapSection(cardBg);
+
+        VBox contentBox = new VBox(20, calendarGrid, heatmapBox, habitsListContainer);
         contentBox.setPadding(new Insets(20));
         contentBox.setAlignment(Pos.TOP_CENTER);
         contentBox.setStyle("-fx-background-color: transparent;");
@@ -93,8 +106,8 @@ public class HabitTrackerScene {
 
     /**
      * Умная загрузка данных.
-     * @param forceMonthReload - Если true, то перекачиваем статистику за весь месяц (при смене месяца).
-     * Если false, то качаем только список привычек на день (при клике на дату).
+     * @param forceMonthReload - Если true, то перекачиваем статистику за весь год (после создания/удаления привычки).
+     * Если false, то статистика берется из кэша года, а качаем только нужное для дня/месяца.
      */
     private static void loadData(boolean forceMonthReload) {
         if (isLoading) return;
@@ -109,22 +122,29 @@ public class HabitTrackerScene {
         if (needToFetchMonth) {
             // === СЦЕНАРИЙ 1: СМЕНА МЕСЯЦА (Грузим всё ПАРАЛЛЕЛЬНО) ===
             cachedMonth = currentYearMonth;
+            int year = currentYearMonth.getYear();
+            boolean needToFetchYear = forceMonthReload || cachedYearStats == null || cachedYear != year;
 
-            // Запускаем 3 задачи одновременно
-            CompletableFuture<Integer> totalFuture = CompletableFuture.supplyAsync(() ->
-                    HabitDAO.getTotalHabitsCount(currentUser.getId())
-            );
-            CompletableFuture<Map<Integer, Integer>> statsFuture = CompletableFuture.supplyAsync(() ->
-                    HabitDAO.getMonthlyCompletionCounts(currentUser.getId(), currentYearMonth.getYear(), currentYearMonth.getMonthValue())
+            // Запускаем задачи одновременно. Статистика всего года - один запрос, и только если год сменился
+            CompletableFuture<Integer> totalFuture = DbExecutor.supply(() ->
+                    habitRepository.getTotalHabitsCount(currentUser.getId())
             );
-            CompletableFuture<List<Habit>> habitsFuture = CompletableFuture.supplyAsync(() ->
-                    HabitDAO.getHabitsForUser(currentUser.getId(), selectedDate)
+            CompletableFuture<int[]> statsFuture = needToFetchYear
+                    ? DbExecutor.supply(() -> habitRepository.getYearHeatmap(currentUser.getId(), year))
+                    : CompletableFuture.completedFuture(cachedYearStats);
+            CompletableFuture<List<Habit>> habitsFuture = DbExecutor.supply(() ->
+                    habitRepository.getHabitsForUser(currentUser.getId(), selectedDate)
             );
+            // История для серий грузится один раз за сессию, дальше индекс обновляется на каждом клике
+            CompletableFuture<Void> indexFuture = HabitCompletionIndex.isLoaded(currentUser.getId())
+                    ? CompletableFuture.completedFuture(null)
+                    : DbExecutor.run(() -> HabitCompletionIndex.ensureLoaded(currentUser.getId(), habitRepository));
 
-            future = CompletableFuture.allOf(totalFuture, statsFuture, habitsFuture).thenRun(() -> {
+            future = CompletableFuture.allOf(totalFuture, statsFuture, habitsFuture, indexFuture).thenRun(() -> {
                 try {
                     cachedTotalHabits = totalFuture.get();
-                    cachedMonthlyStats = statsFuture.get();
+                    cachedYearStats = statsFuture.get();
+                    cachedYear = year;
                     currentHabitsList = habitsFuture.get();
                 } catch (Exception e) { e.printStackTrace(); }
             });
@@ -132,7 +152,7 @@ public class HabitTrackerScene {
         } else {
             // === СЦЕНАРИЙ 2: СМЕНА ДНЯ (Грузим только список) ===
             // Статистику не трогаем, она в кэше!
-            future = CompletableFuture.supplyAsync(() -> HabitDAO.getHabitsForUser(currentUser.getId(), selectedDate))
+            future = DbExecutor.supply(() -> habitRepository.getHabitsForUser(currentUser.getId(), selectedDate))
                     .thenAccept(habits -> currentHabitsList = habits)
                     .thenRun(() -> {}); // Пустышка для совместимости типов
         }
@@ -140,8 +160,10 @@ public class HabitTrackerScene {
         // Когда всё загрузилось, обновляем UI
         future.thenRun(() -> Platform.runLater(() -> {
             updateCalendarUI(); // Перерисовка календаря теперь использует кэш и работает мгновенно
+            updateHeatmapUI();
             updateHabitListUI();
             recalculateStatisticsLocally();
+            updateWeeklyRate();
             loadingSpinner.setVisible(false);
             isLoading = false;
         }));
@@ -155,69 +177,17 @@ public class HabitTrackerScene {
     }
 
     private static void updateCalendarUI() {
-        calendarGrid.getChildren().clear();
         updateMonthLabel();
+        // Клетки календаря уже созданы - меняется только их текст и состояние
+        calendarGrid.showMonth(currentYearMonth, selectedDate, cachedTotalHabits, HabitTrackerScene::completedCountOn);
+    }
 
-        // Используем кэшированные данные
-        Map<Integer, Integer> monthlyStats = (cachedMonthlyStats != null) ? cachedMonthlyStats : Collections.emptyMap();
-        int totalHabits = cachedTotalHabits;
-
-        String dayNameColor = MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_SEC_DARK : "#6b778c";
-        String defaultText = MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_MAIN_DARK : "black";
-        String[] daysOfWeek = {"Пн", "Вт", "Ср", "Чт", "Пт", "Сб", "Вс"};
-
-        for (int i = 0; i < 7; i++) {
-            Label dayName = new Label(daysOfWeek[i]);
-            dayName.setStyle("-fx-text-fill: " + dayNameColor + "; -fx-font-weight: bold;");
-            GridPane.setHalignment(dayName, javafx.geometry.HPos.CENTER);
-            calendarGrid.add(dayName, i, 0);
-        }
-
-        LocalDate firstOfMonth = currentYearMonth.atDay(1);
-        int dayOfWeekOffset = firstOfMonth.getDayOfWeek().getValue() - 1;
-        if (dayOfWeekOffset < 0) dayOfWeekOffset = 6;
-        int daysInMonth = currentYearMonth.lengthOfMonth();
-        LocalDate today = LocalDate.now();
-
-        int row = 1; int col = dayOfWeekOffset;
-        for (int day = 1; day <= daysInMonth; day++) {
-            LocalDate date = currentYearMonth.atDay(day);
-            Button dayBtn = new Button(String.valueOf(day));
-            dayBtn.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
-
-            String baseStyle = "-fx-background-color: transparent; -fx-text-fill: " + defaultText + "; -fx-cursor: hand; -fx-background-radius: 5;";
-            int completedCount = monthlyStats.getOrDefault(day, 0);
-            String style = baseStyle;
-
-            // Логика выделения
-            if (date.equals(selectedDate)) {
-                // Выбранный день
-                style = "-fx-background-color: transparent; -fx-text-fill: " + MenuScene.Theme.ACCENT + "; -fx-border-color: " + MenuScene.Theme.ACCENT + "; -fx-border-radius: 5; -fx-font-weight: bold;";
-            } else if (date.equals(today)) {
-                style += "-fx-font-weight: bold; -fx-underline: true;";
-            }
-
-            // Логика цветов успеха (зеленый/красный)
-            if (totalHabits > 0 && !date.isAfter(today) && !date.equals(selectedDate)) {
-                if (completedCount == totalHabits) {
-                    style = "-fx-background-color: #0f5132; -fx-text-fill: #d1e7dd; -fx-background-radius: 5;";
-                    if (!MenuScene.isDarkTheme) style = "-fx-background-color: #d1e7dd; -fx-text-fill: #0f5132; -fx-background-radius: 5;";
-                } else if (completedCount == 0) {
-                    style = "-fx-background-color: #842029; -fx-text-fill: #f8d7da; -fx-background-radius: 5;";
-                    if (!MenuScene.isDarkTheme) style = "-fx-background-color: #f8d7da; -fx-text-fill: #842029; -fx-background-radius: 5;";
-                }
-            }
-
-            dayBtn.setStyle(style);
-            dayBtn.setOnAction(e -> handleDateClick(date)); // Вызываем быстрый обработчик
-            calendarGrid.add(dayBtn, col, row);
-
-            col++;
-            if (col > 6) { col = 0; row++; }
-        }
+    // Сколько привычек отмечено в день date (из кэша года)
+    private static int completedCountOn(LocalDate date) {
+        return (cachedYearStats != null && date.getYear() == cachedYear) ? cachedYearStats[date.getDayOfYear() - 1] : 0;
     }
 
-    private static void handleToggleOptimistic(Habit habit, Button checkBox, HBox row, Label title) {
+    private static void handleToggleOptimistic(Habit habit, Button checkBox, HBox row, Label title, Label streakLabel) {
         boolean isNowCompleted = !habit.isCompletedOnSelectedDate();
         habit.setCompletedOnSelectedDate(isNowCompleted);
 
@@ -235,14 +205,41 @@ public class HabitTrackerScene {
         recalculateStatisticsLocally();
 
         // Обновляем кэш статистики в памяти (чтобы календарь не врал, если мы переключим день туда-сюда)
-        if (cachedMonthlyStats != null) {
-            int day = selectedDate.getDayOfMonth();
-            int currentCount = cachedMonthlyStats.getOrDefault(day, 0);
-            cachedMonthlyStats.put(day, isNowCompleted ? currentCount + 1 : Math.max(0, currentCount - 1));
-            // Календарь не перерисовываем сразу, чтобы не моргал, он обновится при следующем клике
+        if (cachedYearStats != null && selectedDate.getYear() == cachedYear) {
+            int index = selectedDate.getDayOfYear() - 1;
+            cachedYearStats[index] = isNowCompleted ? cachedYearStats[index] + 1 : Math.max(0, cachedYearStats[index] - 1);
+            // Перекрашиваем только одну клетку календаря и тепловой карты
+            calendarGrid.refreshDay(selectedDate);
+            paintHeatmapCell(index);
         }
 
-        CompletableFuture.runAsync(() -> HabitDAO.toggleHabitCompletion(habit.getId(), selectedDate, isNowCompleted));
+        // Отложенная запись: частые клики по галочке схлопываются в одну операцию
+        habitRepository.queueHabitCompletion(habit.getId(), selectedDate, isNowCompleted);
+
+        // Индекс уже обновлен - серии пересчитываются мгновенно, без запроса
+        updateStreakLabel(streakLabel, habit);
+        updateWeeklyRate();
+    }
+
+    // Серии и неделя считаются от сегодняшнего дня, а не от выбранной даты
+    private static void updateStreakLabel(Label label, Habit habit) {
+        LocalDate today = LocalDate.now();
+        int streak = HabitCompletionIndex.currentStreak(habit.getId(), today);
+        int longest = HabitCompletionIndex.longestStreak(habit.getId());
+        int week = HabitCompletionIndex.countInRange(habit.getId(), today.minusDays(6), today.plusDays(1));
+        label.setText("🔥 " + streak + " дн. подряд · рекорд " + longest + " · " + week + "/7 за неделю");
+    }
+
+    // Средний процент выполнения за последние 7 дней по всем привычкам
+    private static void updateWeeklyRate() {
+        if (currentHabitsList == null || currentHabitsList.isEmpty()) {
+            weeklyRateLabel.setText("0%");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        double sum = 0;
+        for (Habit habit : currentHabitsList) sum += HabitCompletionIndex.weeklyRate(habit.getId(), today);
+        weeklyRateLabel.setText(Math.round(sum * 100 / currentHabitsList.size()) + "%");
     }
 
     private static void recalculateStatisticsLocally() {
@@ -305,14 +302,19 @@ public class HabitTrackerScene {
                 title.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: " + (MenuScene.isDarkTheme ? "#555" : "#aaa") + ";");
             }
 
-            checkBox.setOnAction(e -> handleToggleOptimistic(habit, checkBox, habitRow, title));
+            Label streakLabel = new Label();
+            streakLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: " + (MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_SEC_DARK : "#6b778c") + ";");
+            updateStreakLabel(streakLabel, habit);
+            VBox titleBox = new VBox(2, title, streakLabel);
+
+            checkBox.setOnAction(e -> handleToggleOptimistic(habit, checkBox, habitRow, title, streakLabel));
 
             Region spacer = new Region(); HBox.setHgrow(spacer, Priority.ALWAYS);
             Button deleteBtn = new Button("🗑");
             deleteBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: " + MenuScene.Theme.ERROR + "; -fx-cursor: hand; -fx-font-size: 14px;");
             deleteBtn.setOnAction(e -> handleDelete(habit));
 
-            habitRow.getChildren().addAll(checkBox, title, spacer, deleteBtn);
+            habitRow.getChildren().addAll(checkBox, titleBox, spacer, deleteBtn);
             habitsListContainer.getChildren().add(habitRow);
         }
     }
@@ -320,7 +322,7 @@ public class HabitTrackerScene {
     private static void handleDelete(Habit habit) {
         if (isLoading) return;
         loadingSpinner.setVisible(true);
-        CompletableFuture.runAsync(() -> HabitDAO.deleteHabit(habit.getId()))
+        DbExecutor.run(() -> habitRepository.deleteHabit(habit.getId()))
                 .thenRun(() -> Platform.runLater(() -> loadData(true))); // Тут нужен полный релоад, чтобы обновить статистику
     }
 
@@ -341,7 +343,7 @@ public class HabitTrackerScene {
         dialog.showAndWait().ifPresent(name -> {
             if (!name.trim().isEmpty()) {
                 loadingSpinner.setVisible(true);
-                CompletableFuture.runAsync(() -> HabitDAO.createHabit(currentUser.getId(), name.trim()))
+                DbExecutor.run(() -> habitRepository.createHabit(currentUser.getId(), name.trim()))
                         .thenRun(() -> Platform.runLater(() -> loadData(true)));
             }
         });
@@ -362,7 +364,7 @@ public class HabitTrackerScene {
         prevMonthBtn.setStyle(navBtnStyle);
         prevMonthBtn.setOnAction(e -> {
             currentYearMonth = currentYearMonth.minusMonths(1);
-            loadData(true); // Смена месяца - полная загрузка
+            loadData(false); // Смена месяца: статистика года уже в кэше (если год тот же)
         });
 
         monthYearLabel = new Label();
@@ -373,7 +375,7 @@ public class HabitTrackerScene {
         nextMonthBtn.setStyle(navBtnStyle);
         nextMonthBtn.setOnAction(e -> {
             currentYearMonth = currentYearMonth.plusMonths(1);
-            loadData(true); // Смена месяца - полная загрузка
+            loadData(false); // Смена месяца: статистика года уже в кэше (если год тот же)
         });
 
         Region spacer = new Region(); HBox.setHgrow(spacer, Priority.ALWAYS);
@@ -386,15 +388,19 @@ public class HabitTrackerScene {
 
         HBox statsBox = new HBox(40);
         statsBox.setAlignment(Pos.CENTER);
-        VBox stat1 = createStatCard("ПРОГРЕСС ЗА ДЕНЬ", true);
-        VBox stat2 = createStatCard("ВЫПОЛНЕНО СЕГОДНЯ", false);
-        statsBox.getChildren().addAll(stat1, stat2);
+        progressPercentLabel = new Label("...");
+        progressCountLabel = new Label("...");
+        weeklyRateLabel = new Label("...");
+        VBox stat1 = createStatCard("ПРОГРЕСС ЗА ДЕНЬ", progressPercentLabel);
+        VBox stat2 = createStatCard("ВЫПОЛНЕНО СЕГОДНЯ", progressCountLabel);
+        VBox stat3 = createStatCard("ЗА 7 ДНЕЙ", weeklyRateLabel);
+        statsBox.getChildren().addAll(stat1, stat2, stat3);
 
         root.getChildren().addAll(header, statsBox);
         return root;
     }
 
-    private static VBox createStatCard(String title, boolean isPercent) {
+    private static VBox createStatCard(String title, Label valueLabel) {
         VBox box = new VBox(5);
         box.setAlignment(Pos.CENTER);
         box.setPadding(new Insets(15, 30, 15, 30));
@@ -402,18 +408,86 @@ public class HabitTrackerScene {
         String subTextColor = MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_SEC_DARK : "#6b778c";
         box.setStyle("-fx-background-color: " + cardBg + "; -fx-background-radius: 8;");
 
-        Label valueLabel = new Label("...");
         valueLabel.setStyle("-fx-font-size: 28px; -fx-font-weight: bold; -fx-text-fill: #0079bf;");
 
         Label titleLabel = new Label(title);
         titleLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: " + subTextColor + "; -fx-font-weight: bold;");
 
-        if (isPercent) progressPercentLabel = valueLabel;
-        else progressCountLabel = valueLabel;
         box.getChildren().addAll(valueLabel, titleLabel);
         return box;
     }
 
+    // ==========================================
+    // ГОДОВАЯ ТЕПЛОВАЯ КАРТА
+    // ==========================================
+    // Колонка = неделя, строка = день недели (как в календаре, с понедельника)
+
+    private static VBox createHeatmapSection(String cardBg) {
+        heatmapTitle = new Label();
+        heatmapTitle.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: " + MenuScene.getTextStyle() + ";");
+
+        heatmapGrid = new GridPane();
+        heatmapGrid.setHgap(3);
+        heatmapGrid.setVgap(3);
+        heatmapGrid.setAlignment(Pos.CENTER);
+
+        VBox box = new VBox(10, heatmapTitle, heatmapGrid);
+        box.setAlignment(Pos.CENTER);
+        box.setPadding(new Insets(15));
+        box.setStyle("-fx-background-color: " + cardBg + "; -fx-background-radius: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 1);");
+        return box;
+    }
+
+    // Клетки пересоздаются только при смене года, иначе лишь перекрашиваются
+    private static void updateHeatmapUI() {
+        if (cachedYearStats == null) return;
+        heatmapTitle.setText("Выполнение привычек за " + cachedYear + " год");
+
+        // В userData сетки храним год, для которого построены клетки
+        if (heatmapCells == null || !Integer.valueOf(cachedYear).equals(heatmapGrid.getUserData())) {
+            heatmapGrid.getChildren().clear();
+            heatmapCells = new Region[cachedYearStats.length];
+            LocalDate firstDay = LocalDate.of(cachedYear, 1, 1);
+            int offset = firstDay.getDayOfWeek().getValue() - 1;
+            for (int i = 0; i < heatmapCells.length; i++) {
+                LocalDate date = firstDay.plusDays(i);
+                Region cell = new Region();
+                cell.setMinSize(11, 11);
+                cell.setPrefSize(11, 11);
+                cell.setOnMouseClicked(e -> handleHeatmapClick(date));
+                heatmapCells[i] = cell;
+                heatmapGrid.add(cell, (i + offset) / 7, (i + offset) % 7);
+            }
+            heatmapGrid.setUserData(cachedYear);
+        }
+        for (int i = 0; i < heatmapCells.length; i++) paintHeatmapCell(i);
+    }
+
+    private static void paintHeatmapCell(int index) {
+        if (heatmapCells == null || index >= heatmapCells.length) return;
+        int count = cachedYearStats[index];
+        String color;
+        if (count == 0 || cachedTotalHabits == 0) {
+            color = MenuScene.isDarkTheme ? "#2d333b" : "#ebedf0";
+        } else {
+            // 4 уровня насыщенности по доле выполненных привычек
+            double ratio = Math.min(1.0, (double) count / cachedTotalHabits);
+            if (ratio < 0.34) color = "#9be9a8";
+            else if (ratio < 0.67) color = "#40c463";
+            else if (ratio < 1.0) color = "#30a14e";
+            else color = "#216e39";
+        }
+        heatmapCells[index].setStyle("-fx-background-color: " + color + "; -fx-background-radius: 2; -fx-cursor: hand;");
+    }
+
+    // Клик по клетке - переходим к этому дню в календаре
+    private static void handleHeatmapClick(LocalDate date) {
+        if (isLoading) return;
+        selectedDate = date;
+        currentYearMonth = YearMonth.from(date);
+        loadData(false);
+    }
+
     private static void updateMonthLabel() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("LLLL yyyy", new Locale("ru"));
         String monthText = currentYearMonth.format(formatter);
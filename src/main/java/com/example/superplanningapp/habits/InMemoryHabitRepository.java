@@ -0,0 +1,83 @@
+package com.example.superplanningapp.habits;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+// Привычки и отметки в памяти (нагрузочные тесты и бенчмарки без базы).
+// Как и HabitDAO, обновляет HabitCompletionIndex при переключении галочки и удалении привычки
+public class InMemoryHabitRepository implements HabitRepository {
+
+    // TreeMap - тот же порядок по id, что и ORDER BY h.id в HabitDAO
+    private final Map<Integer, Habit> habits = new TreeMap<>();
+    private final Map<Integer, Set<LocalDate>> completions = new TreeMap<>();
+    private int nextId = 1;
+
+    @Override
+    public synchronized List<Habit> getHabitsForUser(int userId, LocalDate date) {
+        List<Habit> result = new ArrayList<>();
+        for (Habit h : habits.values()) {
+            if (h.getUserId() != userId) continue;
+            boolean done = completions.getOrDefault(h.getId(), Set.of()).contains(date);
+            result.add(new Habit(h.getId(), h.getUserId(), h.getTitle(), h.getColor(), done));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int getTotalHabitsCount(int userId) {
+        int count = 0;
+        for (Habit h : habits.values()) if (h.getUserId() == userId) count++;
+        return count;
+    }
+
+    @Override
+    public synchronized int[] getDailyCompletionCounts(int userId, LocalDate from, LocalDate toExclusive) {
+        int[] counts = new int[(int) ChronoUnit.DAYS.between(from, toExclusive)];
+        for (Habit h : habits.values()) {
+            if (h.getUserId() != userId) continue;
+            for (LocalDate day : completions.getOrDefault(h.getId(), Set.of())) {
+                if (!day.isBefore(from) && day.isBefore(toExclusive)) counts[(int) ChronoUnit.DAYS.between(from, day)]++;
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action) {
+        for (Habit h : habits.values()) {
+            if (h.getUserId() != userId) continue;
+            for (LocalDate day : completions.getOrDefault(h.getId(), Set.of())) action.accept(h.getId(), day);
+        }
+    }
+
+    @Override
+    public synchronized void createHabit(int userId, String title) {
+        Habit habit = new Habit(nextId++, userId, title, "blue", false);
+        habits.put(habit.getId(), habit);
+    }
+
+    @Override
+    public synchronized void deleteHabit(int habitId) {
+        habits.remove(habitId);
+        completions.remove(habitId);
+        HabitCompletionIndex.removeHabit(habitId);
+    }
+
+    @Override
+    public synchronized void queueHabitCompletion(int habitId, LocalDate date, boolean completed) {
+        HabitCompletionIndex.update(habitId, date, completed);
+        if (!habits.containsKey(habitId)) return;
+        if (completed) completions.computeIfAbsent(habitId, k -> new HashSet<>()).add(date);
+        else {
+            Set<LocalDate> days = completions.get(habitId);
+            if (days != null) days.remove(date);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.superplanningapp.habits;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Репозиторий поверх HabitDAO (PostgreSQL + локальная реплика)
+public class JdbcHabitRepository implements HabitRepository {
+
+    @Override
+    public List<Habit> getHabitsForUser(int userId, LocalDate date) {
+        return HabitDAO.getHabitsForUser(userId, date);
+    }
+
+    @Override
+    public int getTotalHabitsCount(int userId) {
+        return HabitDAO.getTotalHabitsCount(userId);
+    }
+
+    @Override
+    public int[] getDailyCompletionCounts(int userId, LocalDate from, LocalDate toExclusive) {
+        return HabitDAO.getDailyCompletionCounts(userId, from, toExclusive);
+    }
+
+    @Override
+    public void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action) {
+        HabitDAO.forEachCompletion(userId, action);
+    }
+
+    @Override
+    public void createHabit(int userId, String title) {
+        HabitDAO.createHabit(userId, title);
+    }
+
+    @Override
+    public void deleteHabit(int habitId) {
+        HabitDAO.deleteHabit(habitId);
+    }
+
+    @Override
+    public void queueHabitCompletion(int habitId, LocalDate date, boolean completed) {
+        HabitDAO.queueHabitCompletion(habitId, date, completed);
+    }
+}
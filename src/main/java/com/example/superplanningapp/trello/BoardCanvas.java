@@ -0,0 +1,280 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.MenuScene;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.Dragboard;
+import javafx.scene.input.TransferMode;
+import javafx.scene.layout.*;
+
+import java.util.Objects;
+
+// Виртуализированное полотно доски.
+// Колонки - горизонтальный ListView, карточки в колонке - вертикальный ListView.
+// Узлы создаются только для ВИДИМЫХ колонок и карточек и переиспользуются при прокрутке
+// (ячейка получает новый элемент через updateItem). Доска на 2000 карточек держит на экране
+// несколько десятков узлов, а не десятки тысяч.
+class BoardCanvas extends ListView<TrelloList> {
+
+    private static final double COLUMN_WIDTH = 300;
+
+    // Карточки колонок живут в модели дольше ячеек: ячейка лишь подключается к списку модели
+    private final BoardViewModel model;
+    private final ProgressIndicator spinner;
+
+    BoardCanvas(BoardViewModel model, ProgressIndicator spinner) {
+        this.model = model;
+        this.spinner = spinner;
+
+        setOrientation(Orientation.HORIZONTAL);
+        setFocusTraversable(false);
+        setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 20;");
+        setCellFactory(view -> new ColumnCell());
+
+        Label emptyLabel = new Label("Нет списков. Создайте первый!");
+        emptyLabel.setStyle("-fx-text-fill: " + MenuScene.getTextStyle() + "; -fx-font-size: 16px;");
+        setPlaceholder(emptyLabel);
+        setItems(model.getLists());
+    }
+
+    BoardViewModel getModel() { return model; }
+    ProgressIndicator getSpinner() { return spinner; }
+
+    static String getListColor(String color) {
+        if (color == null || color.equals("null")) return MenuScene.isDarkTheme ? "#1a1a1a" : "#f0f2f5";
+
+        switch (color) {
+            case "red":
+                return MenuScene.isDarkTheme ? "#4a1a1a" : "#ffe0e0";
+            case "yellow":
+                return MenuScene.isDarkTheme ? "#4a4a1a" : "#fffacc";
+            case "green":
+                return MenuScene.isDarkTheme ? "#1a3b1a" : "#e6fbd9";
+            default:
+                return MenuScene.isDarkTheme ? "#1a1a1a" : "#f0f2f5";
+        }
+    }
+
+    // ==========================================
+    // ЯЧЕЙКА КОЛОНКИ (СПИСКА)
+    // ==========================================
+    // Узлы колонки создаются один раз на ячейку; updateItem только подставляет другой список
+    private class ColumnCell extends ListCell<TrelloList> {
+        private final VBox column = new VBox(10);
+        private final Label listTitle = new Label();
+        private final ListView<Card> cardsView = new ListView<>();
+        private final TextField cardTitleField = new TextField();
+        private final TextArea cardDescField = new TextArea();
+        // Чей черновик сейчас в полях ввода (null - ячейка пуста)
+        private Integer draftListId;
+
+        ColumnCell() {
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 15 0 0;");
+            column.setPrefWidth(COLUMN_WIDTH);
+            column.setMaxWidth(COLUMN_WIDTH);
+
+            // Header
+            HBox header = new HBox();
+            header.setAlignment(Pos.CENTER_LEFT);
+            String headerTextColor = MenuScene.isDarkTheme ? "#e4e6eb" : "#000000";
+            listTitle.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: " + headerTextColor + ";");
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            MenuButton menuBtn = new MenuButton("⋮");
+            menuBtn.setStyle("-fx-background-color: transparent; -fx-mark-color: " + headerTextColor + "; -fx-font-size: 14px; -fx-cursor: hand;");
+
+            MenuItem editItem = new MenuItem("Изменить название");
+            editItem.setOnAction(e -> TrelloBoardScene.showEditListDialog(getItem(), BoardCanvas.this));
+
+            MenuItem colorItem = new MenuItem("Изменить цвет");
+            colorItem.setOnAction(e -> TrelloBoardScene.showColorDialog(getItem(), BoardCanvas.this));
+
+            MenuItem deleteItem = new MenuItem("Удалить список");
+            deleteItem.setOnAction(e -> TrelloBoardScene.deleteList(getItem(), BoardCanvas.this));
+
+            menuBtn.getItems().addAll(editItem, colorItem, deleteItem);
+            header.getChildren().addAll(listTitle, spacer, menuBtn);
+
+            // Cards: свой виртуализированный список
+            cardsView.setCellFactory(view -> new CardCell());
+            cardsView.setFocusTraversable(false);
+            cardsView.setPrefHeight(500);
+            cardsView.setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
+            cardsView.setPlaceholder(new Label(""));
+            VBox.setVgrow(cardsView, Priority.ALWAYS);
+            setupDropTarget();
+
+            // Add Card Area
+            VBox addCardSection = new VBox(5);
+            cardTitleField.setPromptText("Название задачи");
+            cardDescField.setPromptText("Описание");
+            cardDescField.setPrefRowCount(2);
+
+            Button addCardBtn = new Button("Добавить");
+            addCardBtn.setStyle("-fx-background-color: " + MenuScene.Theme.ACCENT + "; -fx-text-fill: white; -fx-font-weight: bold; -fx-cursor: hand;");
+
+            if (MenuScene.isDarkTheme) {
+                String fieldStyle = "-fx-background-color: " + MenuScene.Theme.HOVER_DARK + "; -fx-text-fill: white; -fx-prompt-text-fill: #888;";
+                cardTitleField.setStyle(fieldStyle);
+                cardDescField.setStyle("text-area-background: " + MenuScene.Theme.HOVER_DARK + "; -fx-text-fill: white; -fx-control-inner-background: " + MenuScene.Theme.HOVER_DARK + "; -fx-prompt-text-fill: #888;");
+            }
+
+            addCardBtn.setOnAction(e -> {
+                String title = cardTitleField.getText().trim();
+                if (!title.isEmpty()) {
+                    TrelloBoardScene.addCard(getItem(), title, cardDescField.getText().trim(), BoardCanvas.this);
+                    cardTitleField.clear();
+                    cardDescField.clear();
+                }
+            });
+
+            addCardSection.getChildren().addAll(cardTitleField, cardDescField, addCardBtn);
+            column.getChildren().addAll(header, cardsView, addCardSection);
+        }
+
+        @Override
+        protected void updateItem(TrelloList list, boolean empty) {
+            super.updateItem(list, empty);
+            switchDraft(empty || list == null ? null : list.getId());
+            if (empty || list == null) {
+                cardsView.setItems(null);
+                setGraphic(null);
+                return;
+            }
+            listTitle.setText(list.getTitle());
+            column.setStyle("-fx-background-color: " + getListColor(list.getColor()) + "; -fx-background-radius: 8; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 1);");
+            // Подключаем колонку к карточкам нового списка (ячейки карточек тоже переиспользуются)
+            ObservableList<Card> cards = model.cardsOf(list.getId());
+            if (cardsView.getItems() != cards) cardsView.setItems(cards);
+            setGraphic(column);
+        }
+
+        // Ячейка переходит к другому списку: набранное сохраняется за прежним списком,
+        // в поля подставляется черновик нового. Иначе "Добавить" создало бы карточку не в том списке
+        private void switchDraft(Integer listId) {
+            if (Objects.equals(listId, draftListId)) return;
+            if (draftListId != null) model.saveDraft(draftListId, cardTitleField.getText(), cardDescField.getText());
+            BoardViewModel.Draft draft = listId == null ? BoardViewModel.Draft.EMPTY : model.draftOf(listId);
+            cardTitleField.setText(draft.title);
+            cardDescField.setText(draft.description);
+            draftListId = listId;
+        }
+
+        private void setupDropTarget() {
+            cardsView.setOnDragOver(event -> {
+                if (event.getDragboard().hasString()) {
+                    event.acceptTransferModes(TransferMode.MOVE);
+                }
+                event.consume();
+            });
+
+            cardsView.setOnDragDropped(event -> {
+                Dragboard db = event.getDragboard();
+                boolean success = false;
+                if (db.hasString() && getItem() != null) {
+                    // Бросили на пустое место колонки - в конец списка
+                    TrelloBoardScene.moveCard(Integer.parseInt(db.getString()), getItem().getId(), cardsView.getItems().size(), BoardCanvas.this);
+                    success = true;
+                }
+                event.setDropCompleted(success);
+                event.consume();
+            });
+        }
+    }
+
+    // ==========================================
+    // ЯЧЕЙКА КАРТОЧКИ
+    // ==========================================
+    private class CardCell extends ListCell<Card> {
+        private final VBox cardBox = new VBox(5);
+        private final Label titleLabel = new Label();
+        private final Label descLabel = new Label();
+        private final String normalStyle;
+        private final String hoverStyle;
+
+        CardCell() {
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 0 8 0;");
+
+            String cardBg = MenuScene.isDarkTheme ? "#232323" : "white";
+            String textColor = MenuScene.getTextStyle();
+            // Сделал еще светлее для контраста (#aaaaaa)
+            String descColor = MenuScene.isDarkTheme ? "#aaaaaa" : "#666666";
+            normalStyle = "-fx-background-color: " + cardBg + "; -fx-background-radius: 5; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 3, 0, 0, 1);";
+            hoverStyle = "-fx-background-color: " + (MenuScene.isDarkTheme ? "#2c2c2c" : "#f9f9f9") + "; -fx-background-radius: 5; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 3, 0, 0, 1); -fx-cursor: hand;";
+            cardBox.setStyle(normalStyle);
+
+            HBox titleRow = new HBox();
+            titleRow.setAlignment(Pos.CENTER_LEFT);
+            titleLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: " + textColor + ";");
+            titleLabel.setWrapText(true);
+            titleLabel.setMaxWidth(220);
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+            Button deleteBtn = new Button("✕");
+            deleteBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: " + MenuScene.Theme.ERROR + "; -fx-cursor: hand;");
+            deleteBtn.setOnAction(e -> TrelloBoardScene.deleteCard(getItem(), BoardCanvas.this));
+
+            titleRow.getChildren().addAll(titleLabel, spacer, deleteBtn);
+
+            // --- ОПИСАНИЕ КАРТОЧКИ ---
+            descLabel.setStyle("-fx-text-fill: " + descColor + "; -fx-font-size: 12px;");
+            descLabel.setWrapText(true);
+            descLabel.setMaxWidth(260);
+            // Пустое описание не занимает места
+            descLabel.managedProperty().bind(descLabel.visibleProperty());
+
+            cardBox.getChildren().addAll(titleRow, descLabel);
+
+            cardBox.setOnMouseEntered(e -> cardBox.setStyle(hoverStyle));
+            cardBox.setOnMouseExited(e -> cardBox.setStyle(normalStyle));
+
+            cardBox.setOnDragDetected(event -> {
+                if (getItem() == null) return;
+                Dragboard db = cardBox.startDragAndDrop(TransferMode.MOVE);
+                ClipboardContent content = new ClipboardContent();
+                content.putString(String.valueOf(getItem().getId()));
+                db.setContent(content);
+                event.consume();
+            });
+
+            // Бросили на карточку: встаем перед ней (верхняя половина) или после нее (нижняя)
+            setOnDragOver(event -> {
+                if (getItem() != null && event.getDragboard().hasString()) {
+                    event.acceptTransferModes(TransferMode.MOVE);
+                    event.consume();
+                }
+            });
+            setOnDragDropped(event -> {
+                Card target = getItem();
+                Dragboard db = event.getDragboard();
+                if (target == null || !db.hasString()) return;
+                int index = getIndex() + (event.getY() > getHeight() / 2 ? 1 : 0);
+                TrelloBoardScene.moveCard(Integer.parseInt(db.getString()), target.getListId(), index, BoardCanvas.this);
+                event.setDropCompleted(true);
+                event.consume();
+            });
+        }
+
+        @Override
+        protected void updateItem(Card card, boolean empty) {
+            super.updateItem(card, empty);
+            if (empty || card == null) {
+                setGraphic(null);
+                return;
+            }
+            titleLabel.setText(card.getTitle());
+            String desc = card.getDescription();
+            boolean hasDesc = desc != null && !desc.trim().isEmpty();
+            descLabel.setText(hasDesc ? desc : "");
+            descLabel.setVisible(hasDesc);
+            cardBox.setUserData(card);
+            setGraphic(cardBox);
+        }
+    }
+}
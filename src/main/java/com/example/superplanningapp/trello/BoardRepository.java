@@ -0,0 +1,42 @@
+package com.example.superplanningapp.trello;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Доски, их участники и списки.
+// Реализации: JdbcTrelloRepository (TrelloDAO), CachingTrelloRepository, InMemoryTrelloRepository.
+// Списки приглашений, уведомления и поиск - в InboxRepository.
+public interface BoardRepository {
+
+    // Свои доски + доски, где пользователь участник (новые сначала)
+    List<Board> getAllBoards(int userId);
+
+    // Владелец и участники сразу для нескольких досок
+    Map<Integer, TrelloDAO.BoardPeople> getBoardPeople(Collection<Integer> boardIds);
+
+    Board createBoard(String title, String description, int userId);
+
+    boolean updateBoard(int boardId, String title, String description);
+
+    boolean deleteBoard(int boardId);
+
+    void removeBoardMember(int boardId, int userId);
+
+    void leaveBoard(int boardId, int userId, String userName);
+
+    // Принятое приглашение добавляет участника (список досок получателя меняется)
+    void acceptInvitation(int invitationId);
+
+    // Списки + карточки доски одним чтением
+    BoardSnapshot getBoardSnapshot(int boardId);
+
+    TrelloList createList(String title, int boardId);
+
+    boolean deleteList(int listId);
+
+    // Отложенная запись (схлопывается с повторными правками того же списка).
+    // Future - как у CardRepository.queueMoveCard
+    CompletableFuture<Void> queueUpdateList(int listId, String title, String color);
+}
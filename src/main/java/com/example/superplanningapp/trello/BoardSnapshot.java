@@ -0,0 +1,46 @@
+package com.example.superplanningapp.trello;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Полный "снимок" доски: списки + их карточки, загруженные ОДНИМ запросом
+// (вместо getListsByBoard + getCardsByList на каждый список)
+public class BoardSnapshot {
+    private int boardId;
+    private List<TrelloList> lists = new ArrayList<>();
+    // listId -> карточки в порядке card_order, id
+    private Map<Integer, List<Card>> cardsByList = new LinkedHashMap<>();
+
+    public BoardSnapshot(int boardId) {
+        this.boardId = boardId;
+    }
+
+    // Заполнение (используется DAO при чтении ResultSet)
+    void addList(TrelloList list) {
+        lists.add(list);
+        cardsByList.put(list.getId(), new ArrayList<>());
+    }
+
+    void addCard(Card card) {
+        cardsByList.computeIfAbsent(card.getListId(), k -> new ArrayList<>()).add(card);
+    }
+
+    // Getters
+    public int getBoardId() { return boardId; }
+    public List<TrelloList> getLists() { return lists; }
+    public boolean isEmpty() { return lists.isEmpty(); }
+
+    public List<Card> getCards(int listId) {
+        List<Card> cards = cardsByList.get(listId);
+        return cards != null ? cards : Collections.emptyList();
+    }
+
+    public int getTotalCards() {
+        int total = 0;
+        for (List<Card> cards : cardsByList.values()) total += cards.size();
+        return total;
+    }
+}
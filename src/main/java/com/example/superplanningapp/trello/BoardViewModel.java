@@ -0,0 +1,218 @@
+package com.example.superplanningapp.trello;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Модель открытой доски на стороне клиента (все методы - только из FX-потока).
+// Результат каждого действия (добавить/удалить/переместить карточку, переименовать список...)
+// применяется к модели локально: вставка, удаление или перенос одного элемента, без перезагрузки доски.
+// reconcile(snapshot) сверяет модель с версией из базы и меняет только то, что отличается.
+class BoardViewModel {
+
+    private final int boardId;
+    private final ObservableList<TrelloList> lists = FXCollections.observableArrayList();
+    // listId -> карточки списка в порядке отображения
+    private final Map<Integer, ObservableList<Card>> cardsByList = new HashMap<>();
+    // cardId -> карточка: поиск при перетаскивании за O(1), даже на больших досках
+    private final Map<Integer, Card> cardsById = new HashMap<>();
+    // listId -> недописанная новая карточка. Поля ввода принадлежат переиспользуемой ячейке колонки,
+    // а черновик - списку: при прокрутке он не должен переезжать в колонку, которую ячейка покажет следующей
+    private final Map<Integer, Draft> drafts = new HashMap<>();
+
+    static class Draft {
+        static final Draft EMPTY = new Draft("", "");
+        final String title;
+        final String description;
+        Draft(String title, String description) { this.title = title; this.description = description; }
+    }
+
+    BoardViewModel(int boardId) {
+        this.boardId = boardId;
+    }
+
+    int getBoardId() { return boardId; }
+    ObservableList<TrelloList> getLists() { return lists; }
+
+    ObservableList<Card> cardsOf(int listId) {
+        return cardsByList.computeIfAbsent(listId, id -> FXCollections.observableArrayList());
+    }
+
+    // ==========================================
+    // СВЕРКА С СЕРВЕРОМ
+    // ==========================================
+
+    void reconcile(BoardSnapshot snapshot) {
+        List<TrelloList> serverLists = snapshot.getLists();
+        if (sameIds(serverLists)) {
+            // Порядок тот же - заменяем только измененные списки
+            for (int i = 0; i < serverLists.size(); i++) {
+                if (!sameList(lists.get(i), serverLists.get(i))) lists.set(i, serverLists.get(i));
+            }
+        } else {
+            lists.setAll(serverLists);
+        }
+
+        Set<Integer> listIds = new HashSet<>();
+        for (TrelloList list : serverLists) {
+            listIds.add(list.getId());
+            ObservableList<Card> local = cardsOf(list.getId());
+            List<Card> server = snapshot.getCards(list.getId());
+            if (!sameCards(local, server)) local.setAll(server);
+        }
+        cardsByList.keySet().retainAll(listIds);
+        drafts.keySet().retainAll(listIds);
+
+        cardsById.clear();
+        for (ObservableList<Card> cards : cardsByList.values()) {
+            for (Card card : cards) cardsById.put(card.getId(), card);
+        }
+    }
+
+    // Сверка одного списка (событие ChangeFeed о его карточках): остальная доска не трогается
+    void reconcileList(int listId, List<Card> server) {
+        if (!hasList(listId)) return;
+        ObservableList<Card> local = cardsOf(listId);
+        if (sameCards(local, server)) return;
+        for (Card card : local) cardsById.remove(card.getId());
+        local.setAll(server);
+        for (Card card : server) {
+            // Карточка, перенесенная сюда из другого списка, уходит оттуда сразу
+            Card previous = cardsById.put(card.getId(), card);
+            if (previous != null && previous.getListId() != listId) cardsOf(previous.getListId()).remove(previous);
+        }
+    }
+
+    boolean hasList(int listId) {
+        for (TrelloList list : lists) {
+            if (list.getId() == listId) return true;
+        }
+        return false;
+    }
+
+    private boolean sameIds(List<TrelloList> serverLists) {
+        if (serverLists.size() != lists.size()) return false;
+        for (int i = 0; i < serverLists.size(); i++) {
+            if (serverLists.get(i).getId() != lists.get(i).getId()) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameList(TrelloList a, TrelloList b) {
+        return Objects.equals(a.getTitle(), b.getTitle()) && Objects.equals(a.getColor(), b.getColor());
+    }
+
+    private static boolean sameCards(List<Card> local, List<Card> server) {
+        if (local.size() != server.size()) return false;
+        for (int i = 0; i < local.size(); i++) {
+            Card a = local.get(i), b = server.get(i);
+            if (a.getId() != b.getId() || a.getCardOrder() != b.getCardOrder() || !Objects.equals(a.getTitle(), b.getTitle())
+                    || !Objects.equals(a.getDescription(), b.getDescription())) return false;
+        }
+        return true;
+    }
+
+    // ==========================================
+    // ЧЕРНОВИКИ НОВЫХ КАРТОЧЕК
+    // ==========================================
+
+    void saveDraft(int listId, String title, String description) {
+        if (title.isEmpty() && description.isEmpty()) drafts.remove(listId);
+        else drafts.put(listId, new Draft(title, description));
+    }
+
+    Draft draftOf(int listId) {
+        return drafts.getOrDefault(listId, Draft.EMPTY);
+    }
+
+    // ==========================================
+    // ЛОКАЛЬНЫЕ ИЗМЕНЕНИЯ
+    // ==========================================
+
+    void addList(TrelloList list) {
+        lists.add(list);
+        cardsOf(list.getId());
+    }
+
+    void removeList(int listId) {
+        lists.removeIf(l -> l.getId() == listId);
+        List<Card> cards = cardsByList.remove(listId);
+        if (cards != null) {
+            for (Card card : cards) cardsById.remove(card.getId());
+        }
+        drafts.remove(listId);
+    }
+
+    // Новый объект вместо setTitle/setColor: ListView перерисовывает ячейку только при смене элемента
+    void updateList(int listId, String title, String color) {
+        for (int i = 0; i < lists.size(); i++) {
+            TrelloList old = lists.get(i);
+            if (old.getId() == listId) {
+                lists.set(i, new TrelloList(listId, title, old.getBoardId(), color));
+                return;
+            }
+        }
+    }
+
+    void addCard(Card card) {
+        cardsOf(card.getListId()).add(card);
+        cardsById.put(card.getId(), card);
+    }
+
+    // Возвращает удаленную карточку (или null, если ее уже нет)
+    Card removeCard(int cardId) {
+        Card card = cardsById.remove(cardId);
+        if (card != null) cardsOf(card.getListId()).remove(card);
+        return card;
+    }
+
+    // Перенос карточки на позицию index списка toListId (index считается ДО снятия карточки с места).
+    // false - карточки нет или она уже стоит там
+    boolean moveCard(int cardId, int toListId, int index) {
+        Card card = cardsById.get(cardId);
+        if (card == null) return false;
+        ObservableList<Card> from = cardsOf(card.getListId());
+        ObservableList<Card> to = cardsOf(toListId);
+        int oldIndex = from.indexOf(card);
+        if (from == to && oldIndex < index) index--; // карточка выше цели: после снятия цель сдвигается
+        index = Math.max(0, Math.min(index, to.size() - (from == to ? 1 : 0)));
+        if (from == to && oldIndex == index) return false;
+
+        from.remove(oldIndex);
+        card.setListId(toListId);
+        to.add(index, card);
+        return true;
+    }
+
+    Card findCard(int cardId) {
+        return cardsById.get(cardId);
+    }
+
+    // === РАНГИ (CardRank) ===
+
+    // Ранг для карточки на ее текущем месте между соседями; null - места нет
+    Integer rankBetweenNeighbours(Card card) {
+        List<Card> cards = cardsOf(card.getListId());
+        int i = cards.indexOf(card);
+        Integer before = i > 0 ? cards.get(i - 1).getCardOrder() : null;
+        Integer after = i < cards.size() - 1 ? cards.get(i + 1).getCardOrder() : null;
+        return CardRank.between(before, after);
+    }
+
+    // Локальная перенумерация списка (зеркало TrelloDAO.rebalanceList). Возвращает id в порядке списка
+    List<Integer> renumber(int listId) {
+        List<Card> cards = cardsOf(listId);
+        List<Integer> ids = new ArrayList<>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            cards.get(i).setCardOrder(CardRank.nth(i));
+            ids.add(cards.get(i).getId());
+        }
+        return ids;
+    }
+}
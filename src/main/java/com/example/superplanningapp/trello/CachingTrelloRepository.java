@@ -0,0 +1,235 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.ChangeFeed;
+import com.example.superplanningapp.TtlCache;
+import com.example.superplanningapp.User;
+import com.example.superplanningapp.UserCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Кэширующий декоратор (read-through) для досок и карточек.
+// В памяти: доски пользователя, владелец/участники доски и карточки списка.
+// Сброс: свои изменения через этот же репозиторий, события ChangeFeed (чужие изменения) и TTL.
+// Снимок доски не кэшируется: он и так читается из локальной реплики, а сверка модели должна видеть свежие данные.
+// Наружу отдаются копии досок и карточек: BoardViewModel меняет свои карточки (setListId/setCardOrder при переносе),
+// и без копий эти изменения попадали бы прямо в кэш - следующее чтение вернуло бы то, чего нет в базе.
+public class CachingTrelloRepository implements BoardRepository, CardRepository {
+
+    private static final long TTL_MS = 30_000;
+
+    private final BoardRepository boards;
+    private final CardRepository cards;
+
+    private final TtlCache<Integer, List<Board>> boardsByUser = new TtlCache<>(TTL_MS);
+    private final TtlCache<Integer, TrelloDAO.BoardPeople> peopleByBoard = new TtlCache<>(TTL_MS);
+    private final TtlCache<Integer, List<Card>> cardsByList = new TtlCache<>(TTL_MS);
+
+    private volatile boolean followFeed;
+    private volatile boolean subscribed;
+
+    public CachingTrelloRepository(BoardRepository boards, CardRepository cards) {
+        this.boards = boards;
+        this.cards = cards;
+    }
+
+    // Сбрасывать кэш по событиям ChangeFeed (для работы с настоящей базой; в памяти ленты нет)
+    public CachingTrelloRepository followChangeFeed() {
+        followFeed = true;
+        return this;
+    }
+
+    // === ДОСКИ ===
+
+    @Override
+    public List<Board> getAllBoards(int userId) {
+        subscribeToChanges();
+        List<Board> cached = boardsByUser.get(userId, boards::getAllBoards);
+        List<Board> result = new ArrayList<>(cached.size());
+        for (Board b : cached) result.add(copy(b));
+        return result;
+    }
+
+    // Из базы читаются только доски, которых нет в кэше (одним запросом)
+    @Override
+    public Map<Integer, TrelloDAO.BoardPeople> getBoardPeople(Collection<Integer> boardIds) {
+        subscribeToChanges();
+        Map<Integer, TrelloDAO.BoardPeople> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int id : boardIds) {
+            TrelloDAO.BoardPeople people = peopleByBoard.getIfPresent(id);
+            if (people != null) result.put(id, withSharedUsers(people)); else missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            Map<Integer, TrelloDAO.BoardPeople> loaded = boards.getBoardPeople(missing);
+            loaded.forEach((id, people) -> {
+                // Доска без владельца = ошибка чтения, такое не кэшируем
+                if (people.getOwner() != null) peopleByBoard.put(id, people);
+                result.put(id, withSharedUsers(people));
+            });
+        }
+        return result;
+    }
+
+    // Владелец и участники - через общий UserCache: свежие строки из базы наполняют кэш профилей,
+    // а из кэша досок вернется уже обновленный профиль, если он изменился позже (например, свой аватар)
+    private static TrelloDAO.BoardPeople withSharedUsers(TrelloDAO.BoardPeople people) {
+        List<User> members = new ArrayList<>(people.getMembers().size());
+        for (User member : people.getMembers()) members.add(UserCache.canonical(member));
+        return new TrelloDAO.BoardPeople(UserCache.canonical(people.getOwner()), members);
+    }
+
+    @Override
+    public Board createBoard(String title, String description, int userId) {
+        Board board = boards.createBoard(title, description, userId);
+        boardsByUser.invalidate(userId);
+        return board;
+    }
+
+    // Доску видят владелец и участники - их списки досок сбрасываются целиком
+    @Override
+    public boolean updateBoard(int boardId, String title, String description) {
+        boolean updated = boards.updateBoard(boardId, title, description);
+        boardsByUser.invalidateAll();
+        return updated;
+    }
+
+    @Override
+    public boolean deleteBoard(int boardId) {
+        boolean deleted = boards.deleteBoard(boardId);
+        boardsByUser.invalidateAll();
+        peopleByBoard.invalidate(boardId);
+        return deleted;
+    }
+
+    @Override
+    public void removeBoardMember(int boardId, int userId) {
+        boards.removeBoardMember(boardId, userId);
+        boardsByUser.invalidate(userId);
+        peopleByBoard.invalidate(boardId);
+    }
+
+    @Override
+    public void leaveBoard(int boardId, int userId, String userName) {
+        boards.leaveBoard(boardId, userId, userName);
+        boardsByUser.invalidate(userId);
+        peopleByBoard.invalidate(boardId);
+    }
+
+    // Из приглашения не видно, какая доска и чья - сбрасываем всё по доскам
+    @Override
+    public void acceptInvitation(int invitationId) {
+        boards.acceptInvitation(invitationId);
+        boardsByUser.invalidateAll();
+        peopleByBoard.invalidateAll();
+    }
+
+    // === СПИСКИ ===
+
+    @Override
+    public BoardSnapshot getBoardSnapshot(int boardId) {
+        return boards.getBoardSnapshot(boardId);
+    }
+
+    @Override
+    public TrelloList createList(String title, int boardId) {
+        return boards.createList(title, boardId);
+    }
+
+    @Override
+    public boolean deleteList(int listId) {
+        boolean deleted = boards.deleteList(listId);
+        cardsByList.invalidate(listId);
+        return deleted;
+    }
+
+    @Override
+    public CompletableFuture<Void> queueUpdateList(int listId, String title, String color) {
+        return boards.queueUpdateList(listId, title, color);
+    }
+
+    // === КАРТОЧКИ ===
+
+    @Override
+    public List<Card> getCardsByList(int listId) {
+        subscribeToChanges();
+        List<Card> cached = cardsByList.get(listId, cards::getCardsByList);
+        List<Card> result = new ArrayList<>(cached.size());
+        for (Card c : cached) result.add(copy(c));
+        return result;
+    }
+
+    @Override
+    public Card createCard(String title, String description, int listId) {
+        Card card = cards.createCard(title, description, listId);
+        cardsByList.invalidate(listId);
+        return card;
+    }
+
+    // Список карточки по id неизвестен - сбрасываем все списки
+    @Override
+    public boolean deleteCard(int cardId) {
+        boolean deleted = cards.deleteCard(cardId);
+        cardsByList.invalidateAll();
+        return deleted;
+    }
+
+    @Override
+    public CompletableFuture<Void> queueMoveCard(int cardId, int listId, int cardOrder) {
+        CompletableFuture<Void> written = cards.queueMoveCard(cardId, listId, cardOrder);
+        cardsByList.invalidateAll();
+        return written;
+    }
+
+    @Override
+    public boolean rebalanceList(int listId, List<Integer> orderedIds) {
+        boolean done = cards.rebalanceList(listId, orderedIds);
+        cardsByList.invalidateAll();
+        return done;
+    }
+
+    // === ЧУЖИЕ ИЗМЕНЕНИЯ ===
+
+    // Подписка при первом чтении (после входа), а не при создании: до входа лента не нужна
+    private void subscribeToChanges() {
+        if (!followFeed || subscribed) return;
+        synchronized (this) {
+            if (subscribed) return;
+            ChangeFeed.subscribe(this::onChange);
+            subscribed = true;
+        }
+    }
+
+    void onChange(ChangeFeed.Event event) {
+        if (event.isResync()) {
+            boardsByUser.invalidateAll();
+            peopleByBoard.invalidateAll();
+            cardsByList.invalidateAll();
+            return;
+        }
+        switch (event.getTable()) {
+            case "cards" -> {
+                cardsByList.invalidate(event.getListId());
+                cardsByList.invalidate(event.getOldListId());
+            }
+            case "lists" -> cardsByList.invalidate(event.getId());
+            case "invitations" -> {
+                boardsByUser.invalidate(event.getUserId());
+                peopleByBoard.invalidate(event.getBoardId());
+            }
+            default -> { }
+        }
+    }
+
+    private static Board copy(Board b) {
+        return new Board(b.getId(), b.getTitle(), b.getDescription(), b.getUserId(), b.getCreatedAt());
+    }
+
+    private static Card copy(Card c) {
+        return new Card(c.getId(), c.getTitle(), c.getDescription(), c.getListId(), c.getCardOrder());
+    }
+}
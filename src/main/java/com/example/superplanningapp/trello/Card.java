@@ -5,12 +5,18 @@ public class Card {
     private String title;
     private String description;
     private int listId;
+    private int cardOrder; // ранг внутри списка (см. CardRank)
 
     public Card(int id, String title, String description, int listId) {
+        this(id, title, description, listId, 0);
+    }
+
+    public Card(int id, String title, String description, int listId, int cardOrder) {
         this.id = id;
         this.title = title;
         this.description = description;
         this.listId = listId;
+        this.cardOrder = cardOrder;
     }
 
     // Getters
@@ -18,9 +24,11 @@ public class Card {
     public String getTitle() { return title; }
     public String getDescription() { return description; }
     public int getListId() { return listId; }
+    public int getCardOrder() { return cardOrder; }
 
     // Setters
     public void setTitle(String title) { this.title = title; }
     public void setDescription(String description) { this.description = description; }
     public void setListId(int listId) { this.listId = listId; }
+    public void setCardOrder(int cardOrder) { this.cardOrder = cardOrder; }
 }
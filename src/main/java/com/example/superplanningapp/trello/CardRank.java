@@ -0,0 +1,27 @@
+package com.example.superplanningapp.trello;
+
+// Ранги карточек с промежутками (card_order = 1024, 2048, 3072...).
+// Чтобы поставить карточку между соседями, достаточно взять число между их рангами:
+// перестановка меняет ОДНУ строку, остальные карточки списка не перенумеровываются.
+// Когда промежуток кончился (соседи стоят вплотную), список перебалансируется в фоне.
+public final class CardRank {
+
+    public static final int GAP = 1024;
+
+    private CardRank() {}
+
+    // Ранг между before и after (null = края списка). null в ответе - места нет, нужна перебалансировка
+    public static Integer between(Integer before, Integer after) {
+        if (before == null && after == null) return GAP;
+        if (before == null) return after > Integer.MIN_VALUE + GAP ? after - GAP : null;
+        if (after == null) return before < Integer.MAX_VALUE - GAP ? before + GAP : null;
+        long gap = (long) after - before;
+        if (gap < 2) return null;
+        return (int) (before + gap / 2);
+    }
+
+    // Ранг i-й карточки после перебалансировки
+    public static int nth(int index) {
+        return (index + 1) * GAP;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.superplanningapp.trello;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Карточки списков. Реализации - те же классы, что и у BoardRepository
+public interface CardRepository {
+
+    // В порядке card_order, id
+    List<Card> getCardsByList(int listId);
+
+    Card createCard(String title, String description, int listId);
+
+    boolean deleteCard(int cardId);
+
+    // Отложенный перенос на позицию с уже посчитанным рангом (CardRank).
+    // Future завершается, когда перенос записан в базу (с ошибкой - если база его отвергла)
+    CompletableFuture<Void> queueMoveCard(int cardId, int listId, int cardOrder);
+
+    // Ранги GAP, 2*GAP, ... в порядке orderedIds
+    boolean rebalanceList(int listId, List<Integer> orderedIds);
+}
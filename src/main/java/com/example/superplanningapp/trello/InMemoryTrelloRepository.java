@@ -0,0 +1,353 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.User;
+import com.example.superplanningapp.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+// Доски, списки, карточки, приглашения и уведомления в памяти - для нагрузочных тестов и бенчмарков без базы.
+// Повторяет поведение TrelloDAO: порядок выдачи, каскадное удаление, ранги карточек (CardRank.GAP),
+// keyset-страницы по (created_at, id). Владельцы и участники берутся из переданного UserRepository
+public class InMemoryTrelloRepository implements BoardRepository, CardRepository, InboxRepository {
+
+    private final UserRepository users;
+
+    private final Map<Integer, Board> boards = new HashMap<>();
+    private final Map<Integer, Set<Integer>> membersByBoard = new HashMap<>();
+    private final Map<Integer, TrelloList> lists = new HashMap<>();
+    private final Map<Integer, Card> cards = new HashMap<>();
+    private final Map<Integer, InvitationRow> invitations = new HashMap<>();
+    private final Map<Integer, NotificationRow> notifications = new HashMap<>();
+    private int nextId = 1;
+
+    private static class InvitationRow {
+        final int id; final int senderId; final int receiverId; final int boardId;
+        String status = "PENDING"; LocalDateTime createdAt = LocalDateTime.now();
+        InvitationRow(int id, int senderId, int receiverId, int boardId) { this.id=id; this.senderId=senderId; this.receiverId=receiverId; this.boardId=boardId; }
+    }
+
+    private static class NotificationRow {
+        final int id; final int userId; final String message; final LocalDateTime createdAt = LocalDateTime.now();
+        boolean read;
+        NotificationRow(int id, int userId, String message) { this.id=id; this.userId=userId; this.message=message; }
+    }
+
+    public InMemoryTrelloRepository(UserRepository users) {
+        this.users = users;
+    }
+
+    // Приглашение от владельца доски (для заполнения тестовых данных): возвращает id для acceptInvitation
+    public synchronized int invite(int boardId, int userId) {
+        Board board = boards.get(boardId);
+        InvitationRow row = new InvitationRow(nextId++, board != null ? board.getUserId() : -1, userId, boardId);
+        invitations.put(row.id, row);
+        return row.id;
+    }
+
+    // === ДОСКИ ===
+
+    @Override
+    public synchronized List<Board> getAllBoards(int userId) {
+        List<Board> result = new ArrayList<>();
+        for (Board b : boards.values()) {
+            if (b.getUserId() == userId || membersByBoard.getOrDefault(b.getId(), Set.of()).contains(userId)) result.add(b);
+        }
+        result.sort(Comparator.comparing(Board::getCreatedAt).reversed());
+        return result;
+    }
+
+    @Override
+    public synchronized Map<Integer, TrelloDAO.BoardPeople> getBoardPeople(Collection<Integer> boardIds) {
+        Map<Integer, TrelloDAO.BoardPeople> result = new HashMap<>();
+        for (int id : boardIds) {
+            Board board = boards.get(id);
+            List<User> members = new ArrayList<>();
+            for (int userId : membersByBoard.getOrDefault(id, Set.of())) members.add(users.getUserById(userId));
+            result.put(id, new TrelloDAO.BoardPeople(board != null ? users.getUserById(board.getUserId()) : null, members));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Board createBoard(String title, String description, int userId) {
+        Board board = new Board(nextId++, title, description, userId, LocalDateTime.now());
+        boards.put(board.getId(), board);
+        return board;
+    }
+
+    @Override
+    public synchronized boolean updateBoard(int boardId, String title, String description) {
+        Board board = boards.get(boardId);
+        if (board == null) return false;
+        board.setTitle(title);
+        board.setDescription(description);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteBoard(int boardId) {
+        if (boards.remove(boardId) == null) return false;
+        membersByBoard.remove(boardId);
+        lists.values().removeIf(l -> {
+            if (l.getBoardId() != boardId) return false;
+            cards.values().removeIf(c -> c.getListId() == l.getId());
+            return true;
+        });
+        return true;
+    }
+
+    @Override
+    public synchronized void removeBoardMember(int boardId, int userId) {
+        Set<Integer> members = membersByBoard.get(boardId);
+        if (members != null) members.remove(userId);
+    }
+
+    @Override
+    public synchronized void leaveBoard(int boardId, int userId, String userName) {
+        removeBoardMember(boardId, userId);
+        Board board = boards.get(boardId);
+        if (board != null) notify(board.getUserId(), "Участник " + userName + " покинул вашу доску \"" + board.getTitle() + "\".");
+    }
+
+    @Override
+    public synchronized void acceptInvitation(int invitationId) {
+        InvitationRow inv = invitations.get(invitationId);
+        if (inv == null) return;
+        inv.status = "ACCEPTED";
+        membersByBoard.computeIfAbsent(inv.boardId, k -> new LinkedHashSet<>()).add(inv.receiverId);
+    }
+
+    // === СПИСКИ ===
+
+    @Override
+    public synchronized BoardSnapshot getBoardSnapshot(int boardId) {
+        BoardSnapshot snapshot = new BoardSnapshot(boardId);
+        List<TrelloList> boardLists = new ArrayList<>();
+        for (TrelloList l : lists.values()) if (l.getBoardId() == boardId) boardLists.add(l);
+        boardLists.sort(Comparator.comparingInt(TrelloList::getId));
+        for (TrelloList l : boardLists) {
+            snapshot.addList(copy(l));
+            for (Card c : getCardsByList(l.getId())) snapshot.addCard(c);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public synchronized TrelloList createList(String title, int boardId) {
+        TrelloList list = new TrelloList(nextId++, title, boardId, "blue");
+        lists.put(list.getId(), list);
+        return copy(list);
+    }
+
+    @Override
+    public synchronized boolean deleteList(int listId) {
+        if (lists.remove(listId) == null) return false;
+        cards.values().removeIf(c -> c.getListId() == listId);
+        return true;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> queueUpdateList(int listId, String title, String color) {
+        TrelloList list = lists.get(listId);
+        if (list == null) return CompletableFuture.failedFuture(new IllegalStateException("Список " + listId + " не найден"));
+        list.setTitle(title);
+        list.setColor(color);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // === КАРТОЧКИ ===
+
+    // Отдаются копии: модель доски меняет свои объекты, хранилище - только через методы
+    @Override
+    public synchronized List<Card> getCardsByList(int listId) {
+        List<Card> result = new ArrayList<>();
+        for (Card c : cards.values()) if (c.getListId() == listId) result.add(copy(c));
+        result.sort(Comparator.comparingInt(Card::getCardOrder).thenComparingInt(Card::getId));
+        return result;
+    }
+
+    @Override
+    public synchronized Card createCard(String title, String description, int listId) {
+        int maxOrder = 0;
+        for (Card c : cards.values()) if (c.getListId() == listId) maxOrder = Math.max(maxOrder, c.getCardOrder());
+        Card card = new Card(nextId++, title, description, listId, maxOrder + CardRank.GAP);
+        cards.put(card.getId(), card);
+        return copy(card);
+    }
+
+    @Override
+    public synchronized boolean deleteCard(int cardId) {
+        return cards.remove(cardId) != null;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> queueMoveCard(int cardId, int listId, int cardOrder) {
+        Card card = cards.get(cardId);
+        if (card == null) return CompletableFuture.failedFuture(new IllegalStateException("Карточка " + cardId + " не найдена"));
+        card.setListId(listId);
+        card.setCardOrder(cardOrder);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized boolean rebalanceList(int listId, List<Integer> orderedIds) {
+        boolean changed = false;
+        for (int i = 0; i < orderedIds.size(); i++) {
+            Card card = cards.get(orderedIds.get(i));
+            if (card == null) continue;
+            card.setListId(listId);
+            card.setCardOrder((i + 1) * CardRank.GAP);
+            changed = true;
+        }
+        return changed;
+    }
+
+    // === ПРИГЛАШЕНИЯ И УВЕДОМЛЕНИЯ ===
+
+    // Как ON CONFLICT (receiver_id, board_id) в TrelloDAO: повторное приглашение снова становится ожидающим
+    @Override
+    public synchronized boolean sendInvitation(int senderId, int receiverId, int boardId) {
+        if (senderId == receiverId || !boards.containsKey(boardId)) return false;
+        if (membersByBoard.getOrDefault(boardId, Set.of()).contains(receiverId)) return false;
+        invitations.values().removeIf(i -> i.receiverId == receiverId && i.boardId == boardId);
+        InvitationRow row = new InvitationRow(nextId++, senderId, receiverId, boardId);
+        invitations.put(row.id, row);
+        return true;
+    }
+
+    @Override
+    public synchronized List<TrelloDAO.Invitation> getPendingInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return invitationPage(i -> i.receiverId == userId && i.status.equals("PENDING"), false, after, limit, newestFirst);
+    }
+
+    @Override
+    public synchronized List<TrelloDAO.Invitation> getOutgoingInvitations(int senderId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return invitationPage(i -> i.senderId == senderId, true, after, limit, newestFirst);
+    }
+
+    @Override
+    public synchronized List<TrelloDAO.Invitation> getArchivedInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return invitationPage(i -> i.receiverId == userId && !i.status.equals("PENDING"), false, after, limit, newestFirst);
+    }
+
+    @Override
+    public synchronized void declineInvitation(int invitationId) {
+        InvitationRow inv = invitations.get(invitationId);
+        if (inv != null) inv.status = "DECLINED";
+    }
+
+    @Override
+    public synchronized List<TrelloDAO.Notification> getUnreadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return notificationPage(userId, false, after, limit, newestFirst);
+    }
+
+    @Override
+    public synchronized List<TrelloDAO.Notification> getReadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return notificationPage(userId, true, after, limit, newestFirst);
+    }
+
+    @Override
+    public synchronized void markNotificationAsRead(int notifId) {
+        NotificationRow row = notifications.get(notifId);
+        if (row != null) row.read = true;
+    }
+
+    // Уведомление (для заполнения тестовых данных и выхода из доски)
+    public synchronized int notify(int userId, String message) {
+        NotificationRow row = new NotificationRow(nextId++, userId, message);
+        notifications.put(row.id, row);
+        return row.id;
+    }
+
+    // Считается заново при каждом вызове - кэшировать нечего
+    @Override
+    public synchronized TrelloDAO.BadgeCounts getBadgeCounts(int userId) {
+        int pending = 0, unread = 0;
+        for (InvitationRow i : invitations.values()) if (i.receiverId == userId && i.status.equals("PENDING")) pending++;
+        for (NotificationRow n : notifications.values()) if (n.userId == userId && !n.read) unread++;
+        return new TrelloDAO.BadgeCounts(pending, unread, System.currentTimeMillis());
+    }
+
+    @Override
+    public void invalidateBadgeCounts() {
+    }
+
+    private List<TrelloDAO.Invitation> invitationPage(Predicate<InvitationRow> filter, boolean outgoing,
+                                                      TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        List<TrelloDAO.Invitation> rows = new ArrayList<>();
+        for (InvitationRow i : invitations.values()) {
+            if (!filter.test(i)) continue;
+            Board board = boards.get(i.boardId);
+            User person = users.getUserById(outgoing ? i.receiverId : i.senderId);
+            rows.add(new TrelloDAO.Invitation(i.id, person != null ? person.getUsername() : "?",
+                    board != null ? board.getTitle() : "?", i.status, i.createdAt));
+        }
+        return page(rows, after, limit, newestFirst);
+    }
+
+    private List<TrelloDAO.Notification> notificationPage(int userId, boolean read, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        List<TrelloDAO.Notification> rows = new ArrayList<>();
+        for (NotificationRow n : notifications.values()) {
+            if (n.userId == userId && n.read == read) rows.add(new TrelloDAO.Notification(n.id, n.message, n.read, n.createdAt));
+        }
+        return page(rows, after, limit, newestFirst);
+    }
+
+    // Keyset-страница как в TrelloDAO.keysetPage: строки строго после курсора в порядке (created_at, id)
+    private static <T extends TrelloDAO.Dated> List<T> page(List<T> rows, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        Comparator<TrelloDAO.Dated> order = Comparator.comparing(TrelloDAO.Dated::getCreatedAt).thenComparingInt(TrelloDAO.Dated::getId);
+        if (newestFirst) order = order.reversed();
+        Comparator<TrelloDAO.Dated> finalOrder = order;
+        if (after != null) rows.removeIf(r -> finalOrder.compare(r, after) <= 0);
+        rows.sort(order);
+        return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+    }
+
+    // === ПОИСК ===
+
+    // Подстрока без учета регистра вместо полнотекстового индекса и триграмм.
+    // Веса примерно как в TrelloDAO.search: совпадение в названии карточки выше, чем в названии списка
+    @Override
+    public synchronized List<TrelloDAO.SearchResult> search(int userId, String query, int limit) {
+        List<TrelloDAO.SearchResult> results = new ArrayList<>();
+        if (TrelloDAO.toPrefixTsQuery(query) == null) return results;
+        String raw = query.trim().toLowerCase(Locale.ROOT);
+        for (Board board : getAllBoards(userId)) {
+            if (contains(board.getTitle(), raw)) results.add(new TrelloDAO.SearchResult("BOARD", board.getId(), board.getTitle(), board.getDescription(), board, 1));
+            for (TrelloList l : lists.values()) {
+                if (l.getBoardId() != board.getId()) continue;
+                if (contains(l.getTitle(), raw)) results.add(new TrelloDAO.SearchResult("LIST", l.getId(), l.getTitle(), board.getTitle(), board, 0.5));
+                for (Card c : cards.values()) {
+                    if (c.getListId() != l.getId()) continue;
+                    double score = contains(c.getTitle(), raw) ? 2 : contains(c.getDescription(), raw) ? 1 : 0;
+                    if (score > 0) results.add(new TrelloDAO.SearchResult("CARD", c.getId(), c.getTitle(), l.getTitle(), board, score));
+                }
+            }
+        }
+        results.sort(Comparator.comparingDouble(TrelloDAO.SearchResult::getScore).reversed().thenComparingInt(TrelloDAO.SearchResult::getId));
+        return new ArrayList<>(results.subList(0, Math.min(limit, results.size())));
+    }
+
+    private static boolean contains(String text, String lowerQuery) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerQuery);
+    }
+
+    private static TrelloList copy(TrelloList l) {
+        return new TrelloList(l.getId(), l.getTitle(), l.getBoardId(), l.getColor());
+    }
+
+    private static Card copy(Card c) {
+        return new Card(c.getId(), c.getTitle(), c.getDescription(), c.getListId(), c.getCardOrder());
+    }
+}
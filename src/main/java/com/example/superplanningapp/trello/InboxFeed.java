@@ -0,0 +1,99 @@
+package com.example.superplanningapp.trello;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+// Лента центра уведомлений с подгрузкой по страницам.
+// Раздел может состоять из нескольких источников (например, архив = приглашения + уведомления).
+// Каждый источник читается keyset-страницами (TrelloDAO.PageCursor), а лента сливает их по дате,
+// так что порядок общий, а в памяти - только уже показанные записи и по одной странице на источник.
+// nextPage() вызывается в фоне (DbExecutor), по одной странице за раз.
+// Ошибка источника (исключение из fetch) не считается концом ленты: курсор не двигается, и следующий
+// nextPage() повторяет тот же запрос. Уже набранные записи страницы при этом не теряются.
+class InboxFeed {
+
+    static final int PAGE_SIZE = 30;
+
+    // Одна страница одного источника: (курсор, лимит, новые сначала) -> записи
+    interface Source {
+        List<? extends TrelloDAO.Dated> fetch(TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+    }
+
+    // Запись ленты + тип источника (по нему выбирается вид строки)
+    static class Item {
+        final TrelloDAO.Dated data;
+        final String type;
+        Item(TrelloDAO.Dated data, String type) { this.data = data; this.type = type; }
+    }
+
+    private static class Stream {
+        final Source source;
+        final String type;
+        final Deque<TrelloDAO.Dated> buffer = new ArrayDeque<>();
+        TrelloDAO.PageCursor cursor;
+        boolean exhausted;
+        Stream(Source source, String type) { this.source = source; this.type = type; }
+    }
+
+    private static final Comparator<TrelloDAO.Dated> OLDEST_FIRST =
+            Comparator.comparing(TrelloDAO.Dated::getCreatedAt).thenComparingInt(TrelloDAO.Dated::getId);
+
+    private final List<Stream> streams = new ArrayList<>();
+    private final boolean newestFirst;
+
+    InboxFeed(boolean newestFirst) {
+        this.newestFirst = newestFirst;
+    }
+
+    InboxFeed add(String type, Source source) {
+        streams.add(new Stream(source, type));
+        return this;
+    }
+
+    // Следующие PAGE_SIZE записей по всем источникам; пустой список - лента кончилась.
+    // Источник не ответил: если что-то уже набрано - отдаем неполную страницу, иначе исключение летит дальше
+    synchronized List<Item> nextPage() {
+        List<Item> page = new ArrayList<>(PAGE_SIZE);
+        while (page.size() < PAGE_SIZE) {
+            Stream best = null;
+            for (Stream s : streams) {
+                if (s.buffer.isEmpty() && !s.exhausted) {
+                    try {
+                        fill(s);
+                    } catch (RuntimeException e) {
+                        if (page.isEmpty()) throw e;
+                        return page;
+                    }
+                }
+                if (s.buffer.isEmpty()) continue;
+                if (best == null || comesFirst(s.buffer.peekFirst(), best.buffer.peekFirst())) best = s;
+            }
+            if (best == null) break;
+            page.add(new Item(best.buffer.pollFirst(), best.type));
+        }
+        return page;
+    }
+
+    synchronized boolean hasMore() {
+        for (Stream s : streams) {
+            if (!s.buffer.isEmpty() || !s.exhausted) return true;
+        }
+        return false;
+    }
+
+    // Состояние источника меняется только после успешного запроса
+    private void fill(Stream s) {
+        List<? extends TrelloDAO.Dated> rows = s.source.fetch(s.cursor, PAGE_SIZE, newestFirst);
+        s.buffer.addAll(rows);
+        if (!rows.isEmpty()) s.cursor = TrelloDAO.PageCursor.after(rows.get(rows.size() - 1));
+        s.exhausted = rows.size() < PAGE_SIZE;
+    }
+
+    private boolean comesFirst(TrelloDAO.Dated a, TrelloDAO.Dated b) {
+        int c = OLDEST_FIRST.compare(a, b);
+        return newestFirst ? c > 0 : c < 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.superplanningapp.trello;
+
+import java.util.List;
+
+// Приглашения, уведомления, счетчик для бейджа и поиск - все, что нужно главному экрану Trello помимо досок.
+// Реализации: JdbcTrelloRepository (TrelloDAO), InMemoryTrelloRepository.
+// Принятие приглашения - в BoardRepository: оно меняет список досок.
+public interface InboxRepository {
+
+    // false - получатель уже участник доски или запись не удалась
+    boolean sendInvitation(int senderId, int receiverId, int boardId);
+
+    // Списки читаются страницами (см. TrelloDAO.PageCursor): after = null - первая страница.
+    // Ошибка - исключение, а не пустой список (пустая страница для InboxFeed значит "записей больше нет")
+    List<TrelloDAO.Invitation> getPendingInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+
+    List<TrelloDAO.Invitation> getOutgoingInvitations(int senderId, TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+
+    List<TrelloDAO.Invitation> getArchivedInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+
+    void declineInvitation(int invitationId);
+
+    List<TrelloDAO.Notification> getUnreadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+
+    List<TrelloDAO.Notification> getReadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst);
+
+    void markNotificationAsRead(int notifId);
+
+    // Ожидающие приглашения + непрочитанные уведомления (без самих записей)
+    TrelloDAO.BadgeCounts getBadgeCounts(int userId);
+
+    // Счетчики изменились в обход репозитория (событие ChangeFeed от другого пользователя)
+    void invalidateBadgeCounts();
+
+    // Карточки, списки и доски пользователя по релевантности
+    List<TrelloDAO.SearchResult> search(int userId, String query, int limit);
+}
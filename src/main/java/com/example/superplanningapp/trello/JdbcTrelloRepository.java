@@ -0,0 +1,158 @@
+package com.example.superplanningapp.trello;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Репозиторий поверх TrelloDAO (PostgreSQL + локальная реплика)
+public class JdbcTrelloRepository implements BoardRepository, CardRepository, InboxRepository {
+
+    // === ДОСКИ ===
+
+    @Override
+    public List<Board> getAllBoards(int userId) {
+        return TrelloDAO.getAllBoards(userId);
+    }
+
+    @Override
+    public Map<Integer, TrelloDAO.BoardPeople> getBoardPeople(Collection<Integer> boardIds) {
+        return TrelloDAO.getBoardPeople(boardIds);
+    }
+
+    @Override
+    public Board createBoard(String title, String description, int userId) {
+        return TrelloDAO.createBoard(title, description, userId);
+    }
+
+    @Override
+    public boolean updateBoard(int boardId, String title, String description) {
+        return TrelloDAO.updateBoard(boardId, title, description);
+    }
+
+    @Override
+    public boolean deleteBoard(int boardId) {
+        return TrelloDAO.deleteBoard(boardId);
+    }
+
+    @Override
+    public void removeBoardMember(int boardId, int userId) {
+        TrelloDAO.removeBoardMember(boardId, userId);
+    }
+
+    @Override
+    public void leaveBoard(int boardId, int userId, String userName) {
+        TrelloDAO.leaveBoard(boardId, userId, userName);
+    }
+
+    @Override
+    public void acceptInvitation(int invitationId) {
+        TrelloDAO.acceptInvitation(invitationId);
+    }
+
+    // === СПИСКИ ===
+
+    @Override
+    public BoardSnapshot getBoardSnapshot(int boardId) {
+        return TrelloDAO.getBoardSnapshot(boardId);
+    }
+
+    @Override
+    public TrelloList createList(String title, int boardId) {
+        return TrelloDAO.createList(title, boardId);
+    }
+
+    @Override
+    public boolean deleteList(int listId) {
+        return TrelloDAO.deleteList(listId);
+    }
+
+    @Override
+    public CompletableFuture<Void> queueUpdateList(int listId, String title, String color) {
+        return TrelloDAO.queueUpdateList(listId, title, color);
+    }
+
+    // === КАРТОЧКИ ===
+
+    @Override
+    public List<Card> getCardsByList(int listId) {
+        return TrelloDAO.getCardsByList(listId);
+    }
+
+    @Override
+    public Card createCard(String title, String description, int listId) {
+        return TrelloDAO.createCard(title, description, listId);
+    }
+
+    @Override
+    public boolean deleteCard(int cardId) {
+        return TrelloDAO.deleteCard(cardId);
+    }
+
+    @Override
+    public CompletableFuture<Void> queueMoveCard(int cardId, int listId, int cardOrder) {
+        return TrelloDAO.queueMoveCard(cardId, listId, cardOrder);
+    }
+
+    @Override
+    public boolean rebalanceList(int listId, List<Integer> orderedIds) {
+        return TrelloDAO.rebalanceList(listId, orderedIds);
+    }
+
+    // === ПРИГЛАШЕНИЯ, УВЕДОМЛЕНИЯ, ПОИСК ===
+
+    @Override
+    public boolean sendInvitation(int senderId, int receiverId, int boardId) {
+        return TrelloDAO.sendInvitation(senderId, receiverId, boardId);
+    }
+
+    @Override
+    public List<TrelloDAO.Invitation> getPendingInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return TrelloDAO.getPendingInvitations(userId, after, limit, newestFirst);
+    }
+
+    @Override
+    public List<TrelloDAO.Invitation> getOutgoingInvitations(int senderId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return TrelloDAO.getOutgoingInvitations(senderId, after, limit, newestFirst);
+    }
+
+    @Override
+    public List<TrelloDAO.Invitation> getArchivedInvitations(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return TrelloDAO.getArchivedInvitations(userId, after, limit, newestFirst);
+    }
+
+    @Override
+    public void declineInvitation(int invitationId) {
+        TrelloDAO.declineInvitation(invitationId);
+    }
+
+    @Override
+    public List<TrelloDAO.Notification> getUnreadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return TrelloDAO.getUnreadNotifications(userId, after, limit, newestFirst);
+    }
+
+    @Override
+    public List<TrelloDAO.Notification> getReadNotifications(int userId, TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+        return TrelloDAO.getReadNotifications(userId, after, limit, newestFirst);
+    }
+
+    @Override
+    public void markNotificationAsRead(int notifId) {
+        TrelloDAO.markNotificationAsRead(notifId);
+    }
+
+    @Override
+    public TrelloDAO.BadgeCounts getBadgeCounts(int userId) {
+        return TrelloDAO.getBadgeCounts(userId);
+    }
+
+    @Override
+    public void invalidateBadgeCounts() {
+        TrelloDAO.invalidateBadgeCounts();
+    }
+
+    @Override
+    public List<TrelloDAO.SearchResult> search(int userId, String query, int limit) {
+        return TrelloDAO.search(userId, query, limit);
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.superplanningapp.trello;
 
+import com.example.superplanningapp.ChangeFeed;
+import com.example.superplanningapp.DbExecutor;
 import com.example.superplanningapp.MenuScene;
+import com.example.superplanningapp.Repositories;
+import com.example.superplanningapp.SyncEngine;
 import com.example.superplanningapp.User;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.input.*;
 import javafx.scene.layout.*;
+import javafx.util.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 public class TrelloBoardScene {
 
-    public static BorderPane createBoardView(User user, Board board) {
+    // Репозитории открытой доски (передаются из TrelloHomeScene)
+    private static BoardRepository boardRepository;
+    private static CardRepository cardRepository;
+
+    public static BorderPane createBoardView(User user, Board board, Repositories repositories) {
+        boardRepository = repositories.boards();
+        cardRepository = repositories.cards();
         BorderPane mainLayout = new BorderPane();
         mainLayout.setStyle("-fx-background-color: " + MenuScene.getBackgroundStyle() + ";");
 
@@ -47,20 +60,15 @@ public class TrelloBoardScene {
         // --- 2. ЦЕНТРАЛЬНАЯ ОБЛАСТЬ ---
         StackPane centerStack = new StackPane();
 
-        HBox listsContainer = new HBox(15);
-        listsContainer.setPadding(new Insets(20));
-        listsContainer.setAlignment(Pos.TOP_LEFT);
-
-        ScrollPane scrollPane = new ScrollPane(listsContainer);
-        scrollPane.setFitToHeight(true);
-        scrollPane.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
-        scrollPane.getStyleClass().add("edge-to-edge");
-
         ProgressIndicator loadingSpinner = new ProgressIndicator();
         loadingSpinner.setMaxSize(60, 60);
         loadingSpinner.setVisible(true);
 
-        centerStack.getChildren().addAll(scrollPane, loadingSpinner);
+        // Колонки и карточки виртуализированы: узлы есть только у видимых (см. BoardCanvas).
+        // Данные - в BoardViewModel, действия меняют ее локально, без перезагрузки доски
+        BoardCanvas canvas = new BoardCanvas(new BoardViewModel(board.getId()), loadingSpinner);
+
+        centerStack.getChildren().addAll(canvas, loadingSpinner);
 
         mainLayout.setTop(topBar);
         mainLayout.setCenter(centerStack);
@@ -69,50 +77,42 @@ public class TrelloBoardScene {
         CompletableFuture.runAsync(() -> {
             try {
                 Thread.sleep(50);
-                Platform.runLater(() -> refreshListsAsync(listsContainer, board.getId(), loadingSpinner));
+                Platform.runLater(() -> refreshListsAsync(canvas));
             } catch (InterruptedException e) { e.printStackTrace(); }
         });
 
+        subscribeToChanges(canvas);
+
         addListBtn.setOnAction(e -> {
             String title = newListField.getText().trim();
             if (!title.isEmpty()) {
-                loadingSpinner.setVisible(true);
-                CompletableFuture.runAsync(() -> {
-                    TrelloDAO.createList(title, board.getId());
-                }).thenRun(() -> Platform.runLater(() -> {
-                    newListField.clear();
-                    refreshListsAsync(listsContainer, board.getId(), loadingSpinner);
-                })).exceptionally(ex -> {
-                    Platform.runLater(() -> showError("Ошибка", ex.getMessage()));
-                    return null;
-                });
+                newListField.clear();
+                DbExecutor.supply(() -> boardRepository.createList(title, board.getId()))
+                        .thenAccept(list -> Platform.runLater(() -> {
+                            if (list != null) canvas.getModel().addList(list);
+                            else showError("Ошибка", "Не удалось создать список");
+                        }))
+                        .exceptionally(ex -> {
+                            Platform.runLater(() -> showError("Ошибка", ex.getMessage()));
+                            return null;
+                        });
             }
         });
 
         return mainLayout;
     }
 
-    private static void refreshListsAsync(HBox container, int boardId, ProgressIndicator spinner) {
+    // Полная загрузка доски: при открытии и для сверки, если локальное изменение не прошло в базе
+    private static void refreshListsAsync(BoardCanvas canvas) {
+        ProgressIndicator spinner = canvas.getSpinner();
         spinner.setVisible(true);
 
-        CompletableFuture.supplyAsync(() -> TrelloDAO.getListsByBoard(boardId))
-                .thenAccept(lists -> {
-                    Platform.runLater(() -> {
-                        container.getChildren().clear();
-                        if (lists.isEmpty()) {
-                            spinner.setVisible(false);
-                            Label emptyLabel = new Label("Нет списков. Создайте первый!");
-                            emptyLabel.setStyle("-fx-text-fill: " + MenuScene.getTextStyle() + "; -fx-font-size: 16px;");
-                            container.getChildren().add(emptyLabel);
-                        } else {
-                            for (TrelloList list : lists) {
-                                VBox listColumn = createListColumn(list, container, boardId, spinner);
-                                container.getChildren().add(listColumn);
-                            }
-                            spinner.setVisible(false);
-                        }
-                    });
-                })
+        // Вся доска (списки + карточки) приходит одним запросом, модель меняет только отличия
+        DbExecutor.supply(() -> boardRepository.getBoardSnapshot(canvas.getModel().getBoardId()))
+                .thenAccept(snapshot -> Platform.runLater(() -> {
+                    canvas.getModel().reconcile(snapshot);
+                    spinner.setVisible(false);
+                }))
                 .exceptionally(ex -> {
                     Platform.runLater(() -> {
                         spinner.setVisible(false);
@@ -122,193 +122,107 @@ public class TrelloBoardScene {
                 });
     }
 
-    private static VBox createListColumn(TrelloList list, HBox mainContainer, int boardId, ProgressIndicator mainSpinner) {
-        VBox column = new VBox(10);
-        column.setPrefWidth(300);
-
-        column.setStyle("-fx-background-color: " + getListColor(list.getColor()) + "; -fx-background-radius: 8; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 1);");
-
-        // Header
-        HBox header = new HBox();
-        header.setAlignment(Pos.CENTER_LEFT);
-        Label listTitle = new Label(list.getTitle());
-
-        String headerTextColor = MenuScene.isDarkTheme ? "#e4e6eb" : "#000000";
-        listTitle.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: " + headerTextColor + ";");
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        MenuButton menuBtn = new MenuButton("⋮");
-        menuBtn.setStyle("-fx-background-color: transparent; -fx-mark-color: " + headerTextColor + "; -fx-font-size: 14px; -fx-cursor: hand;");
-
-        MenuItem editItem = new MenuItem("Изменить название");
-        editItem.setOnAction(e -> showEditListDialog(list, mainContainer, boardId, mainSpinner));
-
-        MenuItem colorItem = new MenuItem("Изменить цвет");
-        colorItem.setOnAction(e -> showColorDialog(list, mainContainer, boardId, mainSpinner));
-
-        MenuItem deleteItem = new MenuItem("Удалить список");
-        deleteItem.setOnAction(e -> {
-            mainSpinner.setVisible(true);
-            CompletableFuture.runAsync(() -> TrelloDAO.deleteList(list.getId()))
-                    .thenRun(() -> Platform.runLater(() -> refreshListsAsync(mainContainer, boardId, mainSpinner)));
+    // === ИЗМЕНЕНИЯ ДРУГИХ УЧАСТНИКОВ (ChangeFeed) ===
+    // События о карточках перечитывают только затронутые списки, события о списках - доску целиком.
+    // Пачка событий (например, перенумерация списка) копится CHANGE_DEBOUNCE (200 мс) и применяется разом.
+    // Свои изменения пропускаются: модель уже обновлена локально.
+    private static final Duration CHANGE_DEBOUNCE = Duration.millis(200);
+
+    private static void subscribeToChanges(BoardCanvas canvas) {
+        BoardViewModel model = canvas.getModel();
+        Set<Integer> dirtyLists = new HashSet<>();
+        boolean[] fullReload = {false};
+        PauseTransition debounce = new PauseTransition(CHANGE_DEBOUNCE);
+        debounce.setOnFinished(e -> {
+            if (fullReload[0]) {
+                // Доска читается из реплики - сначала подтягиваем в нее чужие изменения
+                DbExecutor.run(SyncEngine::pullNow).thenRun(() -> Platform.runLater(() -> refreshListsAsync(canvas)));
+            } else {
+                for (int listId : dirtyLists) refreshListAsync(listId, canvas);
+            }
+            fullReload[0] = false;
+            dirtyLists.clear();
         });
 
-        menuBtn.getItems().addAll(editItem, colorItem, deleteItem);
-        header.getChildren().addAll(listTitle, spacer, menuBtn);
-
-        // Cards Container
-        VBox cardsContainer = new VBox(8);
-        cardsContainer.setStyle("-fx-background-color: transparent;");
-        ScrollPane cardsScroll = new ScrollPane(cardsContainer);
-        cardsScroll.setFitToWidth(true);
-        cardsScroll.setPrefHeight(500);
-        cardsScroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
-        cardsScroll.getStyleClass().add("edge-to-edge");
-
-        loadCardsForColumn(cardsContainer, list.getId(), mainContainer, boardId, mainSpinner);
-
-        // Add Card Area
-        VBox addCardSection = new VBox(5);
-        TextField cardTitleField = new TextField();
-        cardTitleField.setPromptText("Название задачи");
-        TextArea cardDescField = new TextArea();
-        cardDescField.setPromptText("Описание");
-        cardDescField.setPrefRowCount(2);
-
-        Button addCardBtn = new Button("Добавить");
-        addCardBtn.setStyle("-fx-background-color: " + MenuScene.Theme.ACCENT + "; -fx-text-fill: white; -fx-font-weight: bold; -fx-cursor: hand;");
-
-        if(MenuScene.isDarkTheme) {
-            String fieldStyle = "-fx-background-color: " + MenuScene.Theme.HOVER_DARK + "; -fx-text-fill: white; -fx-prompt-text-fill: #888;";
-            cardTitleField.setStyle(fieldStyle);
-            cardDescField.setStyle("text-area-background: " + MenuScene.Theme.HOVER_DARK + "; -fx-text-fill: white; -fx-control-inner-background: " + MenuScene.Theme.HOVER_DARK + "; -fx-prompt-text-fill: #888;");
-        }
-
-        addCardBtn.setOnAction(e -> {
-            String title = cardTitleField.getText().trim();
-            if (!title.isEmpty()) {
-                String desc = cardDescField.getText().trim();
-                CompletableFuture.runAsync(() -> TrelloDAO.createCard(title, desc, list.getId()))
-                        .thenRun(() -> Platform.runLater(() -> {
-                            cardTitleField.clear();
-                            cardDescField.clear();
-                            loadCardsForColumn(cardsContainer, list.getId(), mainContainer, boardId, mainSpinner);
-                        }));
+        Runnable unsubscribe = ChangeFeed.subscribe(event -> Platform.runLater(() -> {
+            if (event.isResync()) {
+                fullReload[0] = true;
+            } else if (event.isOwn()) {
+                return;
+            } else if ("lists".equals(event.getTable()) && event.getBoardId() == model.getBoardId()) {
+                fullReload[0] = true;
+            } else if ("cards".equals(event.getTable())) {
+                // Карточки чужих досок отсекаются по спискам модели (при перемещении - старый и новый список)
+                boolean ours = false;
+                if (model.hasList(event.getListId())) { dirtyLists.add(event.getListId()); ours = true; }
+                if (model.hasList(event.getOldListId())) { dirtyLists.add(event.getOldListId()); ours = true; }
+                if (!ours) return;
+            } else {
+                return;
+            }
+            debounce.playFromStart();
+        }));
+
+        // Доску закрыли (полотно ушло со сцены) - отписываемся
+        canvas.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                unsubscribe.run();
+                debounce.stop();
             }
         });
+    }
 
-        addCardSection.getChildren().addAll(cardTitleField, cardDescField, addCardBtn);
-        column.getChildren().addAll(header, cardsScroll, addCardSection);
+    private static void refreshListAsync(int listId, BoardCanvas canvas) {
+        DbExecutor.supply(() -> cardRepository.getCardsByList(listId))
+                .thenAccept(cards -> Platform.runLater(() -> canvas.getModel().reconcileList(listId, cards)));
+    }
 
-        setupDragAndDrop(cardsContainer, list.getId(), mainContainer, boardId, mainSpinner);
+    // === ДЕЙСТВИЯ ИЗ КОЛОНОК И КАРТОЧЕК (вызываются ячейками BoardCanvas) ===
+    // Изменение сразу применяется к модели; если запись в базу не удалась - сверяемся с сервером
 
-        return column;
+    static void deleteList(TrelloList list, BoardCanvas canvas) {
+        canvas.getModel().removeList(list.getId());
+        DbExecutor.supply(() -> boardRepository.deleteList(list.getId()))
+                .thenAccept(ok -> { if (!ok) Platform.runLater(() -> refreshListsAsync(canvas)); });
     }
 
-    private static void loadCardsForColumn(VBox container, int listId, HBox mainContainer, int boardId, ProgressIndicator spinner) {
-        CompletableFuture.supplyAsync(() -> TrelloDAO.getCardsByList(listId))
-                .thenAccept(cards -> Platform.runLater(() -> {
-                    container.getChildren().clear();
-                    for (Card card : cards) {
-                        container.getChildren().add(createCardBox(card, listId, boardId, mainContainer, spinner));
-                    }
+    // Карточка появляется, когда база вернула ее id
+    static void addCard(TrelloList list, String title, String desc, BoardCanvas canvas) {
+        DbExecutor.supply(() -> cardRepository.createCard(title, desc, list.getId()))
+                .thenAccept(card -> Platform.runLater(() -> {
+                    if (card != null) canvas.getModel().addCard(card);
+                    else refreshListsAsync(canvas);
                 }));
     }
 
-    private static VBox createCardBox(Card card, int listId, int boardId, HBox mainContainer, ProgressIndicator spinner) {
-        VBox cardBox = new VBox(5);
-
-        String cardBg = MenuScene.isDarkTheme ? "#232323" : "white";
-        String textColor = MenuScene.getTextStyle();
-        // Сделал еще светлее для контраста (#aaaaaa)
-        String descColor = MenuScene.isDarkTheme ? "#aaaaaa" : "#666666";
-
-        cardBox.setStyle("-fx-background-color: " + cardBg + "; -fx-background-radius: 5; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 3, 0, 0, 1);");
-        cardBox.setUserData(card);
-
-        HBox titleRow = new HBox();
-        titleRow.setAlignment(Pos.CENTER_LEFT);
-        Label titleLabel = new Label(card.getTitle());
-        titleLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: " + textColor + ";");
-        titleLabel.setWrapText(true);
-        titleLabel.setMaxWidth(220);
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-        Button deleteBtn = new Button("✕");
-        deleteBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: " + MenuScene.Theme.ERROR + "; -fx-cursor: hand;");
-
-        deleteBtn.setOnAction(e -> {
-            CompletableFuture.runAsync(() -> TrelloDAO.deleteCard(card.getId()))
-                    .thenRun(() -> Platform.runLater(() -> refreshListsAsync(mainContainer, boardId, spinner)));
-        });
-
-        titleRow.getChildren().addAll(titleLabel, spacer, deleteBtn);
-
-        // --- ОПИСАНИЕ КАРТОЧКИ ---
-        Label descLabel = new Label(card.getDescription());
-        descLabel.setStyle("-fx-text-fill: " + descColor + "; -fx-font-size: 12px;");
-        descLabel.setWrapText(true);
-        descLabel.setMaxWidth(260);
-
-        cardBox.getChildren().add(titleRow);
-
-        // Добавляем описание только если оно есть
-        if (card.getDescription() != null && !card.getDescription().trim().isEmpty()) {
-            cardBox.getChildren().add(descLabel);
-        }
-
-        cardBox.setOnMouseEntered(e -> cardBox.setStyle("-fx-background-color: " + (MenuScene.isDarkTheme ? "#2c2c2c" : "#f9f9f9") + "; -fx-background-radius: 5; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 3, 0, 0, 1); -fx-cursor: hand;"));
-        cardBox.setOnMouseExited(e -> cardBox.setStyle("-fx-background-color: " + cardBg + "; -fx-background-radius: 5; -fx-padding: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 3, 0, 0, 1);"));
-
-        cardBox.setOnDragDetected(event -> {
-            Dragboard db = cardBox.startDragAndDrop(TransferMode.MOVE);
-            ClipboardContent content = new ClipboardContent();
-            content.putString(String.valueOf(card.getId()));
-            db.setContent(content);
-            event.consume();
-        });
-
-        return cardBox;
+    static void deleteCard(Card card, BoardCanvas canvas) {
+        canvas.getModel().removeCard(card.getId());
+        DbExecutor.supply(() -> cardRepository.deleteCard(card.getId()))
+                .thenAccept(ok -> { if (!ok) Platform.runLater(() -> refreshListsAsync(canvas)); });
     }
 
-    private static void setupDragAndDrop(VBox cardsContainer, int listId, HBox mainContainer, int boardId, ProgressIndicator spinner) {
-        cardsContainer.setOnDragOver(event -> {
-            if (event.getGestureSource() != cardsContainer && event.getDragboard().hasString()) {
-                event.acceptTransferModes(TransferMode.MOVE);
-            }
-            event.consume();
-        });
-
-        cardsContainer.setOnDragDropped(event -> {
-            Dragboard db = event.getDragboard();
-            boolean success = false;
-            if (db.hasString()) {
-                int cardId = Integer.parseInt(db.getString());
-                CompletableFuture.runAsync(() -> TrelloDAO.moveCard(cardId, listId))
-                        .thenRun(() -> Platform.runLater(() -> refreshListsAsync(mainContainer, boardId, spinner)));
-                success = true;
-            }
-            event.setDropCompleted(success);
-            event.consume();
-        });
+    // Перетаскивание на позицию index: перенос в модели + один UPDATE (новый ранг между соседями)
+    // через очередь отложенной записи, без перезагрузки.
+    // Доска перечитывается, только если база отвергла перенос (например, карточку уже удалили)
+    static void moveCard(int cardId, int listId, int index, BoardCanvas canvas) {
+        BoardViewModel model = canvas.getModel();
+        if (!model.moveCard(cardId, listId, index)) return;
+
+        Card card = model.findCard(cardId);
+        Integer rank = model.rankBetweenNeighbours(card);
+        if (rank != null) {
+            card.setCardOrder(rank);
+            reconcileIfRejected(cardRepository.queueMoveCard(cardId, listId, rank), canvas);
+        } else {
+            rebalanceAsync(listId, canvas);
+        }
     }
 
-    private static String getListColor(String color) {
-        if (color == null || color.equals("null")) return MenuScene.isDarkTheme ? "#1a1a1a" : "#f0f2f5";
-
-        switch (color) {
-            case "red":
-                return MenuScene.isDarkTheme ? "#4a1a1a" : "#ffe0e0";
-            case "yellow":
-                return MenuScene.isDarkTheme ? "#4a4a1a" : "#fffacc";
-            case "green":
-                return MenuScene.isDarkTheme ? "#1a3b1a" : "#e6fbd9";
-            default:
-                return MenuScene.isDarkTheme ? "#1a1a1a" : "#f0f2f5";
-        }
+    // Между соседями не осталось места: перенумеровываем список (в модели сразу, в базе - в фоне)
+    private static void rebalanceAsync(int listId, BoardCanvas canvas) {
+        List<Integer> orderedIds = canvas.getModel().renumber(listId);
+        DbExecutor.supply(() -> cardRepository.rebalanceList(listId, orderedIds))
+                .thenAccept(ok -> { if (!ok) Platform.runLater(() -> refreshListsAsync(canvas)); });
     }
 
     private static void styleDialog(Dialog<?> dialog) {
@@ -320,7 +234,7 @@ public class TrelloBoardScene {
         }
     }
 
-    private static void showEditListDialog(TrelloList list, HBox container, int boardId, ProgressIndicator spinner) {
+    static void showEditListDialog(TrelloList list, BoardCanvas canvas) {
         TextInputDialog dialog = new TextInputDialog(list.getTitle());
         dialog.setTitle("Редактировать");
         dialog.setHeaderText("Название списка");
@@ -332,17 +246,14 @@ public class TrelloBoardScene {
         }
 
         dialog.showAndWait().ifPresent(name -> {
-            spinner.setVisible(true);
-            CompletableFuture.runAsync(() -> TrelloDAO.updateList(list.getId(), name, list.getColor()))
-                    .thenRun(() -> Platform.runLater(() -> refreshListsAsync(container, boardId, spinner)));
+            canvas.getModel().updateList(list.getId(), name, list.getColor());
+            reconcileIfRejected(boardRepository.queueUpdateList(list.getId(), name, list.getColor()), canvas);
         });
     }
 
     // === ИСПРАВЛЕННЫЙ МЕТОД: ВЫБОР ЦВЕТА ===
-    private static void showColorDialog(TrelloList list, HBox container, int boardId, ProgressIndicator spinner) {
-        TrelloList freshList = TrelloDAO.getListById(list.getId());
-        if (freshList != null) list = freshList;
-
+    static void showColorDialog(TrelloList list, BoardCanvas canvas) {
+        // Список берем из модели (она уже актуальна), без запроса к базе в FX-потоке
         Dialog<String> dialog = new Dialog<>();
         dialog.setTitle("Выбрать цвет");
         dialog.initOwner(MenuScene.getStage());
@@ -409,9 +320,18 @@ public class TrelloBoardScene {
             // Если пришло "NONE", значит превращаем это в null для базы данных
             String colorToSave = "NONE".equals(col) ? null : col;
 
-            spinner.setVisible(true);
-            CompletableFuture.runAsync(() -> TrelloDAO.updateList(finalL.getId(), finalL.getTitle(), colorToSave))
-                    .thenRun(() -> Platform.runLater(() -> refreshListsAsync(container, boardId, spinner)));
+            canvas.getModel().updateList(finalL.getId(), finalL.getTitle(), colorToSave);
+            reconcileIfRejected(boardRepository.queueUpdateList(finalL.getId(), finalL.getTitle(), colorToSave), canvas);
+        });
+    }
+
+    // Перенос карточки или правка списка записаны - в базе то же, что в модели, читать нечего.
+    // Отвергнуты (например, карточку или список уже удалили) - перечитываем доску целиком:
+    // сам список мог исчезнуть. Доска читается из реплики, поэтому сначала pull
+    private static void reconcileIfRejected(CompletableFuture<Void> written, BoardCanvas canvas) {
+        written.exceptionally(ex -> {
+            DbExecutor.run(SyncEngine::pullNow).thenRun(() -> Platform.runLater(() -> refreshListsAsync(canvas)));
+            return null;
         });
     }
 
@@ -1,12 +1,21 @@
 package com.example.superplanningapp.trello;
 
 import com.example.superplanningapp.DatabaseConnection;
+import com.example.superplanningapp.LocalReplica;
+import com.example.superplanningapp.SyncEngine;
 import com.example.superplanningapp.User;
+import com.example.superplanningapp.UserDAO;
+import com.example.superplanningapp.WriteBehindQueue;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TrelloDAO {
 
@@ -23,7 +32,8 @@ public class TrelloDAO {
                 "WHERE bm.user_id = ? " +
                 "ORDER BY created_at DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        // Из локальной реплики, если она уже синхронизирована (LocalReplica)
+        try (Connection conn = LocalReplica.readConnection(userId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             pstmt.setInt(2, userId);
@@ -50,18 +60,35 @@ public class TrelloDAO {
             pstmt.setInt(3, userId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Board(
+                Board board = new Board(
                         rs.getInt("id"),
                         rs.getString("title"),
                         rs.getString("description"),
                         rs.getInt("user_id"),
                         rs.getTimestamp("created_at").toLocalDateTime()
                 );
+                mirrorBoard(board);
+                return board;
             }
         } catch (SQLException e) { e.printStackTrace(); }
         return null;
     }
 
+    // Новая доска сразу попадает в реплику и считается скачанной для владельца
+    private static void mirrorBoard(Board board) {
+        LocalReplica.mirror("MERGE INTO boards (id, title, description, user_id, created_at) KEY(id) VALUES (?, ?, ?, ?, ?)", p -> {
+            p.setInt(1, board.getId());
+            p.setString(2, board.getTitle());
+            p.setString(3, board.getDescription());
+            p.setInt(4, board.getUserId());
+            p.setTimestamp(5, Timestamp.valueOf(board.getCreatedAt()));
+        });
+        LocalReplica.mirror("MERGE INTO sync_boards (user_id, board_id) KEY(user_id, board_id) VALUES (?, ?)", p -> {
+            p.setInt(1, board.getUserId());
+            p.setInt(2, board.getId());
+        });
+    }
+
     public static boolean updateBoard(int boardId, String title, String description) {
         String sql = "UPDATE boards SET title = ?, description = ? WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
@@ -69,7 +96,13 @@ public class TrelloDAO {
             pstmt.setString(1, title);
             pstmt.setString(2, description);
             pstmt.setInt(3, boardId);
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) return false;
+            LocalReplica.mirror(sql, p -> {
+                p.setString(1, title);
+                p.setString(2, description);
+                p.setInt(3, boardId);
+            });
+            return true;
         } catch (SQLException e) { e.printStackTrace(); }
         return false;
     }
@@ -79,7 +112,9 @@ public class TrelloDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, boardId);
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) return false;
+            LocalReplica.removeBoard(boardId);
+            return true;
         } catch (SQLException e) { e.printStackTrace(); }
         return false;
     }
@@ -107,6 +142,34 @@ public class TrelloDAO {
         return members;
     }
 
+    // Владельцы и участники сразу для ВСЕХ досок сетки (один запрос вместо 2 на каждую доску)
+    public static Map<Integer, BoardPeople> getBoardPeople(Collection<Integer> boardIds) {
+        Map<Integer, BoardPeople> result = new HashMap<>();
+        if (boardIds.isEmpty()) return result;
+        for (int id : boardIds) result.put(id, new BoardPeople());
+
+        String sql = "SELECT b.id AS board_id, TRUE AS is_owner, u.* FROM boards b " +
+                "JOIN users u ON u.id = b.user_id WHERE b.id = ANY(?) " +
+                "UNION ALL " +
+                "SELECT bm.board_id, FALSE AS is_owner, u.* FROM board_members bm " +
+                "JOIN users u ON u.id = bm.user_id WHERE bm.board_id = ANY(?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            Array ids = conn.createArrayOf("integer", boardIds.toArray());
+            pstmt.setArray(1, ids);
+            pstmt.setArray(2, ids);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                BoardPeople people = result.get(rs.getInt("board_id"));
+                User user = UserDAO.mapUser(rs);
+                if (rs.getBoolean("is_owner")) people.owner = user;
+                else people.members.add(user);
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return result;
+    }
+
     public static void removeBoardMember(int boardId, int userId) {
         String deleteSql = "DELETE FROM board_members WHERE board_id = ? AND user_id = ?";
         String boardName = getBoardName(boardId);
@@ -125,6 +188,7 @@ public class TrelloDAO {
                 pstmt.executeUpdate();
             }
             conn.commit();
+            mirrorMemberRemoved(boardId, userId);
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
@@ -149,9 +213,19 @@ public class TrelloDAO {
                 }
             }
             conn.commit();
+            mirrorMemberRemoved(boardId, userId);
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
+    // Участник ушел: доска пропадает из его списка сразу, данные доски убирает следующая синхронизация
+    private static void mirrorMemberRemoved(int boardId, int userId) {
+        LocalReplica.mirror("DELETE FROM board_members WHERE board_id = ? AND user_id = ?", p -> {
+            p.setInt(1, boardId);
+            p.setInt(2, userId);
+        });
+        SyncEngine.requestPull();
+    }
+
     // ==========================================
     // 3. INVITATIONS (Входящие, Исходящие, Архив)
     // ==========================================
@@ -170,33 +244,57 @@ public class TrelloDAO {
         } catch (SQLException e) { return false; }
     }
 
+    // Все списки приглашений и уведомлений читаются СТРАНИЦАМИ (keyset-пагинация по (created_at, id)):
+    // следующая страница начинается после последней строки предыдущей (after), без OFFSET.
+    // Стоимость страницы не зависит от того, сколько записей в архиве и как далеко пролистали.
+    // after = null - первая страница.
+    // Ошибка базы здесь - исключение, а не пустой список: пустая страница значит "записей больше нет",
+    // и лента (InboxFeed) перестала бы подгружать раздел до переоткрытия
+
     // ВХОДЯЩИЕ (PENDING)
-    public static List<Invitation> getPendingInvitations(int userId) {
+    public static List<Invitation> getPendingInvitations(int userId, PageCursor after, int limit, boolean newestFirst) {
         return getInvitationsByQuery("SELECT i.id, u.username as user_name, b.title as board_name, i.status, i.created_at " +
                 "FROM invitations i JOIN users u ON i.sender_id = u.id JOIN boards b ON i.board_id = b.id " +
-                "WHERE i.receiver_id = ? AND i.status = 'PENDING'", userId);
+                "WHERE i.receiver_id = ? AND i.status = 'PENDING'", userId, after, limit, newestFirst);
     }
 
     // ИСХОДЯЩИЕ (Все, которые я отправил)
-    public static List<Invitation> getOutgoingInvitations(int senderId) {
+    public static List<Invitation> getOutgoingInvitations(int senderId, PageCursor after, int limit, boolean newestFirst) {
         // Здесь user_name будет именем ПОЛУЧАТЕЛЯ
         return getInvitationsByQuery("SELECT i.id, u.username as user_name, b.title as board_name, i.status, i.created_at " +
                 "FROM invitations i JOIN users u ON i.receiver_id = u.id JOIN boards b ON i.board_id = b.id " +
-                "WHERE i.sender_id = ?", senderId);
+                "WHERE i.sender_id = ?", senderId, after, limit, newestFirst);
     }
 
     // АРХИВ ПРИГЛАШЕНИЙ (Принятые или отклоненные МНОЙ)
-    public static List<Invitation> getArchivedInvitations(int userId) {
+    public static List<Invitation> getArchivedInvitations(int userId, PageCursor after, int limit, boolean newestFirst) {
         return getInvitationsByQuery("SELECT i.id, u.username as user_name, b.title as board_name, i.status, i.created_at " +
                 "FROM invitations i JOIN users u ON i.sender_id = u.id JOIN boards b ON i.board_id = b.id " +
-                "WHERE i.receiver_id = ? AND i.status != 'PENDING'", userId);
+                "WHERE i.receiver_id = ? AND i.status != 'PENDING'", userId, after, limit, newestFirst);
+    }
+
+    // Дописывает к запросу условие "после курсора", порядок и LIMIT
+    private static String keysetPage(String sql, String alias, PageCursor after, boolean newestFirst) {
+        String dir = newestFirst ? "DESC" : "ASC";
+        if (after != null) sql += " AND (" + alias + "created_at, " + alias + "id) " + (newestFirst ? "<" : ">") + " (?, ?)";
+        return sql + " ORDER BY " + alias + "created_at " + dir + ", " + alias + "id " + dir + " LIMIT ?";
+    }
+
+    private static void bindPage(PreparedStatement pstmt, int paramId, PageCursor after, int limit) throws SQLException {
+        int i = 1;
+        pstmt.setInt(i++, paramId);
+        if (after != null) {
+            pstmt.setTimestamp(i++, Timestamp.valueOf(after.createdAt));
+            pstmt.setInt(i++, after.id);
+        }
+        pstmt.setInt(i, limit);
     }
 
-    private static List<Invitation> getInvitationsByQuery(String sql, int paramId) {
+    private static List<Invitation> getInvitationsByQuery(String sql, int paramId, PageCursor after, int limit, boolean newestFirst) {
         List<Invitation> invites = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, paramId);
+             PreparedStatement pstmt = conn.prepareStatement(keysetPage(sql, "i.", after, newestFirst))) {
+            bindPage(pstmt, paramId, after, limit);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 invites.add(new Invitation(
@@ -207,7 +305,9 @@ public class TrelloDAO {
                         rs.getTimestamp("created_at").toLocalDateTime()
                 ));
             }
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось загрузить приглашения: " + e.getMessage(), e);
+        }
         return invites;
     }
 
@@ -218,12 +318,16 @@ public class TrelloDAO {
             try (PreparedStatement p = conn.prepareStatement("UPDATE invitations SET status = 'ACCEPTED' WHERE id = ?")) { p.setInt(1, invitationId); p.executeUpdate(); }
             conn.commit();
         } catch (SQLException e) { e.printStackTrace(); }
+        invalidateBadgeCounts();
+        // Новая доска нужна в реплике сразу: список досок перечитывается сразу после принятия
+        SyncEngine.pullNow();
     }
 
     public static void declineInvitation(int invitationId) {
         try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement("UPDATE invitations SET status = 'DECLINED' WHERE id = ?")) {
             pstmt.setInt(1, invitationId); pstmt.executeUpdate();
         } catch (SQLException e) { e.printStackTrace(); }
+        invalidateBadgeCounts();
     }
 
     // ==========================================
@@ -231,21 +335,23 @@ public class TrelloDAO {
     // ==========================================
 
     // Непрочитанные уведомления (ВХОДЯЩИЕ)
-    public static List<Notification> getUnreadNotifications(int userId) {
-        return getNotificationsByQuery("SELECT * FROM notifications WHERE user_id = ? AND is_read = FALSE", userId);
+    public static List<Notification> getUnreadNotifications(int userId, PageCursor after, int limit, boolean newestFirst) {
+        return getNotificationsByQuery("SELECT * FROM notifications WHERE user_id = ? AND is_read = FALSE", userId, after, limit, newestFirst);
     }
 
     // Прочитанные уведомления (АРХИВ)
-    public static List<Notification> getReadNotifications(int userId) {
-        return getNotificationsByQuery("SELECT * FROM notifications WHERE user_id = ? AND is_read = TRUE", userId);
+    public static List<Notification> getReadNotifications(int userId, PageCursor after, int limit, boolean newestFirst) {
+        return getNotificationsByQuery("SELECT * FROM notifications WHERE user_id = ? AND is_read = TRUE", userId, after, limit, newestFirst);
     }
 
-    private static List<Notification> getNotificationsByQuery(String sql, int userId) {
+    private static List<Notification> getNotificationsByQuery(String sql, int userId, PageCursor after, int limit, boolean newestFirst) {
         List<Notification> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId); ResultSet rs = pstmt.executeQuery();
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(keysetPage(sql, "", after, newestFirst))) {
+            bindPage(pstmt, userId, after, limit); ResultSet rs = pstmt.executeQuery();
             while (rs.next()) list.add(new Notification(rs.getInt("id"), rs.getString("message"), rs.getBoolean("is_read"), rs.getTimestamp("created_at").toLocalDateTime()));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось загрузить уведомления: " + e.getMessage(), e);
+        }
         return list;
     }
 
@@ -254,6 +360,41 @@ public class TrelloDAO {
         try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement("UPDATE notifications SET is_read = TRUE WHERE id = ?")) {
             pstmt.setInt(1, notifId); pstmt.executeUpdate();
         } catch (SQLException e) { e.printStackTrace(); }
+        invalidateBadgeCounts();
+    }
+
+    // ==========================================
+    // 4.1 СЧЕТЧИК ДЛЯ БЕЙДЖА
+    // ==========================================
+    // Оба числа - одной строкой из двух COUNT(*) по частичным индексам
+    // (idx_invitations_receiver_pending, idx_notifications_user_unread, см. README): строки не передаются.
+    // Результат живет BADGE_TTL_MS, повторные открытия экрана в это время не ходят в базу.
+
+    private static final long BADGE_TTL_MS = 5_000;
+    private static final Map<Integer, BadgeCounts> badgeCache = new ConcurrentHashMap<>();
+
+    public static BadgeCounts getBadgeCounts(int userId) {
+        BadgeCounts cached = badgeCache.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < BADGE_TTL_MS) return cached;
+
+        String sql = "SELECT (SELECT COUNT(*) FROM invitations WHERE receiver_id = ? AND status = 'PENDING') AS invitations, " +
+                "(SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE) AS notifications";
+        try (Connection conn = DatabaseConnection.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                BadgeCounts counts = new BadgeCounts(rs.getInt("invitations"), rs.getInt("notifications"), System.currentTimeMillis());
+                badgeCache.put(userId, counts);
+                return counts;
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        return cached != null ? cached : new BadgeCounts(0, 0, 0);
+    }
+
+    // Ответ на приглашение и прочтение знают только id записи, поэтому сбрасываем кэш целиком (в нем 1-2 пользователя)
+    public static void invalidateBadgeCounts() {
+        badgeCache.clear();
     }
 
     // Вспомогательные методы
@@ -277,36 +418,281 @@ public class TrelloDAO {
 
     // === LISTS & CARDS (Оставлены без изменений для краткости) ===
     public static List<TrelloList> getListsByBoard(int boardId) {
+        flushPendingWrites();
         List<TrelloList> l = new ArrayList<>();
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("SELECT * FROM lists WHERE board_id=? ORDER BY id")){p.setInt(1,boardId);ResultSet r=p.executeQuery();while(r.next())l.add(new TrelloList(r.getInt("id"),r.getString("title"),r.getInt("board_id"),r.getString("color")));}catch(Exception e){e.printStackTrace();} return l;
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement(LISTS_BY_BOARD)){p.setInt(1,boardId);ResultSet r=p.executeQuery();while(r.next())l.add(mapList(r));}catch(Exception e){e.printStackTrace();} return l;
     }
     public static TrelloList createList(String t, int b) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("INSERT INTO lists (title, board_id) VALUES (?, ?) RETURNING *")){p.setString(1,t);p.setInt(2,b);ResultSet r=p.executeQuery();if(r.next())return new TrelloList(r.getInt("id"),r.getString("title"),r.getInt("board_id"),r.getString("color"));}catch(Exception e){e.printStackTrace();}return null;
+        flushPendingWrites();
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("INSERT INTO lists (title, board_id) VALUES (?, ?) RETURNING *")){p.setString(1,t);p.setInt(2,b);ResultSet r=p.executeQuery();if(r.next()){TrelloList l=mapList(r);mirrorList(l);return l;}}catch(Exception e){e.printStackTrace();}return null;
     }
     public static boolean updateList(int id, String t, String col) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("UPDATE lists SET title=?, color=? WHERE id=?")){p.setString(1,t);p.setString(2,col);p.setInt(3,id);return p.executeUpdate()>0;}catch(Exception e){return false;}
+        flushPendingWrites();
+        WriteBehindQueue.Binder b=p->{p.setString(1,t);p.setString(2,col);p.setInt(3,id);};
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement(UPDATE_LIST)){b.bind(p);if(p.executeUpdate()==0)return false;LocalReplica.mirror(UPDATE_LIST,b);return true;}catch(Exception e){return false;}
     }
     public static boolean deleteList(int id) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("DELETE FROM lists WHERE id=?")){p.setInt(1,id);return p.executeUpdate()>0;}catch(Exception e){return false;}
+        flushPendingWrites();
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("DELETE FROM lists WHERE id=?")){p.setInt(1,id);if(p.executeUpdate()==0)return false;LocalReplica.mirror("DELETE FROM cards WHERE list_id=?",m->m.setInt(1,id));LocalReplica.mirror("DELETE FROM lists WHERE id=?",m->m.setInt(1,id));return true;}catch(Exception e){return false;}
     }
     public static TrelloList getListById(int id) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("SELECT * FROM lists WHERE id=?")){p.setInt(1,id);ResultSet r=p.executeQuery();if(r.next())return new TrelloList(r.getInt("id"),r.getString("title"),r.getInt("board_id"),r.getString("color"));}catch(Exception e){e.printStackTrace();}return null;
+        flushPendingWrites();
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("SELECT * FROM lists WHERE id=?")){p.setInt(1,id);ResultSet r=p.executeQuery();if(r.next())return mapList(r);}catch(Exception e){e.printStackTrace();}return null;
     }
     public static List<Card> getCardsByList(int lid) {
-        List<Card> l=new ArrayList<>(); try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("SELECT * FROM cards WHERE list_id=? ORDER BY card_order, id")){p.setInt(1,lid);ResultSet r=p.executeQuery();while(r.next())l.add(new Card(r.getInt("id"),r.getString("title"),r.getString("description"),r.getInt("list_id")));}catch(Exception e){}return l;
+        flushPendingWrites();
+        List<Card> l=new ArrayList<>(); try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement(CARDS_BY_LIST)){p.setInt(1,lid);ResultSet r=p.executeQuery();while(r.next())l.add(mapCard(r));}catch(Exception e){}return l;
     }
+    // Новая карточка встает в конец списка: ранг = последний + CardRank.GAP
     public static Card createCard(String t, String d, int lid) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("INSERT INTO cards (title, description, list_id) VALUES (?, ?, ?) RETURNING *")){p.setString(1,t);p.setString(2,d);p.setInt(3,lid);ResultSet r=p.executeQuery();if(r.next())return new Card(r.getInt("id"),r.getString("title"),r.getString("description"),r.getInt("list_id"));}catch(Exception e){}return null;
+        flushPendingWrites();
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("INSERT INTO cards (title, description, list_id, card_order) VALUES (?, ?, ?, COALESCE((SELECT MAX(card_order) FROM cards WHERE list_id = ?), 0) + " + CardRank.GAP + ") RETURNING *")){p.setString(1,t);p.setString(2,d);p.setInt(3,lid);p.setInt(4,lid);ResultSet r=p.executeQuery();if(r.next()){Card card=mapCard(r);mirrorCard(card);return card;}}catch(Exception e){}return null;
     }
     public static boolean moveCard(int cid, int nlid) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("UPDATE cards SET list_id=? WHERE id=?")){p.setInt(1,nlid);p.setInt(2,cid);return p.executeUpdate()>0;}catch(Exception e){return false;}
+        flushPendingWrites();
+        WriteBehindQueue.Binder b=p->{p.setInt(1,nlid);p.setInt(2,cid);};
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("UPDATE cards SET list_id=? WHERE id=?")){b.bind(p);if(p.executeUpdate()==0)return false;LocalReplica.mirror("UPDATE cards SET list_id=? WHERE id=?",b);return true;}catch(Exception e){return false;}
     }
     public static boolean deleteCard(int cid) {
-        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("DELETE FROM cards WHERE id=?")){p.setInt(1,cid);return p.executeUpdate()>0;}catch(Exception e){return false;}
+        flushPendingWrites();
+        try(Connection c=DatabaseConnection.getConnection();PreparedStatement p=c.prepareStatement("DELETE FROM cards WHERE id=?")){p.setInt(1,cid);if(p.executeUpdate()==0)return false;LocalReplica.mirror("DELETE FROM cards WHERE id=?",m->m.setInt(1,cid));return true;}catch(Exception e){return false;}
+    }
+
+    // Отложенные версии (WriteBehindQueue): серия перетаскиваний одной карточки
+    // или правок одного списка схлопывается в одну запись
+    // Перенос на позицию: новый ранг уже посчитан между соседями (CardRank), меняется одна строка
+    // В реплику пишется сразу (mirrorAsync - вызов идет из UI-потока, H2 пишет поток реплики):
+    // изменение видно при чтении, даже пока очередь ждет сети
+    public static CompletableFuture<Void> queueMoveCard(int cardId, int newListId, int cardOrder) {
+        WriteBehindQueue.Binder binder = p -> {
+            p.setInt(1, newListId);
+            p.setInt(2, cardOrder);
+            p.setInt(3, cardId);
+        };
+        LocalReplica.mirrorAsync(MOVE_CARD, binder);
+        return WriteBehindQueue.enqueue("card-move:" + cardId, MOVE_CARD, binder);
+    }
+
+    public static CompletableFuture<Void> queueUpdateList(int listId, String title, String color) {
+        WriteBehindQueue.Binder binder = p -> {
+            p.setString(1, title);
+            p.setString(2, color);
+            p.setInt(3, listId);
+        };
+        LocalReplica.mirrorAsync(UPDATE_LIST, binder);
+        return WriteBehindQueue.enqueue("list-update:" + listId, UPDATE_LIST, binder);
+    }
+
+    // Одинаковый SQL для основной базы и реплики
+    private static final String MOVE_CARD = "UPDATE cards SET list_id=?, card_order=? WHERE id=?";
+    private static final String UPDATE_LIST = "UPDATE lists SET title=?, color=? WHERE id=?";
+
+    private static void mirrorList(TrelloList list) {
+        LocalReplica.mirror("MERGE INTO lists (id, title, board_id, color) KEY(id) VALUES (?, ?, ?, ?)", p -> {
+            p.setInt(1, list.getId());
+            p.setString(2, list.getTitle());
+            p.setInt(3, list.getBoardId());
+            p.setString(4, list.getColor());
+        });
+    }
+
+    private static void mirrorCard(Card card) {
+        LocalReplica.mirror("MERGE INTO cards (id, title, description, list_id, card_order) KEY(id) VALUES (?, ?, ?, ?, ?)", p -> {
+            p.setInt(1, card.getId());
+            p.setString(2, card.getTitle());
+            p.setString(3, card.getDescription());
+            p.setInt(4, card.getListId());
+            p.setInt(5, card.getCardOrder());
+        });
+    }
+
+    // Перебалансировка: карточкам списка в порядке orderedIds назначаются ранги GAP, 2*GAP, ...
+    // Одним запросом (unnest WITH ORDINALITY), нужна редко - когда между соседями кончилось место
+    public static boolean rebalanceList(int listId, List<Integer> orderedIds) {
+        flushPendingWrites();
+        String sql = "UPDATE cards c SET list_id = ?, card_order = v.ord * " + CardRank.GAP + " " +
+                "FROM unnest(?) WITH ORDINALITY AS v(id, ord) " +
+                "WHERE c.id = v.id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, listId);
+            pstmt.setArray(2, conn.createArrayOf("integer", orderedIds.toArray()));
+            if (pstmt.executeUpdate() == 0) return false;
+            for (int i = 0; i < orderedIds.size(); i++) {
+                int cardId = orderedIds.get(i), order = (i + 1) * CardRank.GAP;
+                LocalReplica.mirror(MOVE_CARD, p -> {
+                    p.setInt(1, listId);
+                    p.setInt(2, order);
+                    p.setInt(3, cardId);
+                });
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Перед чтением/прямой записью списков и карточек дописываем очередь (read-your-writes)
+    private static void flushPendingWrites() {
+        try { WriteBehindQueue.flush(); } catch (SQLException e) { System.err.println("Не удалось сбросить отложенные записи: " + e.getMessage()); }
+    }
+
+    // ==========================================
+    // 5. BOARD SNAPSHOT (Списки + карточки за один запрос)
+    // ==========================================
+
+    // Один LEFT JOIN вместо N+1: пустые списки приходят строкой с card_id = NULL
+    public static BoardSnapshot getBoardSnapshot(int boardId) {
+        BoardSnapshot snapshot = new BoardSnapshot(boardId);
+
+        // Реплика, если доска уже скачана; иначе основная база (с предварительным сбросом очереди)
+        try (Connection conn = LocalReplica.readConnectionForBoard(boardId);
+             PreparedStatement pstmt = conn.prepareStatement(BOARD_SNAPSHOT)) {
+            pstmt.setInt(1, boardId);
+            readSnapshot(pstmt.executeQuery(), snapshot);
+        } catch (SQLException e) { e.printStackTrace(); }
+        return snapshot;
+    }
+
+    // === ЗАПРОСЫ И МАППИНГ СТРОК (отдельно друг от друга, см. бенчмарки в src/jmh/java) ===
+
+    static final String BOARD_SNAPSHOT = "SELECT l.id AS list_id, l.title AS list_title, l.board_id, l.color, " +
+            "c.id AS card_id, c.title AS card_title, c.description AS card_description, c.card_order " +
+            "FROM lists l " +
+            "LEFT JOIN cards c ON c.list_id = l.id " +
+            "WHERE l.board_id = ? " +
+            "ORDER BY l.id, c.card_order, c.id";
+    static final String LISTS_BY_BOARD = "SELECT * FROM lists WHERE board_id=? ORDER BY id";
+    static final String CARDS_BY_LIST = "SELECT * FROM cards WHERE list_id=? ORDER BY card_order, id";
+
+    static void readSnapshot(ResultSet rs, BoardSnapshot snapshot) throws SQLException {
+        int lastListId = -1;
+        while (rs.next()) {
+            int listId = rs.getInt("list_id");
+            // Строки отсортированы по списку, поэтому новый список = смена list_id
+            if (listId != lastListId) {
+                snapshot.addList(new TrelloList(listId, rs.getString("list_title"), rs.getInt("board_id"), rs.getString("color")));
+                lastListId = listId;
+            }
+            int cardId = rs.getInt("card_id");
+            if (!rs.wasNull()) {
+                snapshot.addCard(new Card(cardId, rs.getString("card_title"), rs.getString("card_description"), listId, rs.getInt("card_order")));
+            }
+        }
+    }
+
+    static TrelloList mapList(ResultSet r) throws SQLException {
+        return new TrelloList(r.getInt("id"), r.getString("title"), r.getInt("board_id"), r.getString("color"));
+    }
+
+    static Card mapCard(ResultSet r) throws SQLException {
+        return new Card(r.getInt("id"), r.getString("title"), r.getString("description"), r.getInt("list_id"), r.getInt("card_order"));
+    }
+
+    // ==========================================
+    // 6. SEARCH (ПОИСК ПО КАРТОЧКАМ, СПИСКАМ И ДОСКАМ)
+    // ==========================================
+    // Только по доскам, где пользователь владелец или участник (my_boards).
+    // Карточки ищутся от списков пользователя: для каждого его списка (LATERAL) - карточки с этим list_id,
+    // совпавшие полнотекстово по cards.search_tsv (слова с префиксом "слово:*") или нечетко по названию (pg_trgm).
+    // Составные GIN-индексы (list_id, search_tsv) и (list_id, title) (btree_gin, см. README) отдают сразу
+    // пересечение "карточки списка" и "совпадение", поэтому чужие карточки не перебираются:
+    // время растет с числом списков и совпадений пользователя, а не с размером всей таблицы cards.
+    // Триграммы - только с TRIGRAM_MIN_CHARS символов: у коротких строк почти нет триграмм, "%" там бесполезен.
+    // Списков и досок у пользователя немного - их названия сравниваются по подстроке и похожести.
+    // Результаты отсортированы по релевантности (ts_rank + similarity).
+    static final int TRIGRAM_MIN_CHARS = 3;
+
+    public static List<SearchResult> search(int userId, String query, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        String tsQuery = toPrefixTsQuery(query);
+        if (tsQuery == null) return results;
+        String raw = query.trim();
+        String contains = "%" + raw.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        boolean fuzzy = raw.length() >= TRIGRAM_MIN_CHARS;
+        String cardMatch = fuzzy ? "(c.search_tsv @@ q.tsq OR c.title % q.raw)" : "c.search_tsv @@ q.tsq";
+        String listMatch = fuzzy ? "(l.title ILIKE q.contains OR l.title % q.raw)" : "l.title ILIKE q.contains";
+        String boardMatch = fuzzy ? "(mb.title ILIKE q.contains OR mb.title % q.raw)" : "mb.title ILIKE q.contains";
+
+        String sql = "WITH my_boards AS (" +
+                "  SELECT b.* FROM boards b WHERE b.user_id = ? " +
+                "  UNION " +
+                "  SELECT b.* FROM boards b JOIN board_members bm ON bm.board_id = b.id WHERE bm.user_id = ?" +
+                "), q AS (SELECT to_tsquery('russian', ?) AS tsq, ?::text AS raw, ?::text AS contains) " +
+                "SELECT r.* FROM (" +
+                "  SELECT 'CARD' AS kind, c.id, c.title, l.title AS context, mb.id AS board_id, mb.title AS board_title, " +
+                "         mb.description AS board_description, mb.user_id AS board_owner, mb.created_at AS board_created, c.score " +
+                "  FROM q CROSS JOIN my_boards mb JOIN lists l ON l.board_id = mb.id " +
+                "  CROSS JOIN LATERAL (" +
+                "    SELECT c.id, c.title, ts_rank(c.search_tsv, q.tsq) * 2 + similarity(c.title, q.raw) AS score " +
+                "    FROM cards c WHERE c.list_id = l.id AND " + cardMatch +
+                "  ) c " +
+                "  UNION ALL " +
+                "  SELECT 'LIST', l.id, l.title, mb.title, mb.id, mb.title, mb.description, mb.user_id, mb.created_at, " +
+                "         similarity(l.title, q.raw) + CASE WHEN l.title ILIKE q.contains THEN 0.5 ELSE 0 END " +
+                "  FROM q, lists l JOIN my_boards mb ON mb.id = l.board_id " +
+                "  WHERE " + listMatch +
+                "  UNION ALL " +
+                "  SELECT 'BOARD', mb.id, mb.title, mb.description, mb.id, mb.title, mb.description, mb.user_id, mb.created_at, " +
+                "         similarity(mb.title, q.raw) + CASE WHEN mb.title ILIKE q.contains THEN 1 ELSE 0 END " +
+                "  FROM q, my_boards mb " +
+                "  WHERE " + boardMatch +
+                ") r ORDER BY r.score DESC, r.id LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+            pstmt.setString(3, tsQuery);
+            pstmt.setString(4, raw);
+            pstmt.setString(5, contains);
+            pstmt.setInt(6, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                Timestamp created = rs.getTimestamp("board_created");
+                Board board = new Board(rs.getInt("board_id"), rs.getString("board_title"), rs.getString("board_description"),
+                        rs.getInt("board_owner"), created != null ? created.toLocalDateTime() : null);
+                results.add(new SearchResult(rs.getString("kind"), rs.getInt("id"), rs.getString("title"),
+                        rs.getString("context"), board, rs.getDouble("score")));
+            }
+        } catch (SQLException e) {
+            // Не пустой список: "Ничего не найдено" при обрыве связи вводило бы в заблуждение
+            throw new RuntimeException("Ошибка поиска: " + e.getMessage(), e);
+        }
+        return results;
+    }
+
+    // "отчет за ма" -> "отчет:* & за:* & ма:*" (каждое слово как префикс). null - искать нечего.
+    // Из слов оставляем только буквы и цифры: спецсимволы to_tsquery из ввода не попадают в запрос
+    static String toPrefixTsQuery(String query) {
+        if (query == null) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(" & ");
+            sb.append(word).append(":*");
+        }
+        return sb.length() == 0 ? null : sb.toString();
     }
 
     // === DTO Classes ===
-    public static class Invitation {
+    // Запись входящих/архива: по (created_at, id) строится курсор следующей страницы
+    public interface Dated {
+        int getId();
+        LocalDateTime getCreatedAt();
+    }
+
+    // Позиция в ленте: последняя показанная запись
+    public static class PageCursor implements Dated {
+        private final LocalDateTime createdAt; private final int id;
+        public PageCursor(LocalDateTime createdAt, int id) { this.createdAt=createdAt; this.id=id; }
+        public static PageCursor after(Dated last) { return new PageCursor(last.getCreatedAt(), last.getId()); }
+        public int getId() { return id; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+
+    public static class Invitation implements Dated {
         private int id; private String personName; private String boardName; private String status; private LocalDateTime createdAt;
         public Invitation(int id, String pn, String bn, String s, LocalDateTime c) { this.id=id; this.personName=pn; this.boardName=bn; this.status=s; this.createdAt=c; }
         public int getId() { return id; }
@@ -316,7 +702,36 @@ public class TrelloDAO {
         public LocalDateTime getCreatedAt() { return createdAt; }
     }
 
-    public static class Notification {
+    public static class BadgeCounts {
+        private final int pendingInvitations; private final int unreadNotifications; private final long loadedAt;
+        BadgeCounts(int i, int n, long t) { this.pendingInvitations=i; this.unreadNotifications=n; this.loadedAt=t; }
+        public int getPendingInvitations() { return pendingInvitations; }
+        public int getUnreadNotifications() { return unreadNotifications; }
+        public int getTotal() { return pendingInvitations + unreadNotifications; }
+    }
+
+    public static class SearchResult {
+        private final String kind; private final int id; private final String title; private final String context; private final Board board; private final double score;
+        SearchResult(String k, int id, String t, String c, Board b, double s) { this.kind=k; this.id=id; this.title=t; this.context=c; this.board=b; this.score=s; }
+        // CARD, LIST или BOARD
+        public String getKind() { return kind; }
+        public int getId() { return id; }
+        public String getTitle() { return title; }
+        // Для карточки - название списка, для списка - доски, для доски - описание
+        public String getContext() { return context; }
+        public Board getBoard() { return board; }
+        public double getScore() { return score; }
+    }
+
+    public static class BoardPeople {
+        private User owner; private List<User> members = new ArrayList<>();
+        BoardPeople() {}
+        BoardPeople(User owner, List<User> members) { this.owner=owner; this.members=members; }
+        public User getOwner() { return owner; }
+        public List<User> getMembers() { return members; }
+    }
+
+    public static class Notification implements Dated {
         private int id; private String message; private boolean isRead; private LocalDateTime createdAt;
         public Notification(int id, String m, boolean r, LocalDateTime c) { this.id=id; this.message=m; this.isRead=r; this.createdAt=c; }
         public int getId() { return id; }
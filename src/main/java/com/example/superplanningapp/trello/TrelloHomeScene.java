@@ -1,16 +1,22 @@
 package com.example.superplanningapp.trello;
 
+import com.example.superplanningapp.AvatarCache;
+import com.example.superplanningapp.ChangeFeed;
+import com.example.superplanningapp.DbExecutor;
 import com.example.superplanningapp.MenuScene;
+import com.example.superplanningapp.Repositories;
 import com.example.superplanningapp.User;
-import com.example.superplanningapp.UserDAO;
+import com.example.superplanningapp.UserRepository;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.ImagePattern;
@@ -18,19 +24,33 @@ import javafx.scene.shape.Circle;
 import javafx.stage.Modality;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 
 public class TrelloHomeScene {
 
     private static Label notificationBadge;
-
-    public static BorderPane createTrelloHomeView(User user) {
+    // Текущее число на бейдже: события ChangeFeed меняют его на badge_delta без запроса к базе
+    private static int badgeCount;
+    private static Runnable feedSubscription;
+
+    // Репозитории приходят из MenuScene (см. Repositories)
+    private static BoardRepository boardRepository;
+    private static InboxRepository inboxRepository;
+    private static UserRepository userRepository;
+    private static Repositories repositories;
+
+    public static BorderPane createTrelloHomeView(User user, Repositories repos) {
+        repositories = repos;
+        boardRepository = repos.boards();
+        inboxRepository = repos.inbox();
+        userRepository = repos.users();
         BorderPane mainLayout = new BorderPane();
         mainLayout.setStyle("-fx-background-color: " + MenuScene.getBackgroundStyle() + ";");
 
@@ -64,7 +84,15 @@ public class TrelloHomeScene {
         Button createBtn = new Button("+ Создать доску");
         createBtn.setStyle("-fx-background-color: " + MenuScene.Theme.ACCENT + "; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15; -fx-font-weight: bold;");
 
-        topBar.getChildren().addAll(titleLabel, spacer, notificationBtnContainer, createBtn);
+        TextField searchField = new TextField();
+        searchField.setPromptText("🔍 Поиск по карточкам и доскам");
+        searchField.setPrefWidth(280);
+        if (MenuScene.isDarkTheme) {
+            searchField.setStyle("-fx-background-color: " + MenuScene.Theme.HOVER_DARK + "; -fx-text-fill: white; -fx-prompt-text-fill: #888;");
+        }
+        setupSearch(searchField, user);
+
+        topBar.getChildren().addAll(titleLabel, searchField, spacer, notificationBtnContainer, createBtn);
 
         StackPane centerStack = new StackPane();
         FlowPane boardsGrid = new FlowPane();
@@ -88,16 +116,116 @@ public class TrelloHomeScene {
 
         refreshBoardsAsync(boardsGrid, user, spinner);
         checkNotificationsAsync(user.getId());
+        subscribeToBadgeChanges(user.getId());
 
         createBtn.setOnAction(e -> showCreateBoardDialog(user, boardsGrid, spinner));
 
         return mainLayout;
     }
 
+    // ==========================================
+    // ПОИСК (по мере ввода)
+    // ==========================================
+    // Запрос уходит через SEARCH_DEBOUNCE после последней клавиши; ответы на устаревший текст отбрасываются
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(250);
+    private static final int SEARCH_MIN_CHARS = 2;
+    private static final int SEARCH_LIMIT = 20;
+
+    private static void setupSearch(TextField searchField, User user) {
+        Popup resultsPopup = new Popup();
+        resultsPopup.setAutoHide(true);
+        VBox resultsBox = new VBox(2);
+        resultsBox.setPrefWidth(420);
+        resultsBox.setPadding(new Insets(6));
+        String popupBg = MenuScene.isDarkTheme ? "#232323" : "white";
+        resultsBox.setStyle("-fx-background-color: " + popupBg + "; -fx-background-radius: 6; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 10, 0, 0, 2);");
+        resultsPopup.getContent().add(resultsBox);
+
+        int[] generation = {0};
+        Runnable showPopup = () -> {
+            if (!resultsPopup.isShowing() && searchField.getScene() != null) {
+                Point2D p = searchField.localToScreen(0, searchField.getHeight() + 4);
+                resultsPopup.show(searchField, p.getX(), p.getY());
+            }
+        };
+        PauseTransition debounce = new PauseTransition(SEARCH_DEBOUNCE);
+        debounce.setOnFinished(e -> {
+            String query = searchField.getText().trim();
+            int current = ++generation[0];
+            if (query.length() < SEARCH_MIN_CHARS) {
+                resultsPopup.hide();
+                return;
+            }
+            DbExecutor.supply(() -> inboxRepository.search(user.getId(), query, SEARCH_LIMIT))
+                    .thenAccept(results -> Platform.runLater(() -> {
+                        if (current != generation[0]) return; // пока шел запрос, текст изменился
+                        showSearchResults(results, resultsBox, user, resultsPopup);
+                        showPopup.run();
+                    }))
+                    .exceptionally(ex -> {
+                        // Старые результаты не оставляем: они относятся к прошлому запросу
+                        ex.printStackTrace();
+                        Platform.runLater(() -> {
+                            if (current != generation[0]) return;
+                            showSearchMessage("Не удалось выполнить поиск. Проверьте подключение", resultsBox);
+                            showPopup.run();
+                        });
+                        return null;
+                    });
+        });
+        searchField.textProperty().addListener((obs, o, n) -> debounce.playFromStart());
+    }
+
+    private static void showSearchMessage(String text, VBox box) {
+        box.getChildren().clear();
+        Label message = new Label(text);
+        message.setStyle("-fx-text-fill: " + (MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_SEC_DARK : "#666") + "; -fx-padding: 6;");
+        box.getChildren().add(message);
+    }
+
+    private static void showSearchResults(List<TrelloDAO.SearchResult> results, VBox box, User user, Popup popup) {
+        box.getChildren().clear();
+        String textColor = MenuScene.getTextStyle();
+        String secColor = MenuScene.isDarkTheme ? MenuScene.Theme.TEXT_SEC_DARK : "#666";
+        String hoverBg = MenuScene.isDarkTheme ? MenuScene.Theme.HOVER_DARK : "#f0f2f5";
+        if (results.isEmpty()) {
+            showSearchMessage("Ничего не найдено", box);
+            return;
+        }
+        for (TrelloDAO.SearchResult r : results) {
+            String icon = r.getKind().equals("CARD") ? "🗒 " : r.getKind().equals("LIST") ? "📑 " : "📋 ";
+            Label title = new Label(icon + r.getTitle());
+            title.setStyle("-fx-font-weight: bold; -fx-text-fill: " + textColor + ";");
+            String where = r.getKind().equals("BOARD") ? "Доска" : r.getKind().equals("LIST") ? "Доска: " + r.getContext() : r.getBoard().getTitle() + " › " + r.getContext();
+            Label context = new Label(where);
+            context.setStyle("-fx-font-size: 11px; -fx-text-fill: " + secColor + ";");
+
+            VBox row = new VBox(2, title, context);
+            String rowStyle = "-fx-padding: 6 8; -fx-background-radius: 4; -fx-cursor: hand;";
+            row.setStyle(rowStyle);
+            row.setOnMouseEntered(e -> row.setStyle(rowStyle + " -fx-background-color: " + hoverBg + ";"));
+            row.setOnMouseExited(e -> row.setStyle(rowStyle));
+            // Любой результат открывает свою доску
+            row.setOnMouseClicked(e -> {
+                popup.hide();
+                MenuScene.setContent(TrelloBoardScene.createBoardView(user, r.getBoard(), repositories));
+            });
+            box.getChildren().add(row);
+        }
+    }
+
     private static void refreshBoardsAsync(FlowPane grid, User user, ProgressIndicator spinner) {
         if(spinner != null) spinner.setVisible(true);
-        CompletableFuture.supplyAsync(() -> TrelloDAO.getAllBoards(user.getId()))
-                .thenAccept(boards -> Platform.runLater(() -> {
+        // Доски + их владельцы/участники: 2 запроса на всю сетку, независимо от числа досок
+        DbExecutor.supply(() -> {
+            List<Board> boards = boardRepository.getAllBoards(user.getId());
+            List<Integer> ids = new ArrayList<>();
+            for (Board b : boards) ids.add(b.getId());
+            return new Pair<>(boards, boardRepository.getBoardPeople(ids));
+        })
+                .thenAccept(data -> Platform.runLater(() -> {
+                    List<Board> boards = data.getKey();
+                    Map<Integer, TrelloDAO.BoardPeople> people = data.getValue();
                     grid.getChildren().clear();
                     if(spinner != null) spinner.setVisible(false);
                     if (boards.isEmpty()) {
@@ -107,7 +235,7 @@ public class TrelloHomeScene {
                     } else {
                         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
                         for (Board board : boards) {
-                            grid.getChildren().add(createBoardCard(board, user, formatter));
+                            grid.getChildren().add(createBoardCard(board, people.get(board.getId()), user, formatter));
                         }
                     }
                 })).exceptionally(ex -> {
@@ -116,7 +244,7 @@ public class TrelloHomeScene {
                 });
     }
 
-    private static VBox createBoardCard(Board board, User currentUser, DateTimeFormatter formatter) {
+    private static VBox createBoardCard(Board board, TrelloDAO.BoardPeople people, User currentUser, DateTimeFormatter formatter) {
         VBox card = new VBox(10);
         card.setPrefSize(300, 240);
 
@@ -149,14 +277,10 @@ public class TrelloHomeScene {
             if (card.getParent() instanceof FlowPane) refreshBoardsAsync((FlowPane) card.getParent(), currentUser, null);
         };
 
-        CompletableFuture.supplyAsync(() -> {
-            User owner = UserDAO.getUserById(board.getUserId());
-            List<User> members = TrelloDAO.getBoardMembers(board.getId());
-            return new Pair<>(owner, members);
-        }).thenAccept(data -> Platform.runLater(() -> {
-            User owner = data.getKey();
-            List<User> members = data.getValue();
-
+        // Владелец и участники уже загружены пачкой для всей сетки
+        if (people != null) {
+            User owner = people.getOwner();
+            List<User> members = people.getMembers();
             if (!isOwner && owner != null) {
                 HBox ownerBox = new HBox(5);
                 ownerBox.setAlignment(Pos.CENTER_LEFT);
@@ -180,7 +304,7 @@ public class TrelloHomeScene {
                 membersBox.getChildren().addAll(lbl, avatarsStack);
                 membersSection.getChildren().add(membersBox);
             }
-        }));
+        }
 
         Region spacer = new Region();
         VBox.setVgrow(spacer, Priority.ALWAYS);
@@ -223,7 +347,7 @@ public class TrelloHomeScene {
             if (!(e.getTarget() instanceof Button) && !(e.getTarget() instanceof Node && ((Node)e.getTarget()).getStyleClass().contains("avatar"))) {
 
                 // 1. Создаем действие "Открыть эту доску"
-                Runnable openBoardAction = () -> MenuScene.setContent(TrelloBoardScene.createBoardView(currentUser, board));
+                Runnable openBoardAction = () -> MenuScene.setContent(TrelloBoardScene.createBoardView(currentUser, board, repositories));
 
                 // 2. Говорим MenuScene: "Если сменят тему, выполни это действие"
                 MenuScene.setContentReloader(openBoardAction);
@@ -245,27 +369,25 @@ public class TrelloHomeScene {
     }
 
     // ... (Остальной код без изменений: хелперы аватарок, попапы, диалоги и т.д.)
+    // Буква-заглушка сразу, фото - когда AvatarCache его декодирует (в фоне, в размере кружка)
     private static Node createAvatar(User user) {
         double size = 24; Circle circle = new Circle(size / 2);
-        if (user.getAvatarPath() != null && !user.getAvatarPath().isEmpty()) {
-            try { circle.setFill(new ImagePattern(new Image(user.getAvatarPath()))); return circle; } catch (Exception e) {}
-        }
         circle.setFill(Color.web("#2196F3"));
         Label letter = new Label(user.getDisplayName().substring(0, 1).toUpperCase());
         letter.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 10px;");
-        StackPane stack = new StackPane(circle, letter); stack.getStyleClass().add("avatar"); return stack;
+        StackPane stack = new StackPane(circle, letter); stack.getStyleClass().add("avatar");
+        AvatarCache.load(user.getAvatarPath(), size, img -> { circle.setFill(new ImagePattern(img)); letter.setVisible(false); });
+        return stack;
     }
 
     private static Node createLargeAvatar(User user) {
         double size = 60;
         Circle circle = new Circle(size / 2);
-        if (user.getAvatarPath() != null && !user.getAvatarPath().isEmpty()) {
-            try { circle.setFill(new ImagePattern(new Image(user.getAvatarPath()))); return circle; } catch (Exception e) {}
-        }
         circle.setFill(Color.web("#2196F3"));
         Label letter = new Label(user.getDisplayName().substring(0, 1).toUpperCase());
         letter.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 24px;");
         StackPane stack = new StackPane(circle, letter);
+        AvatarCache.load(user.getAvatarPath(), size, img -> { circle.setFill(new ImagePattern(img)); letter.setVisible(false); });
         return stack;
     }
 
@@ -355,7 +477,7 @@ public class TrelloHomeScene {
 
             if (isOwner && u.getId() != currentUser.getId() && !title.equals("Владелец")) {
                 Button removeBtn = new Button("🗑"); removeBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #e74c3c;");
-                removeBtn.setOnAction(e -> { e.consume(); CompletableFuture.runAsync(() -> TrelloDAO.removeBoardMember(board.getId(), u.getId())).thenRun(() -> Platform.runLater(() -> { root.getChildren().remove(row); if (onUpdate != null) onUpdate.run(); })); });
+                removeBtn.setOnAction(e -> { e.consume(); DbExecutor.run(() -> boardRepository.removeBoardMember(board.getId(), u.getId())).thenRun(() -> Platform.runLater(() -> { root.getChildren().remove(row); if (onUpdate != null) onUpdate.run(); })); });
                 row.getChildren().add(removeBtn);
             }
 
@@ -374,13 +496,13 @@ public class TrelloHomeScene {
     private static void showLeaveConfirmation(Board board, FlowPane grid, User user) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION); alert.setTitle("Покинуть"); alert.setHeaderText("Выйти из доски?");
         styleDialog(alert);
-        alert.showAndWait().ifPresent(r -> { if (r == ButtonType.OK) CompletableFuture.runAsync(() -> TrelloDAO.leaveBoard(board.getId(), user.getId(), user.getDisplayName())).thenRun(() -> Platform.runLater(() -> refreshBoardsAsync(grid, user, null))); });
+        alert.showAndWait().ifPresent(r -> { if (r == ButtonType.OK) DbExecutor.run(() -> boardRepository.leaveBoard(board.getId(), user.getId(), user.getDisplayName())).thenRun(() -> Platform.runLater(() -> refreshBoardsAsync(grid, user, null))); });
     }
 
     private static void showDeleteConfirmation(Board board, FlowPane grid, User user) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION); alert.setTitle("Удалить"); alert.setHeaderText("Удалить доску?");
         styleDialog(alert);
-        alert.showAndWait().ifPresent(r -> { if (r == ButtonType.OK) CompletableFuture.runAsync(() -> TrelloDAO.deleteBoard(board.getId())).thenRun(() -> refreshBoardsAsync(grid, user, null)); });
+        alert.showAndWait().ifPresent(r -> { if (r == ButtonType.OK) DbExecutor.run(() -> boardRepository.deleteBoard(board.getId())).thenRun(() -> refreshBoardsAsync(grid, user, null)); });
     }
 
     private static void styleDialog(Dialog<?> dialog) {
@@ -393,11 +515,30 @@ public class TrelloHomeScene {
     }
 
     private static void checkNotificationsAsync(int userId) {
-        CompletableFuture.supplyAsync(() -> {
-            List<TrelloDAO.Invitation> i = TrelloDAO.getPendingInvitations(userId);
-            List<TrelloDAO.Notification> n = TrelloDAO.getUnreadNotifications(userId);
-            return i.size() + n.size();
-        }).thenAccept(c -> Platform.runLater(() -> { notificationBadge.setText(String.valueOf(c)); notificationBadge.setVisible(c > 0); }));
+        // Только два числа (InboxRepository.getBadgeCounts), а не все приглашения и уведомления целиком
+        DbExecutor.supply(() -> inboxRepository.getBadgeCounts(userId).getTotal())
+                .thenAccept(c -> Platform.runLater(() -> setBadgeCount(c)));
+    }
+
+    private static void setBadgeCount(int count) {
+        badgeCount = Math.max(0, count);
+        notificationBadge.setText(String.valueOf(badgeCount));
+        notificationBadge.setVisible(badgeCount > 0);
+    }
+
+    // Приглашения и уведомления от других пользователей приходят через ChangeFeed.
+    // Свои ответы (принять/отклонить/OK) пропускаем - после них бейдж и так пересчитывается
+    private static void subscribeToBadgeChanges(int userId) {
+        if (feedSubscription != null) feedSubscription.run();
+        feedSubscription = ChangeFeed.subscribe(event -> {
+            if (event.isResync()) {
+                checkNotificationsAsync(userId);
+            } else if (!event.isOwn() && event.getUserId() == userId && event.getBadgeDelta() != 0
+                    && ("invitations".equals(event.getTable()) || "notifications".equals(event.getTable()))) {
+                inboxRepository.invalidateBadgeCounts();
+                Platform.runLater(() -> setBadgeCount(badgeCount + event.getBadgeDelta()));
+            }
+        });
     }
 
     private static void showNotificationsDialog(User user, BorderPane rootLayout) {
@@ -426,40 +567,110 @@ public class TrelloHomeScene {
         Region sp = new Region(); HBox.setHgrow(sp, Priority.ALWAYS);
         MenuButton sortBtn = new MenuButton("Сначала новые"); MenuItem newest = new MenuItem("Сначала новые"); MenuItem oldest = new MenuItem("Сначала старые");
         sortBtn.getItems().addAll(newest, oldest); header.getChildren().addAll(sectionTitle, sp, sortBtn); contentArea.getChildren().add(header);
-        VBox listContainer = new VBox(10); ScrollPane scrollPane = new ScrollPane(listContainer); scrollPane.setFitToWidth(true); scrollPane.setStyle("-fx-background: transparent; -fx-background-color: transparent;"); VBox.setVgrow(scrollPane, Priority.ALWAYS); contentArea.getChildren().add(scrollPane);
+        // Строки - виртуализированный ListView (как колонки доски, BoardCanvas): узлы есть только у видимых записей,
+        // сколько бы страниц ни подгрузили. Принятое приглашение / прочитанное уведомление убирается из items
+        ObservableList<InboxFeed.Item> items = FXCollections.observableArrayList();
+        ListView<InboxFeed.Item> listView = new ListView<>(items);
+        listView.setFocusTraversable(false);
+        listView.setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
+        Label placeholder = new Label(); placeholder.setStyle("-fx-text-fill: " + textColor + ";");
+        listView.setPlaceholder(placeholder);
+        VBox.setVgrow(listView, Priority.ALWAYS); contentArea.getChildren().add(listView);
         dialogLayout.setCenter(contentArea);
 
-        class DisplayItem { Object data; LocalDateTime date; String type; DisplayItem(Object d, LocalDateTime t, String ty) { data=d; date=t; type=ty; } }
-        final List<DisplayItem>[] currentItems = new List[1];
+        // Ленты разделов: строки подгружаются страницами по мере прокрутки (InboxFeed),
+        // при открытии - одна страница, сколько бы записей ни накопилось в архиве
+        int uid = user.getId();
+        final InboxFeed[] currentFeed = new InboxFeed[1];
+        final Runnable[] currentSection = new Runnable[1];
+        final boolean[] loading = {false};
+
+        Runnable[] loadNextPage = new Runnable[1];
+        loadNextPage[0] = () -> {
+            InboxFeed feed = currentFeed[0];
+            if (feed == null || loading[0] || !feed.hasMore()) return;
+            loading[0] = true;
+            DbExecutor.supply(feed::nextPage).thenAccept(page -> Platform.runLater(() -> {
+                if (feed != currentFeed[0]) return; // раздел уже переключили
+                loading[0] = false;
+                items.addAll(page);
+                if (items.isEmpty()) placeholder.setText("Список пуст");
+            })).exceptionally(ex -> {
+                // Страница не загрузилась - лента не считается законченной: следующая прокрутка к концу
+                // (или щелчок по пустому списку) повторит тот же запрос
+                ex.printStackTrace();
+                Platform.runLater(() -> {
+                    if (feed != currentFeed[0]) return;
+                    loading[0] = false;
+                    if (items.isEmpty()) placeholder.setText("Не удалось загрузить уведомления. Нажмите, чтобы повторить");
+                });
+                return null;
+            });
+        };
+        placeholder.setOnMouseClicked(e -> {
+            if (!items.isEmpty() || loading[0]) return;
+            placeholder.setText("Загрузка...");
+            loadNextPage[0].run();
+        });
 
-        Runnable render = () -> {
-            listContainer.getChildren().clear();
-            if (currentItems[0] == null || currentItems[0].isEmpty()) {
-                Label l = new Label("Список пуст");
-                l.setStyle("-fx-text-fill: " + textColor + ";");
-                listContainer.getChildren().add(l);
-                return;
-            }
-            if (sortBtn.getText().equals("Сначала новые")) currentItems[0].sort(Comparator.comparing(i -> i.date, Comparator.reverseOrder())); else currentItems[0].sort(Comparator.comparing(i -> i.date));
-            for (DisplayItem item : currentItems[0]) {
-                if (item.type.equals("IN_INVITE")) listContainer.getChildren().add(createIncomingInviteRow((TrelloDAO.Invitation)item.data, user, listContainer, rootLayout));
-                else if (item.type.equals("IN_NOTIF")) listContainer.getChildren().add(createNotificationRow((TrelloDAO.Notification)item.data, user, listContainer));
-                else if (item.type.equals("OUT_INVITE")) listContainer.getChildren().add(createOutgoingInviteRow((TrelloDAO.Invitation)item.data));
-                else if (item.type.equals("ARCHIVED_INVITE")) listContainer.getChildren().add(createArchivedInviteRow((TrelloDAO.Invitation)item.data));
-                else if (item.type.equals("ARCHIVED_NOTIF")) listContainer.getChildren().add(createArchivedNotificationRow((TrelloDAO.Notification)item.data));
+        // Ячейка строится заново при смене записи: строки маленькие, а ячеек - только на видимую часть.
+        // Показали одну из последних записей - подгружаем следующую страницу (и сразу, если первая не заполнила окно)
+        listView.setCellFactory(view -> new ListCell<>() {
+            { setStyle("-fx-background-color: transparent; -fx-padding: 0 0 10 0;"); }
+
+            @Override
+            protected void updateItem(InboxFeed.Item item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setGraphic(null);
+                    return;
+                }
+                Runnable remove = () -> items.remove(item);
+                HBox row;
+                if (item.type.equals("IN_INVITE")) row = createIncomingInviteRow((TrelloDAO.Invitation)item.data, user, remove, rootLayout);
+                else if (item.type.equals("IN_NOTIF")) row = createNotificationRow((TrelloDAO.Notification)item.data, user, remove);
+                else if (item.type.equals("OUT_INVITE")) row = createOutgoingInviteRow((TrelloDAO.Invitation)item.data);
+                else if (item.type.equals("ARCHIVED_INVITE")) row = createArchivedInviteRow((TrelloDAO.Invitation)item.data);
+                else row = createArchivedNotificationRow((TrelloDAO.Notification)item.data);
+                // Ширина строки - по ширине списка (минус полоса прокрутки)
+                row.prefWidthProperty().bind(view.widthProperty().subtract(20));
+                row.setMinWidth(0);
+                setGraphic(row);
+                if (getIndex() >= items.size() - 5) loadNextPage[0].run();
             }
-        };
-        Runnable loadIncoming = () -> { sectionTitle.setText("Входящие"); CompletableFuture.supplyAsync(() -> { List<DisplayItem> l = new ArrayList<>(); for(TrelloDAO.Invitation i : TrelloDAO.getPendingInvitations(user.getId())) l.add(new DisplayItem(i, i.getCreatedAt(), "IN_INVITE")); for(TrelloDAO.Notification n : TrelloDAO.getUnreadNotifications(user.getId())) l.add(new DisplayItem(n, n.getCreatedAt(), "IN_NOTIF")); return l; }).thenAccept(l -> Platform.runLater(() -> { currentItems[0] = l; render.run(); })); };
-        Runnable loadOutgoing = () -> { sectionTitle.setText("Исходящие"); CompletableFuture.supplyAsync(() -> { List<DisplayItem> l = new ArrayList<>(); for(TrelloDAO.Invitation i : TrelloDAO.getOutgoingInvitations(user.getId())) l.add(new DisplayItem(i, i.getCreatedAt(), "OUT_INVITE")); return l; }).thenAccept(l -> Platform.runLater(() -> { currentItems[0] = l; render.run(); })); };
-        Runnable loadArchive = () -> { sectionTitle.setText("Архив"); CompletableFuture.supplyAsync(() -> { List<DisplayItem> l = new ArrayList<>(); for(TrelloDAO.Invitation i : TrelloDAO.getArchivedInvitations(user.getId())) l.add(new DisplayItem(i, i.getCreatedAt(), "ARCHIVED_INVITE")); for(TrelloDAO.Notification n : TrelloDAO.getReadNotifications(user.getId())) l.add(new DisplayItem(n, n.getCreatedAt(), "ARCHIVED_NOTIF")); return l; }).thenAccept(l -> Platform.runLater(() -> { currentItems[0] = l; render.run(); })); };
+        });
 
-        incomingBtn.setOnAction(e -> loadIncoming.run()); outgoingBtn.setOnAction(e -> loadOutgoing.run()); archiveBtn.setOnAction(e -> loadArchive.run());
-        newest.setOnAction(e -> { sortBtn.setText("Сначала новые"); render.run(); }); oldest.setOnAction(e -> { sortBtn.setText("Сначала старые"); render.run(); });
+        BiConsumer<String, InboxFeed> openSection = (title, feed) -> {
+            sectionTitle.setText(title);
+            currentFeed[0] = feed;
+            loading[0] = false;
+            placeholder.setText("Загрузка...");
+            items.clear();
+            listView.scrollTo(0);
+            loadNextPage[0].run();
+        };
+        BooleanSupplier newestFirst = () -> sortBtn.getText().equals("Сначала новые");
+
+        Runnable loadIncoming = () -> openSection.accept("Входящие", new InboxFeed(newestFirst.getAsBoolean())
+                .add("IN_INVITE", (after, limit, desc) -> inboxRepository.getPendingInvitations(uid, after, limit, desc))
+                .add("IN_NOTIF", (after, limit, desc) -> inboxRepository.getUnreadNotifications(uid, after, limit, desc)));
+        Runnable loadOutgoing = () -> openSection.accept("Исходящие", new InboxFeed(newestFirst.getAsBoolean())
+                .add("OUT_INVITE", (after, limit, desc) -> inboxRepository.getOutgoingInvitations(uid, after, limit, desc)));
+        Runnable loadArchive = () -> openSection.accept("Архив", new InboxFeed(newestFirst.getAsBoolean())
+                .add("ARCHIVED_INVITE", (after, limit, desc) -> inboxRepository.getArchivedInvitations(uid, after, limit, desc))
+                .add("ARCHIVED_NOTIF", (after, limit, desc) -> inboxRepository.getReadNotifications(uid, after, limit, desc)));
+
+        incomingBtn.setOnAction(e -> { currentSection[0] = loadIncoming; loadIncoming.run(); });
+        outgoingBtn.setOnAction(e -> { currentSection[0] = loadOutgoing; loadOutgoing.run(); });
+        archiveBtn.setOnAction(e -> { currentSection[0] = loadArchive; loadArchive.run(); });
+        // Порядок задает сам запрос (ORDER BY), поэтому смена сортировки перечитывает раздел с начала
+        newest.setOnAction(e -> { sortBtn.setText("Сначала новые"); currentSection[0].run(); }); oldest.setOnAction(e -> { sortBtn.setText("Сначала старые"); currentSection[0].run(); });
+        currentSection[0] = loadIncoming;
         loadIncoming.run();
         dialog.setScene(new Scene(dialogLayout)); dialog.show();
     }
 
-    private static HBox createIncomingInviteRow(TrelloDAO.Invitation inv, User user, VBox container, BorderPane layout) {
+    private static HBox createIncomingInviteRow(TrelloDAO.Invitation inv, User user, Runnable remove, BorderPane layout) {
         String bg = MenuScene.isDarkTheme ? "#1e3a5a" : "#e3f2fd";
         String textColor = MenuScene.getTextStyle();
 
@@ -472,20 +683,20 @@ public class TrelloHomeScene {
         Region sp = new Region(); HBox.setHgrow(sp, Priority.ALWAYS);
         Button yes = new Button("✔"); yes.setStyle("-fx-text-fill: white; -fx-background-color: #4CAF50;");
         Button no = new Button("✕"); no.setStyle("-fx-text-fill: white; -fx-background-color: #F44336;");
-        yes.setOnAction(e -> CompletableFuture.runAsync(() -> TrelloDAO.acceptInvitation(inv.getId())).thenRun(() -> Platform.runLater(() -> { container.getChildren().remove(row); checkNotificationsAsync(user.getId()); if(layout.getCenter() instanceof StackPane s && !s.getChildren().isEmpty() && s.getChildren().get(0) instanceof ScrollPane sc && sc.getContent() instanceof FlowPane fp) refreshBoardsAsync(fp, user, null); })));
-        no.setOnAction(e -> CompletableFuture.runAsync(() -> TrelloDAO.declineInvitation(inv.getId())).thenRun(() -> Platform.runLater(() -> { container.getChildren().remove(row); checkNotificationsAsync(user.getId()); })));
+        yes.setOnAction(e -> DbExecutor.run(() -> boardRepository.acceptInvitation(inv.getId())).thenRun(() -> Platform.runLater(() -> { remove.run(); checkNotificationsAsync(user.getId()); if(layout.getCenter() instanceof StackPane s && !s.getChildren().isEmpty() && s.getChildren().get(0) instanceof ScrollPane sc && sc.getContent() instanceof FlowPane fp) refreshBoardsAsync(fp, user, null); })));
+        no.setOnAction(e -> DbExecutor.run(() -> inboxRepository.declineInvitation(inv.getId())).thenRun(() -> Platform.runLater(() -> { remove.run(); checkNotificationsAsync(user.getId()); })));
         VBox right = new VBox(5); right.setAlignment(Pos.CENTER_RIGHT); right.getChildren().addAll(new HBox(5, yes, no), new Label(inv.getCreatedAt().format(DateTimeFormatter.ofPattern("dd.MM HH:mm"))));
         row.getChildren().addAll(text, sp, right); return row;
     }
 
-    private static HBox createNotificationRow(TrelloDAO.Notification notif, User user, VBox container) {
+    private static HBox createNotificationRow(TrelloDAO.Notification notif, User user, Runnable remove) {
         String bg = MenuScene.isDarkTheme ? "#4a3b2a" : "#fff3e0";
         String textColor = MenuScene.getTextStyle();
 
         HBox row = new HBox(10); row.setStyle("-fx-background-color: " + bg + "; -fx-padding: 10; -fx-background-radius: 5;"); row.setAlignment(Pos.CENTER_LEFT);
         Label msg = new Label(notif.getMessage()); msg.setWrapText(true); msg.setMaxWidth(300); msg.setStyle("-fx-text-fill: " + textColor + ";");
         Region sp = new Region(); HBox.setHgrow(sp, Priority.ALWAYS);
-        Button ok = new Button("OK"); ok.setOnAction(e -> CompletableFuture.runAsync(() -> TrelloDAO.markNotificationAsRead(notif.getId())).thenRun(() -> Platform.runLater(() -> { container.getChildren().remove(row); checkNotificationsAsync(user.getId()); })));
+        Button ok = new Button("OK"); ok.setOnAction(e -> DbExecutor.run(() -> inboxRepository.markNotificationAsRead(notif.getId())).thenRun(() -> Platform.runLater(() -> { remove.run(); checkNotificationsAsync(user.getId()); })));
         VBox right = new VBox(5); right.setAlignment(Pos.CENTER_RIGHT); right.getChildren().addAll(ok, new Label(notif.getCreatedAt().format(DateTimeFormatter.ofPattern("dd.MM HH:mm"))));
         row.getChildren().addAll(msg, sp, right); return row;
     }
@@ -518,13 +729,13 @@ public class TrelloHomeScene {
     private static void showCreateBoardDialog(User user, FlowPane grid, ProgressIndicator spinner) {
         TextInputDialog d = new TextInputDialog(); d.setTitle("Создать"); d.setHeaderText("Новая доска");
         styleDialog(d);
-        d.showAndWait().ifPresent(n -> { if(!n.trim().isEmpty()) { if(spinner!=null)spinner.setVisible(true); CompletableFuture.runAsync(() -> TrelloDAO.createBoard(n, "", user.getId())).thenRun(() -> refreshBoardsAsync(grid, user, spinner)); }});
+        d.showAndWait().ifPresent(n -> { if(!n.trim().isEmpty()) { if(spinner!=null)spinner.setVisible(true); DbExecutor.run(() -> boardRepository.createBoard(n, "", user.getId())).thenRun(() -> refreshBoardsAsync(grid, user, spinner)); }});
     }
 
     private static void showEditBoardDialog(User user, Board board, FlowPane grid) {
         TextInputDialog d = new TextInputDialog(board.getTitle()); d.setTitle("Редактировать");
         styleDialog(d);
-        d.showAndWait().ifPresent(n -> CompletableFuture.runAsync(() -> TrelloDAO.updateBoard(board.getId(), n, board.getDescription())).thenRun(() -> refreshBoardsAsync(grid, user, null)));
+        d.showAndWait().ifPresent(n -> DbExecutor.run(() -> boardRepository.updateBoard(board.getId(), n, board.getDescription())).thenRun(() -> refreshBoardsAsync(grid, user, null)));
     }
 
     private static void showInviteDialog(User u, Board b) {
@@ -601,11 +812,11 @@ public class TrelloHomeScene {
         Label st = new Label();
         Button btn = new Button("Отправить"); btn.setOnAction(e -> {
             String v = in.getText().trim(); if(v.isEmpty()) return; st.setText("Поиск...");
-            CompletableFuture.supplyAsync(() -> type.equals("username") ? UserDAO.findUserIdByUsername(v) : type.equals("email") ? UserDAO.findUserIdByEmail(v) : UserDAO.findUserIdByPhone(v))
+            DbExecutor.supply(() -> type.equals("username") ? userRepository.findUserIdByUsername(v) : type.equals("email") ? userRepository.findUserIdByEmail(v) : userRepository.findUserIdByPhone(v))
                     .thenAccept(id -> Platform.runLater(() -> {
                         if(id == -1) { st.setText("Не найден"); st.setTextFill(Color.RED); }
                         else if(id == s.getId()) { st.setText("Нельзя себя"); st.setTextFill(Color.RED); }
-                        else CompletableFuture.supplyAsync(() -> TrelloDAO.sendInvitation(s.getId(), id, b.getId())).thenAccept(ok -> Platform.runLater(() -> {
+                        else DbExecutor.supply(() -> inboxRepository.sendInvitation(s.getId(), id, b.getId())).thenAccept(ok -> Platform.runLater(() -> {
                                 if(ok) { st.setText("Отправлено"); st.setTextFill(Color.GREEN); } else { st.setText("Ошибка/Уже там"); st.setTextFill(Color.RED); }
                             }));
                     }));
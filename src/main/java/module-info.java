@@ -16,6 +16,7 @@ module com.example.superplanningapp {
     requires org.json;             // Чтобы работать с JSON
     requires java.net.http;
     requires com.zaxxer.hikari;        // Чтобы отправлять запросы в Интернет (к ИИ)
+    requires com.h2database;           // Локальная реплика (LocalReplica)
 
 
     opens com.example.superplanningapp to javafx.fxml;
@@ -0,0 +1,233 @@
+package com.example.superplanningapp;
+
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AIDispatcherTest {
+
+    // ==========================================
+    // RETRY-AFTER
+    // ==========================================
+
+    @Test
+    void retryAfterSecondsAreConvertedToMillis() {
+        assertEquals(2_000, AIDispatcher.parseRetryAfterMs("2"));
+        assertEquals(0, AIDispatcher.parseRetryAfterMs("0"));
+    }
+
+    @Test
+    void retryAfterIsClampedToMaxBackoff() {
+        assertEquals(8_000, AIDispatcher.parseRetryAfterMs("86400"));
+        assertEquals(8_000, AIDispatcher.parseRetryAfterMs("99999999999999999999"));
+    }
+
+    @Test
+    void retryAfterHttpDateIsParsed() {
+        String inFiveSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(5));
+        long ms = AIDispatcher.parseRetryAfterMs(inFiveSeconds);
+        assertTrue(ms > 3_000 && ms <= 5_000, "ms=" + ms);
+
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().minusHours(1));
+        assertEquals(0, AIDispatcher.parseRetryAfterMs(past));
+    }
+
+    @Test
+    void garbageRetryAfterIsIgnored() {
+        assertEquals(-1, AIDispatcher.parseRetryAfterMs(null));
+        assertEquals(-1, AIDispatcher.parseRetryAfterMs(""));
+        assertEquals(-1, AIDispatcher.parseRetryAfterMs("soon"));
+        assertEquals(-1, AIDispatcher.parseRetryAfterMs("-5"));
+    }
+
+    // ==========================================
+    // TOKEN BUCKET
+    // ==========================================
+
+    @Test
+    void requestBeyondBurstWaitsForToken() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(10, 1, 5, 30_000); // токен раз в 100 мс
+        long t0 = System.nanoTime();
+        dispatcher.dispatch(null, respond(200)).get(5, TimeUnit.SECONDS);
+        dispatcher.dispatch(null, respond(200)).get(5, TimeUnit.SECONDS);
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        assertTrue(elapsedMs >= 80, "второй запрос должен был ждать токен, прошло " + elapsedMs + " мс");
+        assertEquals(2, dispatcher.getSentCount());
+    }
+
+    @Test
+    void requestIsRejectedWhenWaitExceedsLimit() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(0.05, 1, 5, 30_000); // токен раз в 20 с, больше MAX_WAIT_MS
+        Counting send = new Counting(200);
+        dispatcher.dispatch(null, send).get(5, TimeUnit.SECONDS);
+
+        Throwable error = failure(dispatcher.dispatch(null, send));
+        assertInstanceOf(AIDispatcher.RejectedException.class, error);
+        assertEquals(1, send.calls.get());
+        assertEquals(1, dispatcher.getRejectedCount());
+    }
+
+    // ==========================================
+    // CIRCUIT BREAKER
+    // ==========================================
+
+    @Test
+    void breakerOpensAfterThresholdFailures() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(1000, 100, 5, 60_000);
+        Counting send = new Counting(500);
+        for (int i = 0; i < 5; i++) {
+            assertFalse(dispatcher.isCircuitOpen());
+            assertEquals(500, dispatcher.dispatch(null, send).get(5, TimeUnit.SECONDS).statusCode());
+        }
+        assertTrue(dispatcher.isCircuitOpen());
+
+        Throwable error = failure(dispatcher.dispatch(null, send));
+        assertInstanceOf(AIDispatcher.RejectedException.class, error);
+        assertEquals(5, send.calls.get(), "при открытом breaker запрос не отправляется");
+    }
+
+    @Test
+    void halfOpenLetsOnlyOneTrialThrough() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(1000, 100, 1, 50);
+        dispatcher.dispatch(null, respond(500)).get(5, TimeUnit.SECONDS);
+        assertTrue(dispatcher.isCircuitOpen());
+        Thread.sleep(80);
+
+        CompletableFuture<HttpResponse<String>> trialCall = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> trial = dispatcher.dispatch(null, () -> trialCall);
+        // Пока пробный запрос не ответил - остальные получают отказ
+        assertInstanceOf(AIDispatcher.RejectedException.class, failure(dispatcher.dispatch(null, respond(200))));
+
+        trialCall.complete(new StubResponse(200, null));
+        assertEquals(200, trial.get(5, TimeUnit.SECONDS).statusCode());
+        assertFalse(dispatcher.isCircuitOpen());
+        assertEquals(200, dispatcher.dispatch(null, respond(200)).get(5, TimeUnit.SECONDS).statusCode());
+    }
+
+    @Test
+    void limiterRejectionReleasesTrialSlot() throws Exception {
+        // Единственный токен уходит на первый запрос, следующий ждал бы 20 с
+        AIDispatcher dispatcher = new AIDispatcher(0.05, 1, 1, 50);
+        dispatcher.dispatch(null, respond(500)).get(5, TimeUnit.SECONDS);
+        Thread.sleep(80);
+
+        // Оба раза breaker пропускает пробный запрос, отказывает лимитер.
+        // Без release() второй отказ был бы "AI временно недоступен" - слот пробы занят навсегда
+        Throwable first = failure(dispatcher.dispatch(null, respond(200)));
+        Throwable second = failure(dispatcher.dispatch(null, respond(200)));
+        assertEquals(first.getMessage(), second.getMessage());
+        assertTrue(second.getMessage().startsWith("Слишком много"), second.getMessage());
+    }
+
+    // ==========================================
+    // ДЕДУПЛИКАЦИЯ И ПОВТОРЫ
+    // ==========================================
+
+    @Test
+    void identicalInFlightRequestsShareOneCall() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(1000, 100, 5, 30_000);
+        CompletableFuture<HttpResponse<String>> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<CompletableFuture<HttpResponse<String>>> send = () -> {
+            calls.incrementAndGet();
+            return call;
+        };
+
+        CompletableFuture<HttpResponse<String>> a = dispatcher.dispatch("вопрос", send);
+        CompletableFuture<HttpResponse<String>> b = dispatcher.dispatch("вопрос", send);
+        assertSame(a, b);
+        assertEquals(1, dispatcher.getDeduplicatedCount());
+
+        StubResponse response = new StubResponse(200, null);
+        call.complete(response);
+        assertSame(response, a.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+
+        // Ответ получен - следующий такой же вопрос уходит заново
+        Counting again = new Counting(200);
+        dispatcher.dispatch("вопрос", again).get(5, TimeUnit.SECONDS);
+        assertEquals(1, again.calls.get());
+    }
+
+    @Test
+    void tooManyRequestsIsRetried() throws Exception {
+        AIDispatcher dispatcher = new AIDispatcher(1000, 100, 5, 30_000);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<CompletableFuture<HttpResponse<String>>> send = () -> CompletableFuture.completedFuture(
+                calls.incrementAndGet() <= 2 ? new StubResponse(429, "0") : new StubResponse(200, null));
+
+        HttpResponse<String> response = dispatcher.dispatch(null, send).get(10, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+        assertEquals(3, calls.get());
+        assertEquals(2, dispatcher.getRetriedCount());
+        assertFalse(dispatcher.isCircuitOpen());
+    }
+
+    // ==========================================
+    // ЗАГЛУШКИ
+    // ==========================================
+
+    private static Supplier<CompletableFuture<HttpResponse<String>>> respond(int status) {
+        return () -> CompletableFuture.completedFuture(new StubResponse(status, null));
+    }
+
+    // Считает, сколько раз запрос действительно ушел "на сервер"
+    private static class Counting implements Supplier<CompletableFuture<HttpResponse<String>>> {
+        final AtomicInteger calls = new AtomicInteger();
+        final int status;
+        Counting(int status) { this.status = status; }
+
+        @Override
+        public CompletableFuture<HttpResponse<String>> get() {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(new StubResponse(status, null));
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private static class StubResponse implements HttpResponse<String> {
+        private final int status;
+        private final HttpHeaders headers;
+
+        StubResponse(int status, String retryAfter) {
+            this.status = status;
+            this.headers = HttpHeaders.of(retryAfter == null ? Map.of() : Map.of("Retry-After", List.of(retryAfter)), (k, v) -> true);
+        }
+
+        @Override public int statusCode() { return status; }
+        @Override public HttpHeaders headers() { return headers; }
+        @Override public String body() { return ""; }
+        @Override public HttpRequest request() { return HttpRequest.newBuilder(uri()).build(); }
+        @Override public Optional<HttpResponse<String>> previousResponse() { return Optional.empty(); }
+        @Override public Optional<SSLSession> sslSession() { return Optional.empty(); }
+        @Override public URI uri() { return URI.create("http://localhost/"); }
+        @Override public HttpClient.Version version() { return HttpClient.Version.HTTP_1_1; }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.superplanningapp;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Реплика H2 во временном каталоге. Проход SyncEngine имитируется так же, как он работает с репликой:
+// beginPull -> (свои правки) -> MERGE серверных строк в транзакции -> commitPull -> endPull
+class LocalReplicaTest {
+
+    private static final String MOVE_CARD = "UPDATE cards SET list_id = ?, card_order = ? WHERE id = ?";
+    private static final String MERGE_CARD = "MERGE INTO cards (id, title, description, list_id, card_order, updated_at) KEY(id) VALUES (?, ?, ?, ?, ?, NULL)";
+
+    private static Path dir;
+
+    @BeforeAll
+    static void openReplica() throws IOException {
+        dir = Files.createTempDirectory("replica-test");
+        System.setProperty("replica.path", dir.resolve("replica").toString());
+        assertTrue(LocalReplica.isEnabled());
+    }
+
+    @AfterAll
+    static void closeReplica() throws IOException {
+        LocalReplica.close();
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) Files.deleteIfExists(f);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @BeforeEach
+    void resetCard() throws SQLException {
+        try (Connection conn = LocalReplica.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("DELETE FROM cards");
+        }
+        LocalReplica.mirror(MERGE_CARD, p -> { p.setInt(1, 1); p.setString(2, "A"); p.setString(3, ""); p.setInt(4, 10); p.setInt(5, 1024); });
+    }
+
+    @Test
+    void moveDuringPullSurvivesOlderServerRow() throws SQLException {
+        LocalReplica.beginPull();
+        try {
+            // Пока проход читает сервер, пользователь переносит карточку в список 20
+            LocalReplica.mirrorAsync(MOVE_CARD, p -> { p.setInt(1, 20); p.setInt(2, 512); p.setInt(3, 1); });
+            assertEquals(20, listOf(1)); // чтение дожидается зеркальной записи
+
+            // Сервер еще отдает строку до переноса
+            pullServerRow(10, 1024);
+        } finally {
+            LocalReplica.endPull();
+        }
+        assertEquals(20, listOf(1));
+        assertEquals(512, orderOf(1));
+    }
+
+    @Test
+    void changesOutsidePullAreNotReplayed() throws SQLException {
+        LocalReplica.mirrorAsync(MOVE_CARD, p -> { p.setInt(1, 20); p.setInt(2, 512); p.setInt(3, 1); });
+        assertEquals(20, listOf(1));
+
+        // Правка была до прохода и уже на сервере; другой участник потом вернул карточку в список 10
+        LocalReplica.beginPull();
+        try {
+            pullServerRow(10, 2048);
+        } finally {
+            LocalReplica.endPull();
+        }
+        assertEquals(10, listOf(1));
+        assertEquals(2048, orderOf(1));
+    }
+
+    private static void pullServerRow(int listId, int order) throws SQLException {
+        try (Connection local = LocalReplica.getConnection()) {
+            local.setAutoCommit(false);
+            try (PreparedStatement merge = local.prepareStatement(MERGE_CARD)) {
+                merge.setInt(1, 1);
+                merge.setString(2, "A");
+                merge.setString(3, "");
+                merge.setInt(4, listId);
+                merge.setInt(5, order);
+                merge.executeUpdate();
+            }
+            LocalReplica.commitPull(local);
+        }
+    }
+
+    private static int listOf(int cardId) throws SQLException {
+        return readInt("SELECT list_id FROM cards WHERE id = ?", cardId);
+    }
+
+    private static int orderOf(int cardId) throws SQLException {
+        return readInt("SELECT card_order FROM cards WHERE id = ?", cardId);
+    }
+
+    // Как DAO: readConnection сначала дожидается поставленных зеркальных записей
+    private static int readInt(String sql, int id) throws SQLException {
+        LocalReplica.markReady(-7);
+        try (Connection conn = LocalReplica.readConnection(-7); PreparedStatement p = conn.prepareStatement(sql)) {
+            p.setInt(1, id);
+            ResultSet rs = p.executeQuery();
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
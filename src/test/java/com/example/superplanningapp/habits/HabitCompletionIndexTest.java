@@ -0,0 +1,145 @@
+package com.example.superplanningapp.habits;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Индекс общий (static), поэтому у каждого теста свой id привычки
+class HabitCompletionIndexTest {
+
+    // Первый день слова номер word (epoch day = word * 64)
+    private static LocalDate wordStart(long word) {
+        return LocalDate.ofEpochDay(word * 64);
+    }
+
+    private static void markRange(int habitId, LocalDate from, int days) {
+        for (int i = 0; i < days; i++) HabitCompletionIndex.update(habitId, from.plusDays(i), true);
+    }
+
+    @Test
+    void currentStreakCrossesWordBoundary() {
+        int habit = 1001;
+        // 10 дней в конце одного слова + 5 в начале следующего
+        LocalDate start = wordStart(300).minusDays(10);
+        markRange(habit, start, 15);
+
+        LocalDate last = start.plusDays(14);
+        assertEquals(15, HabitCompletionIndex.currentStreak(habit, last));
+        // Сегодня еще не отмечено - серия до вчера не прерывается
+        assertEquals(15, HabitCompletionIndex.currentStreak(habit, last.plusDays(1)));
+        assertEquals(0, HabitCompletionIndex.currentStreak(habit, last.plusDays(2)));
+    }
+
+    @Test
+    void currentStreakSpansSeveralFullWords() {
+        int habit = 1002;
+        LocalDate start = wordStart(400).minusDays(3);
+        markRange(habit, start, 3 + 64 * 2 + 7);
+
+        LocalDate last = start.plusDays(3 + 64 * 2 + 6);
+        assertEquals(3 + 64 * 2 + 7, HabitCompletionIndex.currentStreak(habit, last));
+        assertEquals(3 + 64 * 2 + 7, HabitCompletionIndex.longestStreak(habit));
+    }
+
+    @Test
+    void streakStopsAtGapInPreviousWord() {
+        int habit = 1003;
+        LocalDate boundary = wordStart(500);
+        markRange(habit, boundary.minusDays(20), 5);   // отдельная серия
+        markRange(habit, boundary.minusDays(4), 10);   // через границу слова
+
+        assertEquals(10, HabitCompletionIndex.currentStreak(habit, boundary.plusDays(5)));
+        assertEquals(10, HabitCompletionIndex.longestStreak(habit));
+    }
+
+    @Test
+    void longestStreakFindsRunInsideWord() {
+        int habit = 1004;
+        LocalDate base = wordStart(600);
+        markRange(habit, base.plusDays(2), 3);
+        markRange(habit, base.plusDays(20), 12);
+        markRange(habit, base.plusDays(40), 1);
+
+        assertEquals(12, HabitCompletionIndex.longestStreak(habit));
+        assertEquals(0, HabitCompletionIndex.currentStreak(habit, base.plusDays(50)));
+    }
+
+    @Test
+    void daysBeforeEpochAreIndexed() {
+        int habit = 1005;
+        LocalDate start = LocalDate.ofEpochDay(-3);
+        markRange(habit, start, 6); // -3..2, через слово с отрицательным номером
+
+        assertEquals(6, HabitCompletionIndex.currentStreak(habit, LocalDate.ofEpochDay(2)));
+        assertEquals(6, HabitCompletionIndex.countInRange(habit, start, LocalDate.ofEpochDay(3)));
+    }
+
+    @Test
+    void countInRangeAcrossWordsAndWeeklyRate() {
+        int habit = 1006;
+        LocalDate boundary = wordStart(700);
+        markRange(habit, boundary.minusDays(2), 4);
+
+        assertEquals(4, HabitCompletionIndex.countInRange(habit, boundary.minusDays(100), boundary.plusDays(100)));
+        assertEquals(2, HabitCompletionIndex.countInRange(habit, boundary, boundary.plusDays(64)));
+        assertEquals(0, HabitCompletionIndex.countInRange(habit, boundary.plusDays(2), boundary.plusDays(2)));
+        assertEquals(4 / 7.0, HabitCompletionIndex.weeklyRate(habit, boundary.plusDays(4)), 1e-9);
+    }
+
+    @Test
+    void uncheckingBreaksStreakAndRemoveClears() {
+        int habit = 1007;
+        LocalDate start = wordStart(800).minusDays(5);
+        markRange(habit, start, 10);
+        HabitCompletionIndex.update(habit, start.plusDays(4), false);
+
+        assertFalse(HabitCompletionIndex.isCompleted(habit, start.plusDays(4)));
+        assertEquals(5, HabitCompletionIndex.currentStreak(habit, start.plusDays(9)));
+        assertEquals(5, HabitCompletionIndex.longestStreak(habit));
+
+        HabitCompletionIndex.removeHabit(habit);
+        assertEquals(0, HabitCompletionIndex.longestStreak(habit));
+    }
+
+    @Test
+    void ensureLoadedReadsHistoryOnce() {
+        InMemoryHabitRepository repo = new InMemoryHabitRepository();
+        repo.createHabit(77, "Бег");
+        int habitId = repo.getHabitsForUser(77, LocalDate.now()).get(0).getId();
+        LocalDate day = wordStart(900);
+        repo.queueHabitCompletion(habitId, day, true);
+        HabitCompletionIndex.removeHabit(habitId); // имитируем свежий запуск: в индексе пусто
+
+        HabitCompletionIndex.ensureLoaded(77, repo);
+        assertTrue(HabitCompletionIndex.isLoaded(77));
+        assertTrue(HabitCompletionIndex.isCompleted(habitId, day));
+    }
+
+    @Test
+    void toggleDuringLoadIsNotLost() {
+        LocalDate day = wordStart(950);
+        InMemoryHabitRepository repo = new InMemoryHabitRepository() {
+            // Загрузка уже прочитала историю, а пользователь в это время переключил галочки
+            @Override
+            public synchronized void forEachCompletion(int userId, BiConsumer<Integer, LocalDate> action) {
+                super.forEachCompletion(userId, action);
+                int habitId = getHabitsForUser(userId, day).get(0).getId();
+                HabitCompletionIndex.update(habitId, day, false);
+                HabitCompletionIndex.update(habitId, day.plusDays(1), true);
+            }
+        };
+        repo.createHabit(78, "Чтение");
+        int habitId = repo.getHabitsForUser(78, day).get(0).getId();
+        repo.queueHabitCompletion(habitId, day, true);
+        HabitCompletionIndex.removeHabit(habitId);
+
+        HabitCompletionIndex.ensureLoaded(78, repo);
+        assertFalse(HabitCompletionIndex.isCompleted(habitId, day));
+        assertTrue(HabitCompletionIndex.isCompleted(habitId, day.plusDays(1)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.superplanningapp.trello;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Списки 1 и 2; в списке 1 карточки 11, 12, 13, 14 с рангами GAP, 2*GAP...
+class BoardViewModelTest {
+
+    private BoardViewModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new BoardViewModel(1);
+        model.addList(new TrelloList(1, "Сделать", 1, null));
+        model.addList(new TrelloList(2, "Готово", 1, null));
+        for (int i = 0; i < 4; i++) model.addCard(new Card(11 + i, "Карточка " + i, "", 1, CardRank.nth(i)));
+    }
+
+    private List<Integer> ids(int listId) {
+        return model.cardsOf(listId).stream().map(Card::getId).toList();
+    }
+
+    @Test
+    void moveDownInSameListAccountsForRemovedCard() {
+        // Бросили на позицию 3 (перед 14): после снятия 11 цель сдвигается на 2
+        assertTrue(model.moveCard(11, 1, 3));
+        assertEquals(List.of(12, 13, 11, 14), ids(1));
+    }
+
+    @Test
+    void moveUpInSameList() {
+        assertTrue(model.moveCard(14, 1, 1));
+        assertEquals(List.of(11, 14, 12, 13), ids(1));
+    }
+
+    @Test
+    void moveToEndOfSameList() {
+        assertTrue(model.moveCard(11, 1, 4));
+        assertEquals(List.of(12, 13, 14, 11), ids(1));
+        // Индекс за концом списка прижимается к концу
+        assertTrue(model.moveCard(12, 1, 100));
+        assertEquals(List.of(13, 14, 11, 12), ids(1));
+    }
+
+    @Test
+    void dropOnOwnPlaceIsNoOp() {
+        assertFalse(model.moveCard(12, 1, 1));
+        // Сразу под собой - та же позиция
+        assertFalse(model.moveCard(12, 1, 2));
+        assertEquals(List.of(11, 12, 13, 14), ids(1));
+    }
+
+    @Test
+    void moveToOtherList() {
+        assertTrue(model.moveCard(12, 2, 0));
+        assertEquals(List.of(11, 13, 14), ids(1));
+        assertEquals(List.of(12), ids(2));
+        assertEquals(2, model.findCard(12).getListId());
+    }
+
+    @Test
+    void unknownCardIsIgnored() {
+        assertFalse(model.moveCard(99, 1, 0));
+    }
+
+    @Test
+    void rankBetweenNeighboursAfterMove() {
+        model.moveCard(14, 1, 1);
+        Card moved = model.findCard(14);
+        assertEquals((CardRank.nth(0) + CardRank.nth(1)) / 2, model.rankBetweenNeighbours(moved));
+
+        model.moveCard(11, 2, 0);
+        assertEquals(CardRank.GAP, model.rankBetweenNeighbours(model.findCard(11)));
+    }
+
+    @Test
+    void noGapThenRenumber() {
+        model.findCard(12).setCardOrder(CardRank.nth(0) + 1);
+        model.moveCard(13, 1, 1); // между 11 (GAP) и 12 (GAP + 1)
+        assertNull(model.rankBetweenNeighbours(model.findCard(13)));
+
+        assertEquals(List.of(11, 13, 12, 14), model.renumber(1));
+        assertEquals(CardRank.nth(1), model.findCard(13).getCardOrder());
+        assertEquals(CardRank.nth(2), model.findCard(12).getCardOrder());
+    }
+
+    @Test
+    void cardDraftsStayWithTheirList() {
+        model.saveDraft(1, "Купить молоко", "");
+        assertEquals("Купить молоко", model.draftOf(1).title);
+        // Ячейка, перешедшая к списку 2, получает его (пустой) черновик, а не чужой
+        assertEquals("", model.draftOf(2).title);
+
+        model.saveDraft(1, "", "");
+        assertEquals("", model.draftOf(1).title);
+
+        model.saveDraft(2, "Отчет", "до пятницы");
+        model.removeList(2);
+        assertEquals("", model.draftOf(2).description);
+    }
+}
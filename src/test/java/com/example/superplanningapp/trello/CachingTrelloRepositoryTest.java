@@ -0,0 +1,53 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class CachingTrelloRepositoryTest {
+
+    private CachingTrelloRepository repo;
+    private Board board;
+    private TrelloList list;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryTrelloRepository store = new InMemoryTrelloRepository(new InMemoryUserRepository());
+        repo = new CachingTrelloRepository(store, store);
+        board = repo.createBoard("Доска", "", 1);
+        list = repo.createList("Сделать", board.getId());
+        repo.createCard("A", "", list.getId());
+        repo.createCard("B", "", list.getId());
+    }
+
+    @Test
+    void cachedCardsAreNotSharedWithCaller() {
+        List<Card> first = repo.getCardsByList(list.getId());
+        // Так делает BoardViewModel при переносе карточки, еще до записи в базу
+        first.get(0).setListId(999);
+        first.get(0).setCardOrder(-1);
+
+        List<Card> second = repo.getCardsByList(list.getId());
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals(list.getId(), second.get(0).getListId());
+        assertEquals(CardRank.nth(0), second.get(0).getCardOrder());
+    }
+
+    @Test
+    void cachedBoardsAreNotSharedWithCaller() {
+        repo.getAllBoards(1).get(0).setTitle("Изменено снаружи");
+        assertEquals("Доска", repo.getAllBoards(1).get(0).getTitle());
+    }
+
+    @Test
+    void queuedMoveIsVisibleOnNextRead() {
+        Card b = repo.getCardsByList(list.getId()).get(1);
+        repo.queueMoveCard(b.getId(), list.getId(), CardRank.nth(0) / 2);
+        assertEquals(List.of("B", "A"), repo.getCardsByList(list.getId()).stream().map(Card::getTitle).toList());
+    }
+}
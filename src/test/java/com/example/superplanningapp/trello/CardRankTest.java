@@ -0,0 +1,54 @@
+package com.example.superplanningapp.trello;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CardRankTest {
+
+    @Test
+    void emptyListGetsFirstRank() {
+        assertEquals(CardRank.GAP, CardRank.between(null, null));
+    }
+
+    @Test
+    void edgesStepByGap() {
+        assertEquals(2048 + CardRank.GAP, CardRank.between(2048, null));
+        assertEquals(2048 - CardRank.GAP, CardRank.between(null, 2048));
+    }
+
+    @Test
+    void midpointBetweenNeighbours() {
+        assertEquals(1536, CardRank.between(1024, 2048));
+        assertEquals(2, CardRank.between(1, 3));
+        // Нечетный промежуток - округление вниз, но строго между соседями
+        assertEquals(1, CardRank.between(0, 3));
+    }
+
+    @Test
+    void noGapNeedsRebalance() {
+        assertNull(CardRank.between(5, 6));
+        assertNull(CardRank.between(5, 5));
+        // Соседи в неверном порядке (например, чужая правка еще не пришла) - тоже перебалансировка
+        assertNull(CardRank.between(7, 5));
+    }
+
+    @Test
+    void midpointDoesNotOverflowNearIntLimits() {
+        assertEquals(0, CardRank.between(Integer.MIN_VALUE + 1, Integer.MAX_VALUE));
+        assertEquals(Integer.MAX_VALUE - 1, CardRank.between(Integer.MAX_VALUE - 2, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void edgesNearIntLimitsNeedRebalance() {
+        assertNull(CardRank.between(Integer.MAX_VALUE - 10, null));
+        assertNull(CardRank.between(null, Integer.MIN_VALUE + 10));
+    }
+
+    @Test
+    void nthRanksAreEvenlySpaced() {
+        assertEquals(CardRank.GAP, CardRank.nth(0));
+        assertEquals(3 * CardRank.GAP, CardRank.nth(2));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.superplanningapp.trello;
+
+import com.example.superplanningapp.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryTrelloRepositoryTest {
+
+    private InMemoryTrelloRepository repo;
+    private int owner;
+    private int guest;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        users.registerUser("owner", "owner@example.com", "+70000000001", "secret");
+        users.registerUser("guest", "guest@example.com", "+70000000002", "secret");
+        owner = users.findUserIdByUsername("owner");
+        guest = users.findUserIdByUsername("guest");
+        repo = new InMemoryTrelloRepository(users);
+    }
+
+    @Test
+    void invitationsMoveFromBadgeToArchive() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Board board = repo.createBoard("Доска " + i, "", owner);
+            assertTrue(repo.sendInvitation(owner, guest, board.getId()));
+            ids.add(repo.getPendingInvitations(guest, null, 1, true).get(0).getId());
+        }
+        assertEquals(5, repo.getBadgeCounts(guest).getTotal());
+
+        // Страницы по 2 без повторов и пропусков
+        List<Integer> seen = new ArrayList<>();
+        TrelloDAO.PageCursor after = null;
+        List<TrelloDAO.Invitation> page;
+        while (!(page = repo.getPendingInvitations(guest, after, 2, false)).isEmpty()) {
+            for (TrelloDAO.Invitation inv : page) seen.add(inv.getId());
+            after = TrelloDAO.PageCursor.after(page.get(page.size() - 1));
+        }
+        assertEquals(ids, seen);
+
+        repo.declineInvitation(ids.get(0));
+        repo.acceptInvitation(ids.get(1));
+        assertEquals(3, repo.getBadgeCounts(guest).getPendingInvitations());
+        assertEquals(2, repo.getArchivedInvitations(guest, null, 10, true).size());
+        assertEquals("guest", repo.getOutgoingInvitations(owner, null, 10, true).get(0).getPersonName());
+        // Уже участник - повторно не приглашается
+        assertFalse(repo.sendInvitation(owner, guest, repo.getAllBoards(guest).get(0).getId()));
+    }
+
+    @Test
+    void leavingBoardNotifiesOwner() {
+        Board board = repo.createBoard("Общая", "", owner);
+        repo.acceptInvitation(repo.invite(board.getId(), guest));
+        repo.leaveBoard(board.getId(), guest, "guest");
+
+        List<TrelloDAO.Notification> unread = repo.getUnreadNotifications(owner, null, 10, true);
+        assertEquals(1, unread.size());
+        assertEquals(1, repo.getBadgeCounts(owner).getUnreadNotifications());
+
+        repo.markNotificationAsRead(unread.get(0).getId());
+        assertEquals(0, repo.getBadgeCounts(owner).getTotal());
+        assertEquals(1, repo.getReadNotifications(owner, null, 10, true).size());
+    }
+
+    @Test
+    void searchCoversOnlyOwnBoards() {
+        Board mine = repo.createBoard("Отчеты", "", owner);
+        TrelloList list = repo.createList("Сделать", mine.getId());
+        repo.createCard("Отчет за май", "", list.getId());
+        Board other = repo.createBoard("Чужие отчеты", "", guest);
+        repo.createCard("Отчет за июнь", "", repo.createList("Сделать", other.getId()).getId());
+
+        List<TrelloDAO.SearchResult> results = repo.search(owner, "ОТЧЕТ", 10);
+        assertEquals(2, results.size());
+        assertEquals("CARD", results.get(0).getKind());
+        assertEquals("Сделать", results.get(0).getContext());
+        assertEquals("BOARD", results.get(1).getKind());
+        assertTrue(repo.search(owner, "  ", 10).isEmpty());
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.superplanningapp.trello;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboxFeedTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private record Row(int id, LocalDateTime createdAt) implements TrelloDAO.Dated {
+        public int getId() { return id; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+
+    // Источник как запрос с keyset-пагинацией: строки уже отсортированы, отдаются страницами подряд.
+    // Проверяет, что курсор передается со второй страницы, и считает запросы
+    private static class FakeSource implements InboxFeed.Source {
+        final List<Row> rows;
+        int position;
+        int fetches;
+
+        FakeSource(List<Row> rows) { this.rows = rows; }
+
+        @Override
+        public List<? extends TrelloDAO.Dated> fetch(TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+            if (position == 0) assertNull(after); else assertNotNull(after);
+            fetches++;
+            List<Row> sorted = new ArrayList<>(rows);
+            Comparator<Row> order = Comparator.comparing(Row::getCreatedAt).thenComparingInt(Row::getId);
+            sorted.sort(newestFirst ? order.reversed() : order);
+            List<Row> page = sorted.subList(position, Math.min(position + limit, sorted.size()));
+            position += page.size();
+            return new ArrayList<>(page);
+        }
+    }
+
+    private static List<Row> rows(int firstId, int count, int minuteStep, int minuteOffset) {
+        List<Row> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) result.add(new Row(firstId + i, T0.plusMinutes((long) i * minuteStep + minuteOffset)));
+        return result;
+    }
+
+    private static List<Integer> drain(InboxFeed feed) {
+        List<Integer> ids = new ArrayList<>();
+        for (List<InboxFeed.Item> page = feed.nextPage(); !page.isEmpty(); page = feed.nextPage()) {
+            assertTrue(page.size() <= InboxFeed.PAGE_SIZE);
+            for (InboxFeed.Item item : page) ids.add(item.data.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void mergesSourcesByDateNewestFirst() {
+        // Четные минуты у приглашений, нечетные у уведомлений - в ленте они чередуются
+        FakeSource invites = new FakeSource(rows(1, 40, 2, 0));
+        FakeSource notifs = new FakeSource(rows(1001, 40, 2, 1));
+        InboxFeed feed = new InboxFeed(true).add("IN_INVITE", invites).add("IN_NOTIF", notifs);
+
+        List<InboxFeed.Item> first = feed.nextPage();
+        assertEquals(InboxFeed.PAGE_SIZE, first.size());
+        assertEquals(1040, first.get(0).data.getId());
+        assertEquals("IN_NOTIF", first.get(0).type);
+        assertEquals(40, first.get(1).data.getId());
+        assertEquals("IN_INVITE", first.get(1).type);
+
+        List<Integer> ids = new ArrayList<>();
+        for (InboxFeed.Item item : first) ids.add(item.data.getId());
+        ids.addAll(drain(feed));
+        assertEquals(80, ids.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(1040 - i, ids.get(2 * i));
+            assertEquals(40 - i, ids.get(2 * i + 1));
+        }
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void mergesOldestFirst() {
+        InboxFeed feed = new InboxFeed(false)
+                .add("A", new FakeSource(rows(1, 3, 10, 0)))     // 0, 10, 20 мин
+                .add("B", new FakeSource(rows(100, 3, 10, 5)));  // 5, 15, 25 мин
+        assertEquals(List.of(1, 100, 2, 101, 3, 102), drain(feed));
+    }
+
+    @Test
+    void equalTimestampsAreOrderedById() {
+        LocalDateTime same = T0;
+        InboxFeed newest = new InboxFeed(true)
+                .add("A", new FakeSource(List.of(new Row(5, same), new Row(2, same))))
+                .add("B", new FakeSource(List.of(new Row(4, same), new Row(3, same))));
+        assertEquals(List.of(5, 4, 3, 2), drain(newest));
+
+        InboxFeed oldest = new InboxFeed(false)
+                .add("A", new FakeSource(List.of(new Row(5, same), new Row(2, same))))
+                .add("B", new FakeSource(List.of(new Row(4, same), new Row(3, same))));
+        assertEquals(List.of(2, 3, 4, 5), drain(oldest));
+    }
+
+    @Test
+    void readsOnePageAheadPerSource() {
+        FakeSource big = new FakeSource(rows(1, 200, 1, 0));
+        FakeSource small = new FakeSource(rows(1000, 2, 1, 500));
+        InboxFeed feed = new InboxFeed(true).add("BIG", big).add("SMALL", small);
+
+        List<InboxFeed.Item> page = feed.nextPage();
+        assertEquals(InboxFeed.PAGE_SIZE, page.size());
+        assertEquals(1001, page.get(0).data.getId());
+        assertEquals(1000, page.get(1).data.getId());
+        // Первая страница = 2 записи SMALL + 28 из первой страницы BIG: второй запрос к BIG не нужен
+        assertEquals(1, big.fetches);
+        assertEquals(1, small.fetches);
+        assertTrue(feed.hasMore());
+    }
+
+    @Test
+    void emptySourcesGiveEmptyPage() {
+        InboxFeed feed = new InboxFeed(true).add("A", new FakeSource(List.of())).add("B", new FakeSource(List.of()));
+        assertTrue(feed.nextPage().isEmpty());
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void failedFetchIsRetriedAndNothingIsLost() {
+        // Вторая страница источника A один раз падает (обрыв связи)
+        FakeSource a = new FakeSource(rows(1, 40, 2, 0)) {
+            boolean failed;
+            @Override
+            public List<? extends TrelloDAO.Dated> fetch(TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+                if (after != null && !failed) {
+                    failed = true;
+                    throw new RuntimeException("нет связи");
+                }
+                return super.fetch(after, limit, newestFirst);
+            }
+        };
+        FakeSource b = new FakeSource(rows(1001, 5, 2, 1));
+        InboxFeed feed = new InboxFeed(false).add("A", a).add("B", b);
+
+        List<Integer> ids = new ArrayList<>();
+        // Первая страница: 30 записей A и 5 B; на 35-й нужна вторая страница A - отдаем то, что набрали
+        for (InboxFeed.Item item : feed.nextPage()) ids.add(item.data.getId());
+        assertTrue(feed.hasMore(), "ошибка не должна заканчивать ленту");
+
+        ids.addAll(drain(feed));
+        assertEquals(45, ids.size());
+        assertEquals(45, ids.stream().distinct().count());
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void failureOnEmptyPagePropagatesAndFeedStaysRetryable() {
+        FakeSource flaky = new FakeSource(rows(1, 3, 1, 0)) {
+            boolean failed;
+            @Override
+            public List<? extends TrelloDAO.Dated> fetch(TrelloDAO.PageCursor after, int limit, boolean newestFirst) {
+                if (!failed) {
+                    failed = true;
+                    throw new RuntimeException("нет связи");
+                }
+                return super.fetch(after, limit, newestFirst);
+            }
+        };
+        InboxFeed feed = new InboxFeed(true).add("A", flaky);
+
+        assertThrows(RuntimeException.class, feed::nextPage);
+        assertTrue(feed.hasMore());
+        assertEquals(List.of(3, 2, 1), drain(feed));
+    }
+}